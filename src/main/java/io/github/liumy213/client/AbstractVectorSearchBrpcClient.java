@@ -1,6 +1,6 @@
 package io.github.liumy213.client;
 
-import com.baidu.fengchao.stargate.remoting.exceptions.RpcExecutionException;
+import com.baidu.cloud.starlight.api.rpc.callback.Callback;
 import io.github.liumy213.exception.ParamException;
 import io.github.liumy213.param.LogLevel;
 import io.github.liumy213.param.ParamUtils;
@@ -20,12 +20,170 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
-public abstract class AbstractVectorSearchBrpcClient implements VectorSearchClient {
+public abstract class AbstractVectorSearchBrpcClient implements VectorSearchClient, VectorSearchAsyncClient {
     protected static final Logger logger = LoggerFactory.getLogger(AbstractVectorSearchBrpcClient.class);
     protected LogLevel logLevel = LogLevel.Error;
-    protected abstract VectorSearchBrpc vectorSearchBrpc();
+    // null if the schema cache is disabled
+    private final CollectionSchemaCache schemaCache;
+    // null if the write buffer is not limited
+    private final WriteBufferLimiter writeBufferLimiter;
+    // null if identical searches are not deduplicated
+    private final SearchSingleFlight searchSingleFlight;
+
+    protected AbstractVectorSearchBrpcClient() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param schemaCache null to describe the collection before every insert/createIndex
+     * @param writeBufferLimiter null to not limit the bytes of in-flight inserts
+     * @param searchSingleFlight null to send every search
+     */
+    protected AbstractVectorSearchBrpcClient(CollectionSchemaCache schemaCache, WriteBufferLimiter writeBufferLimiter,
+                                             SearchSingleFlight searchSingleFlight) {
+        this.schemaCache = schemaCache;
+        this.writeBufferLimiter = writeBufferLimiter;
+        this.searchSingleFlight = searchSingleFlight;
+    }
+
+    /**
+     * Returns the bytes of the inserts currently holding the write buffer, zero if the write buffer is not limited.
+     */
+    protected long getWriteBufferUsedBytes() {
+        return writeBufferLimiter != null ? writeBufferLimiter.getUsedBytes() : 0;
+    }
+
+    /**
+     * One asynchronous brpc call, the implementation must pass the callback to a <code>xxxCallback</code>
+     * method of the given stub.
+     */
+    @FunctionalInterface
+    protected interface BrpcCall<T> {
+        void invoke(VectorSearchBrpcAsync stub, Callback<T> callback);
+    }
+
+    /**
+     * Deadline and cancellation of one call, shared by all the requests sent for it: the describe issued
+     * before an insert, retries and hedges.
+     */
+    protected static final class CallContext {
+        // System.nanoTime() based, zero means no deadline
+        private final long deadlineNanos;
+        // the future returned to the caller, null if the call cannot be cancelled
+        private final CompletableFuture<?> call;
+
+        protected CallContext(long deadlineNanos, CompletableFuture<?> call) {
+            this.deadlineNanos = deadlineNanos;
+            this.call = call;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+
+        public boolean isExpired() {
+            return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+        }
+
+        /**
+         * Cancels a request of the call when the call is cancelled.
+         */
+        public <T> CompletableFuture<T> bind(CompletableFuture<T> request) {
+            if (call != null) {
+                call.whenComplete((r, e) -> {
+                    if (call.isCancelled()) {
+                        request.cancel(false);
+                    }
+                });
+            }
+            return request;
+        }
+    }
+
+    /**
+     * Returns the brpc stub used by the default {@link #invokeAsync}.
+     * Subclasses either override this method or {@link #invokeAsync}. A stub which does not implement
+     * {@link VectorSearchBrpcAsync} is called synchronously on the calling thread.
+     */
+    protected VectorSearchBrpc vectorSearchBrpc() {
+        throw new UnsupportedOperationException(getClass().getName()
+                + " must override vectorSearchBrpc() or invokeAsync()");
+    }
+
+    /**
+     * Sends a request through an asynchronous brpc stub chosen for the kind of the request.
+     * The returned future completes exceptionally if the request cannot be sent, its deadline has expired
+     * or the RPC fails.
+     * The default implementation sends every request through {@link #vectorSearchBrpc()}.
+     *
+     * @param collectionName the collection the request works on
+     * @param context deadline and cancellation of the call
+     */
+    protected <T> CompletableFuture<T> invokeAsync(OperationType operationType, String collectionName,
+                                                   CallContext context, BrpcCall<T> call) {
+        CallbackFuture<T> future = new CallbackFuture<>();
+        try {
+            if (context.isExpired()) {
+                throw BrpcChannel.deadlineExceeded();
+            }
+            VectorSearchBrpc stub = vectorSearchBrpc();
+            call.invoke(stub instanceof VectorSearchBrpcAsync
+                    ? (VectorSearchBrpcAsync) stub : new BlockingBrpcStub(stub), future);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return context.bind(future);
+    }
+
+    /**
+     * Returns the timeout of calls without their own timeout, zero means no timeout.
+     */
+    protected long getDefaultTimeoutNanos(OperationType operationType) {
+        return 0;
+    }
+
+    /**
+     * Returns the deadline of a call which starts now.
+     *
+     * @param timeoutNanos timeout of the call parameter, zero means the default of the operation type
+     * @return deadline based on <code>System.nanoTime()</code>, zero if there is no timeout
+     */
+    protected long deadlineOf(OperationType operationType, long timeoutNanos) {
+        long timeout = timeoutNanos > 0 ? timeoutNanos : getDefaultTimeoutNanos(operationType);
+        if (timeout <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + timeout;
+        // zero stands for no deadline
+        return deadline == 0 ? 1 : deadline;
+    }
+
+    /**
+     * Blocks until an asynchronous call is done, used by the synchronous interfaces.
+     */
+    protected <T> R<T> await(CompletableFuture<R<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return R.failed(e);
+        } catch (ExecutionException e) {
+            return R.failed(unwrap(e));
+        }
+    }
+
+    protected static Exception unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
 
     private <T> R<T> failedStatus(String requestName, Status status) {
         String reason = status.getReason();
@@ -33,43 +191,68 @@ public abstract class AbstractVectorSearchBrpcClient implements VectorSearchClie
             reason = "error code: " + status.getErrorCode().toString();
         }
         logError(requestName + " failed:{}", reason);
-        return R.failed(R.Status.valueOf(status.getErrorCode().getNumber()), reason);
+        return R.failed(R.Status.valueOf(status.getErrorCode()), reason);
     }
 
     @Override
     public R<Boolean> hasCollection(@NonNull HasCollectionParam requestParam) {
-        logInfo(requestParam.toString());
+        return await(hasCollectionAsync(requestParam));
+    }
 
-        try {
-            HasCollectionRequest.Builder builder = HasCollectionRequest.newBuilder()
-                    .setCollectionName(requestParam.getCollectionName());
-            HasCollectionRequest hasCollectionRequest = builder
-                    .build();
+    @Override
+    public CompletableFuture<R<Boolean>> hasCollectionAsync(@NonNull HasCollectionParam requestParam) {
+        return hasCollectionAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
 
-            HasCollectionResponse response = vectorSearchBrpc().has_collection(hasCollectionRequest);
+    protected CompletableFuture<R<Boolean>> hasCollectionAsync(@NonNull HasCollectionParam requestParam,
+                                                               CallContext context) {
+        logInfo(requestParam.toString());
 
-            if (response.getStatus().getErrorCode() == ErrorCode.Success) {
-                logDebug("HasCollectionRequest successfully!");
-                Boolean value = Optional.of(response)
-                        .map(HasCollectionResponse::getValue)
-                        .orElse(false);
-                return R.success(value);
-            } else {
-                return failedStatus("HasCollectionRequest", response.getStatus());
-            }
-        } catch (RpcExecutionException e) {
-            logError("HasCollectionRequest RPC failed:{}", requestParam.getCollectionName(), e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("HasCollectionRequest failed:{}", requestParam.getCollectionName(), e);
-            return R.failed(e);
+        if (schemaCache != null && schemaCache.exists(requestParam.getCollectionName())) {
+            logDebug("HasCollectionRequest served from schema cache!");
+            return CompletableFuture.completedFuture(R.success(true));
         }
+
+        HasCollectionRequest hasCollectionRequest = HasCollectionRequest.newBuilder()
+                .setCollectionName(requestParam.getCollectionName())
+                .build();
+
+        return this.<HasCollectionResponse>invokeAsync(OperationType.DDL, requestParam.getCollectionName(), context,
+                        (stub, callback) -> stub.has_collectionCallback(hasCollectionRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("HasCollectionRequest RPC failed:{}", requestParam.getCollectionName(), e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getStatus().getErrorCode() == ErrorCode.Success) {
+                        logDebug("HasCollectionRequest successfully!");
+                        if (schemaCache != null && response.getValue()) {
+                            schemaCache.putExisting(requestParam.getCollectionName());
+                        }
+                        return R.success(response.getValue());
+                    } else {
+                        return failedStatus("HasCollectionRequest", response.getStatus());
+                    }
+                });
     }
 
     @Override
     public R<RpcStatus> createCollection(@NonNull CreateCollectionParam requestParam) {
+        return await(createCollectionAsync(requestParam));
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> createCollectionAsync(@NonNull CreateCollectionParam requestParam) {
+        return createCollectionAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
+
+    protected CompletableFuture<R<RpcStatus>> createCollectionAsync(@NonNull CreateCollectionParam requestParam,
+                                                                    CallContext context) {
         logInfo(requestParam.toString());
 
+        CreateCollectionRequest createCollectionRequest;
         try {
             // Construct CollectionSchema Params
             CollectionSchema.Builder collectionSchemaBuilder = CollectionSchema.newBuilder();
@@ -81,250 +264,458 @@ public abstract class AbstractVectorSearchBrpcClient implements VectorSearchClie
             }
 
             // Construct CreateCollectionRequest
-            CreateCollectionRequest.Builder builder = CreateCollectionRequest.newBuilder()
+            createCollectionRequest = CreateCollectionRequest.newBuilder()
                     .setCollectionName(requestParam.getCollectionName())
-                    .setSchema(collectionSchemaBuilder.build().toBuilder());
-
-            CreateCollectionRequest createCollectionRequest = builder.build();
-
-            Status response = vectorSearchBrpc().create_collection(createCollectionRequest);
-
-            if (response.getErrorCode() == ErrorCode.Success) {
-                logDebug("CreateCollectionRequest successfully! Collection name:{}",
-                        requestParam.getCollectionName());
-                return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
-            } else {
-                return failedStatus("CreateCollectionRequest", response);
-            }
-        } catch (RpcExecutionException e) {
-            logError("CreateCollectionRequest RPC failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
+                    .setSchema(collectionSchemaBuilder.build().toBuilder())
+                    .build();
         } catch (Exception e) {
             logError("CreateCollectionRequest failed! Collection name:{}",
                     requestParam.getCollectionName(), e);
-            return R.failed(e);
+            return CompletableFuture.completedFuture(R.failed(e));
         }
+
+        return this.<Status>invokeAsync(OperationType.DDL, requestParam.getCollectionName(), context,
+                        (stub, callback) -> stub.create_collectionCallback(createCollectionRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("CreateCollectionRequest RPC failed! Collection name:{}",
+                                requestParam.getCollectionName(), e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getErrorCode() == ErrorCode.Success) {
+                        logDebug("CreateCollectionRequest successfully! Collection name:{}",
+                                requestParam.getCollectionName());
+                        invalidateSchema(requestParam.getCollectionName());
+                        return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
+                    } else {
+                        return failedStatus("CreateCollectionRequest", response);
+                    }
+                });
     }
 
     @Override
     public R<RpcStatus> dropCollection(@NonNull DropCollectionParam requestParam) {
+        return await(dropCollectionAsync(requestParam));
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> dropCollectionAsync(@NonNull DropCollectionParam requestParam) {
+        return dropCollectionAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
+
+    protected CompletableFuture<R<RpcStatus>> dropCollectionAsync(@NonNull DropCollectionParam requestParam,
+                                                                  CallContext context) {
         logInfo(requestParam.toString());
 
-        try {
-            DropCollectionRequest.Builder builder = DropCollectionRequest.newBuilder()
-                    .setCollectionName(requestParam.getCollectionName());
-            DropCollectionRequest dropCollectionRequest = builder.build();
-
-            Status response = vectorSearchBrpc().drop_collection(dropCollectionRequest);
-
-            if (response.getErrorCode() == ErrorCode.Success) {
-                logDebug("DropCollectionRequest successfully! Collection name:{}",
-                        requestParam.getCollectionName());
-                return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
-            } else {
-                return failedStatus("DropCollectionRequest", response);
-            }
-        } catch (RpcExecutionException e) {
-            logError("DropCollectionRequest RPC failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("DropCollectionRequest failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        }
+        DropCollectionRequest dropCollectionRequest = DropCollectionRequest.newBuilder()
+                .setCollectionName(requestParam.getCollectionName())
+                .build();
+
+        return this.<Status>invokeAsync(OperationType.DDL, requestParam.getCollectionName(), context,
+                        (stub, callback) -> stub.drop_collectionCallback(dropCollectionRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("DropCollectionRequest RPC failed! Collection name:{}",
+                                requestParam.getCollectionName(), e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getErrorCode() == ErrorCode.Success) {
+                        logDebug("DropCollectionRequest successfully! Collection name:{}",
+                                requestParam.getCollectionName());
+                        invalidateSchema(requestParam.getCollectionName());
+                        return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
+                    } else {
+                        return failedStatus("DropCollectionRequest", response);
+                    }
+                });
     }
 
     @Override
     public R<DescribeCollectionResponse> describeCollection(@NonNull DescribeCollectionParam requestParam) {
-        logInfo(requestParam.toString());
+        return await(describeCollectionAsync(requestParam));
+    }
 
-        try {
-            DescribeCollectionRequest.Builder builder = DescribeCollectionRequest.newBuilder()
-                    .setCollectionName(requestParam.getCollectionName());
-            DescribeCollectionRequest describeCollectionRequest = builder.build();
+    @Override
+    public CompletableFuture<R<DescribeCollectionResponse>> describeCollectionAsync(
+            @NonNull DescribeCollectionParam requestParam) {
+        return describeCollectionAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
 
-            DescribeCollectionResponse response = vectorSearchBrpc().describe_collection(describeCollectionRequest);
+    protected CompletableFuture<R<DescribeCollectionResponse>> describeCollectionAsync(
+            @NonNull DescribeCollectionParam requestParam, CallContext context) {
+        logInfo(requestParam.toString());
+        return doDescribeCollectionAsync(requestParam, context);
+    }
 
-            if (response.getStatus().getErrorCode() == ErrorCode.Success) {
-                logDebug("DescribeCollectionRequest successfully!");
-                return R.success(response);
-            } else {
-                return failedStatus("DescribeCollectionRequest", response.getStatus());
-            }
-        } catch (RpcExecutionException e) {
-            logError("DescribeCollectionRequest RPC failed!", e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("DescribeCollectionRequest failed!", e);
-            return R.failed(e);
-        }
+    // not overridable, so that the describe issued by insert/createIndex isn't retried on its own
+    private CompletableFuture<R<DescribeCollectionResponse>> doDescribeCollectionAsync(
+            DescribeCollectionParam requestParam, CallContext context) {
+        DescribeCollectionRequest describeCollectionRequest = DescribeCollectionRequest.newBuilder()
+                .setCollectionName(requestParam.getCollectionName())
+                .build();
+
+        return this.<DescribeCollectionResponse>invokeAsync(OperationType.DDL, requestParam.getCollectionName(),
+                        context,
+                        (stub, callback) -> stub.describe_collectionCallback(describeCollectionRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("DescribeCollectionRequest RPC failed!", e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getStatus().getErrorCode() == ErrorCode.Success) {
+                        logDebug("DescribeCollectionRequest successfully!");
+                        if (schemaCache != null) {
+                            schemaCache.putSchema(requestParam.getCollectionName(), response);
+                        }
+                        return R.success(response);
+                    } else {
+                        return failedStatus("DescribeCollectionRequest", response.getStatus());
+                    }
+                });
     }
 
     @Override
     public R<RpcStatus> createIndex(@NonNull CreateIndexParam requestParam) {
-        logInfo(requestParam.toString());
+        return await(createIndexAsync(requestParam));
+    }
 
-        try {
-            // get collection schema to check input
-            DescribeCollectionParam.Builder descBuilder = DescribeCollectionParam.newBuilder()
-                    .withCollectionName(requestParam.getCollectionName());
-            R<DescribeCollectionResponse> descResp = describeCollection(descBuilder.build());
+    @Override
+    public CompletableFuture<R<RpcStatus>> createIndexAsync(@NonNull CreateIndexParam requestParam) {
+        return createIndexAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
 
-            if (descResp.getStatus() != R.Status.Success.getCode()) {
-                logError("Failed to describe collection: {}", requestParam.getCollectionName());
-                return R.failed(R.Status.valueOf(descResp.getStatus()), descResp.getMessage());
+    protected CompletableFuture<R<RpcStatus>> createIndexAsync(@NonNull CreateIndexParam requestParam,
+                                                               CallContext context) {
+        logInfo(requestParam.toString());
+        return createIndexAsync(requestParam, context, false);
+    }
+
+    private CompletableFuture<R<RpcStatus>> createIndexAsync(CreateIndexParam requestParam, CallContext context,
+                                                             boolean refreshSchema) {
+        // get collection schema to check input
+        return getFieldTypesAsync(requestParam.getCollectionName(), context, refreshSchema).thenCompose(schema -> {
+            if (schema.getStatus() != R.Status.Success.getCode()) {
+                return CompletableFuture.completedFuture(
+                        R.failed(R.Status.valueOf(schema.getStatus()), schema.getMessage()));
             }
 
-            DescCollResponseWrapper wrapper = new DescCollResponseWrapper(descResp.getData());
-            List<FieldType> fields = wrapper.getFields();
-            // check field existence and index_type/field_type must be matched
-            boolean fieldExists = false;
-            boolean validType = false;
-            for (FieldType field : fields) {
-                if (requestParam.getFieldName().equals(field.getName())) {
-                    fieldExists = true;
-                    if (ParamUtils.VerifyIndexType(requestParam.getIndexType(), field.getDataType())) {
-                        validType = true;
+            CreateIndexRequest createIndexRequest;
+            try {
+                List<FieldType> fields = schema.getData().getFields();
+                // check field existence and index_type/field_type must be matched
+                boolean fieldExists = false;
+                boolean validType = false;
+                for (FieldType field : fields) {
+                    if (requestParam.getFieldName().equals(field.getName())) {
+                        fieldExists = true;
+                        if (ParamUtils.VerifyIndexType(requestParam.getIndexType(), field.getDataType())) {
+                            validType = true;
+                        }
+                        break;
                     }
-                    break;
                 }
-            }
-
-            if (!fieldExists) {
-                String msg = String.format("Field '%s' doesn't exist in the collection", requestParam.getFieldName());
-                logError("CreateIndexRequest failed! {}\n", msg);
-                return R.failed(R.Status.IllegalArgument, msg);
-            }
-            if (!validType) {
-                String msg = String.format("Index type '%s' doesn't match with data type of field '%s'",
-                        requestParam.getIndexType().name(), requestParam.getFieldName());
-                logError("CreateIndexRequest failed! {}\n", msg);
-                return R.failed(R.Status.IllegalArgument, msg);
-            }
 
-            // prepare index parameters
-            CreateIndexRequest.Builder createIndexRequestBuilder = CreateIndexRequest.newBuilder();
-            List<KeyValuePair> extraParamList = ParamUtils.AssembleKvPair(requestParam.getExtraParam());
-            if (CollectionUtils.isNotEmpty(extraParamList)) {
-                extraParamList.forEach(createIndexRequestBuilder::addExtraParams);
-            }
+                if ((!fieldExists || !validType) && schema.getData().isCached()) {
+                    // the cached schema might be stale, check again with the latest one
+                    return createIndexAsync(requestParam, context, true);
+                }
+                if (!fieldExists) {
+                    String msg = String.format("Field '%s' doesn't exist in the collection", requestParam.getFieldName());
+                    logError("CreateIndexRequest failed! {}\n", msg);
+                    return CompletableFuture.completedFuture(R.failed(R.Status.IllegalArgument, msg));
+                }
+                if (!validType) {
+                    String msg = String.format("Index type '%s' doesn't match with data type of field '%s'",
+                            requestParam.getIndexType().name(), requestParam.getFieldName());
+                    logError("CreateIndexRequest failed! {}\n", msg);
+                    return CompletableFuture.completedFuture(R.failed(R.Status.IllegalArgument, msg));
+                }
 
-            CreateIndexRequest.Builder builder = createIndexRequestBuilder
-                    .setCollectionName(requestParam.getCollectionName())
-                    .setFieldName(requestParam.getFieldName())
-                    .setIndexName(requestParam.getIndexName());
-            CreateIndexRequest createIndexRequest = builder.build();
+                // prepare index parameters
+                CreateIndexRequest.Builder createIndexRequestBuilder = CreateIndexRequest.newBuilder();
+                List<KeyValuePair> extraParamList = ParamUtils.AssembleKvPair(requestParam.getExtraParam());
+                if (CollectionUtils.isNotEmpty(extraParamList)) {
+                    extraParamList.forEach(createIndexRequestBuilder::addExtraParams);
+                }
 
-            Status response = vectorSearchBrpc().create_index(createIndexRequest);
-            if (response.getErrorCode() != ErrorCode.Success) {
-                return failedStatus("CreateIndexRequest", response);
+                createIndexRequest = createIndexRequestBuilder
+                        .setCollectionName(requestParam.getCollectionName())
+                        .setFieldName(requestParam.getFieldName())
+                        .setIndexName(requestParam.getIndexName())
+                        .build();
+            } catch (Exception e) {
+                logError("CreateIndexRequest failed! Collection name:{} ，Field name:{}",
+                        requestParam.getCollectionName(), requestParam.getFieldName(), e);
+                return CompletableFuture.completedFuture(R.failed(e));
             }
 
-            logDebug("CreateIndexRequest successfully! Collection name:{}， Field name:{}",
-                    requestParam.getCollectionName(), requestParam.getFieldName());
-            return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
-        } catch (RpcExecutionException e) {
-            logError("CreateIndexRequest RPC failed! Collection name:{}， Field name:{}",
-                    requestParam.getCollectionName(), requestParam.getFieldName(), e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("CreateIndexRequest failed! Collection name:{} ，Field name:{}",
-                    requestParam.getCollectionName(), requestParam.getFieldName(), e);
-            return R.failed(e);
-        }
+            return this.<Status>invokeAsync(OperationType.DDL, requestParam.getCollectionName(), context,
+                            (stub, callback) -> stub.create_indexCallback(createIndexRequest, callback))
+                    .handle((response, e) -> {
+                        if (e != null) {
+                            logError("CreateIndexRequest RPC failed! Collection name:{}， Field name:{}",
+                                    requestParam.getCollectionName(), requestParam.getFieldName(), e);
+                            return R.failed(unwrap(e));
+                        }
+                        if (response.getErrorCode() != ErrorCode.Success) {
+                            invalidateSchemaOnError(requestParam.getCollectionName(), response.getErrorCode());
+                            return failedStatus("CreateIndexRequest", response);
+                        }
+
+                        logDebug("CreateIndexRequest successfully! Collection name:{}， Field name:{}",
+                                requestParam.getCollectionName(), requestParam.getFieldName());
+                        return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
+                    });
+        });
     }
 
     @Override
     public R<RpcStatus> dropIndex(@NonNull DropIndexParam requestParam) {
-        logInfo(requestParam.toString());
+        return await(dropIndexAsync(requestParam));
+    }
 
-        try {
-            DropIndexRequest dropIndexRequest = DropIndexRequest.newBuilder()
-                    .setCollectionName(requestParam.getCollectionName())
-                    .setFieldName(requestParam.getFieldName())
-                    .setIndexName(requestParam.getIndexName())
-                    .build();
+    @Override
+    public CompletableFuture<R<RpcStatus>> dropIndexAsync(@NonNull DropIndexParam requestParam) {
+        return dropIndexAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), null));
+    }
 
-            Status response = vectorSearchBrpc().drop_index(dropIndexRequest);
+    protected CompletableFuture<R<RpcStatus>> dropIndexAsync(@NonNull DropIndexParam requestParam,
+                                                             CallContext context) {
+        logInfo(requestParam.toString());
 
-            if (response.getErrorCode() == ErrorCode.Success) {
-                logDebug("DropIndexRequest successfully! Collection name:{}",
-                        requestParam.getCollectionName());
-                return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
-            } else {
-                return failedStatus("DropIndexRequest", response);
-            }
-        } catch (RpcExecutionException e) {
-            logError("DropIndexRequest RPC failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("DropIndexRequest failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        }
+        DropIndexRequest dropIndexRequest = DropIndexRequest.newBuilder()
+                .setCollectionName(requestParam.getCollectionName())
+                .setFieldName(requestParam.getFieldName())
+                .setIndexName(requestParam.getIndexName())
+                .build();
+
+        return this.<Status>invokeAsync(OperationType.DDL, requestParam.getCollectionName(), context,
+                        (stub, callback) -> stub.drop_indexCallback(dropIndexRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("DropIndexRequest RPC failed! Collection name:{}",
+                                requestParam.getCollectionName(), e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getErrorCode() == ErrorCode.Success) {
+                        logDebug("DropIndexRequest successfully! Collection name:{}",
+                                requestParam.getCollectionName());
+                        return R.success(new RpcStatus(RpcStatus.SUCCESS_MSG));
+                    } else {
+                        return failedStatus("DropIndexRequest", response);
+                    }
+                });
     }
 
     @Override
     public R<InsertResponse> insert(@NonNull InsertParam requestParam) {
+        return await(insertAsync(requestParam));
+    }
+
+    @Override
+    public CompletableFuture<R<InsertResponse>> insertAsync(@NonNull InsertParam requestParam) {
+        return insertAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.WRITE, requestParam.getTimeoutNanos()), null));
+    }
+
+    protected CompletableFuture<R<InsertResponse>> insertAsync(@NonNull InsertParam requestParam, CallContext context) {
         logInfo(requestParam.toString());
+        if (writeBufferLimiter == null) {
+            return insertAsync(requestParam, context, null, false);
+        }
+        // the bytes are reserved before the request is built, and given back when the insert is done
+        CompletableFuture<WriteBufferLimiter.Permit> reservation = context.bind(writeBufferLimiter.acquire(
+                PayloadSizes.estimate(requestParam), context.getDeadlineNanos()));
+        return reservation.thenCompose(permit -> insertAsync(requestParam, context, permit, false)
+                        .whenComplete((r, e) -> permit.release()))
+                .exceptionally(e -> R.failed(unwrap(e)));
+    }
 
-        try {
-            DescribeCollectionParam.Builder builder = DescribeCollectionParam.newBuilder()
-                    .withCollectionName(requestParam.getCollectionName());
-            R<DescribeCollectionResponse> descResp = describeCollection(builder.build());
+    private CompletableFuture<R<InsertResponse>> insertAsync(InsertParam requestParam, CallContext context,
+                                                             WriteBufferLimiter.Permit permit,
+                                                             boolean refreshSchema) {
+        return getFieldTypesAsync(requestParam.getCollectionName(), context, refreshSchema).thenCompose(schema -> {
+            if (schema.getStatus() != R.Status.Success.getCode()) {
+                return CompletableFuture.completedFuture(
+                        R.failed(R.Status.valueOf(schema.getStatus()), schema.getMessage()));
+            }
 
-            if (descResp.getStatus() != R.Status.Success.getCode()) {
-                logError("Failed to describe collection: {}", requestParam.getCollectionName());
-                return R.failed(R.Status.valueOf(descResp.getStatus()), descResp.getMessage());
+            InsertRequest insertRequest;
+            try {
+                ParamUtils.InsertBuilderWrapper builderWraper =
+                        new ParamUtils.InsertBuilderWrapper(requestParam, schema.getData().getFields());
+                insertRequest = builderWraper.buildInsertRequest();
+                if (permit != null) {
+                    permit.resize(insertRequest.getSerializedSize());
+                }
+            } catch (ParamException e) {
+                if (schema.getData().isCached()) {
+                    // the cached schema might be stale, check again with the latest one
+                    return insertAsync(requestParam, context, permit, true);
+                }
+                logError("InsertRequest failed! Collection name:{}",
+                        requestParam.getCollectionName(), e);
+                return CompletableFuture.completedFuture(R.failed(e));
+            } catch (Exception e) {
+                logError("InsertRequest failed! Collection name:{}",
+                        requestParam.getCollectionName(), e);
+                return CompletableFuture.completedFuture(R.failed(e));
             }
 
-            DescCollResponseWrapper wrapper = new DescCollResponseWrapper(descResp.getData());
-            ParamUtils.InsertBuilderWrapper builderWraper = new ParamUtils.InsertBuilderWrapper(requestParam, wrapper);
-            InsertResponse response = vectorSearchBrpc().insert_entity(builderWraper.buildInsertRequest());
+            return this.<InsertResponse>invokeAsync(OperationType.WRITE, requestParam.getCollectionName(), context,
+                            (stub, callback) -> stub.insert_entityCallback(insertRequest, callback))
+                    .thenCompose(response -> {
+                        ErrorCode errorCode = response.getStatus().getErrorCode();
+                        if (errorCode == ErrorCode.IllegalDimension && schema.getData().isCached()) {
+                            // the dimension of the collection has changed since the schema was cached
+                            invalidateSchema(requestParam.getCollectionName());
+                            return insertAsync(requestParam, context, permit, true);
+                        }
+                        return CompletableFuture.completedFuture(insertResult(requestParam, response, null));
+                    })
+                    .exceptionally(e -> insertResult(requestParam, null, e));
+        });
+    }
 
-            if (response.getStatus().getErrorCode() == ErrorCode.Success) {
-                logDebug("InsertRequest successfully! Collection name:{}",
-                        requestParam.getCollectionName());
-                return R.success(response);
-            } else {
-                return failedStatus("InsertRequest", response.getStatus());
-            }
-        } catch (RpcExecutionException e) {
+    private R<InsertResponse> insertResult(InsertParam requestParam, InsertResponse response, Throwable throwable) {
+        if (throwable != null) {
             logError("InsertRequest RPC failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        } catch (Exception e) {
-            logError("InsertRequest failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
+                    requestParam.getCollectionName(), throwable);
+            return R.failed(unwrap(throwable));
+        }
+        if (response.getStatus().getErrorCode() == ErrorCode.Success) {
+            logDebug("InsertRequest successfully! Collection name:{}",
+                    requestParam.getCollectionName());
+            return R.success(response);
+        } else {
+            invalidateSchemaOnError(requestParam.getCollectionName(), response.getStatus().getErrorCode());
+            return failedStatus("InsertRequest", response.getStatus());
         }
     }
 
     @Override
     public R<SearchResponse> search(@NonNull SearchParam requestParam) {
-        logInfo(requestParam.toString());
+        return await(searchAsync(requestParam));
+    }
+
+    @Override
+    public CompletableFuture<R<SearchResponse>> searchAsync(@NonNull SearchParam requestParam) {
+        return searchAsync(requestParam, new CallContext(
+                deadlineOf(OperationType.SEARCH, requestParam.getTimeoutNanos()), null));
+    }
 
+    protected CompletableFuture<R<SearchResponse>> searchAsync(@NonNull SearchParam requestParam, CallContext context) {
+        SearchRequest searchRequest;
         try {
-            SearchRequest searchRequest = ParamUtils.convertSearchParam(requestParam);
-            SearchResponse response = vectorSearchBrpc().search_entity(searchRequest);
-
-            if (response.getStatus().getErrorCode() == ErrorCode.Success) {
-                logDebug("SearchRequest successfully!");
-                return R.success(response);
-            } else {
-                return failedStatus("SearchRequest", response.getStatus());
-            }
-        } catch (RpcExecutionException e) {
-            logError("SearchRequest RPC failed! Collection name:{}",
-                    requestParam.getCollectionName(), e);
-            return R.failed(e);
-        } catch (ParamException e) {
+            searchRequest = ParamUtils.convertSearchParam(requestParam);
+        } catch (Exception e) {
+            logInfo(requestParam.toString());
             logError("SearchRequest failed! Collection name:{}",
                     requestParam.getCollectionName(), e);
-            return R.failed(e);
+            return CompletableFuture.completedFuture(R.failed(e));
+        }
+        return searchAsync(requestParam, searchRequest, context);
+    }
+
+    /**
+     * Sends a search whose request is converted already, such as a prepared search.
+     */
+    protected CompletableFuture<R<SearchResponse>> searchAsync(@NonNull SearchParam requestParam,
+                                                               @NonNull SearchRequest searchRequest,
+                                                               CallContext context) {
+        logInfo(requestParam.toString());
+
+        if (searchSingleFlight != null) {
+            // no single caller can cancel the shared request, each caller gives up on its own
+            return context.bind(searchSingleFlight.execute(searchRequest, context.getDeadlineNanos(),
+                    shared -> invokeSearch(requestParam, searchRequest, shared)));
+        }
+        return invokeSearch(requestParam, searchRequest, context);
+    }
+
+    private CompletableFuture<R<SearchResponse>> invokeSearch(SearchParam requestParam, SearchRequest searchRequest,
+                                                              CallContext context) {
+        return this.<SearchResponse>invokeAsync(OperationType.SEARCH, requestParam.getCollectionName(), context,
+                        (stub, callback) -> stub.search_entityCallback(searchRequest, callback))
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logError("SearchRequest RPC failed! Collection name:{}",
+                                requestParam.getCollectionName(), e);
+                        return R.failed(unwrap(e));
+                    }
+                    if (response.getStatus().getErrorCode() == ErrorCode.Success) {
+                        logDebug("SearchRequest successfully!");
+                        return R.success(response);
+                    } else {
+                        return failedStatus("SearchRequest", response.getStatus());
+                    }
+                });
+    }
+
+    /**
+     * Field schemas of a collection and whether they come from the schema cache.
+     */
+    private static final class CollectionFields {
+        private final List<FieldType> fields;
+        private final boolean cached;
+
+        private CollectionFields(List<FieldType> fields, boolean cached) {
+            this.fields = fields;
+            this.cached = cached;
+        }
+
+        private List<FieldType> getFields() {
+            return fields;
+        }
+
+        private boolean isCached() {
+            return cached;
+        }
+    }
+
+    /**
+     * Gets the field schemas of a collection, from the schema cache unless a refresh is required.
+     */
+    private CompletableFuture<R<CollectionFields>> getFieldTypesAsync(String collectionName, CallContext context,
+                                                                      boolean refresh) {
+        if (schemaCache != null && !refresh) {
+            List<FieldType> fields = schemaCache.getFields(collectionName);
+            if (fields != null) {
+                return CompletableFuture.completedFuture(R.success(new CollectionFields(fields, true)));
+            }
+        }
+
+        DescribeCollectionParam descParam = DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build();
+        return doDescribeCollectionAsync(descParam, context).thenApply(descResp -> {
+            if (descResp.getStatus() != R.Status.Success.getCode()) {
+                logError("Failed to describe collection: {}", collectionName);
+                return R.failed(R.Status.valueOf(descResp.getStatus()), descResp.getMessage());
+            }
+            // doDescribeCollectionAsync() has just refreshed the cache
+            List<FieldType> fields = schemaCache != null ? schemaCache.getFields(collectionName) : null;
+            if (fields == null) {
+                fields = new DescCollResponseWrapper(descResp.getData()).getFields();
+            }
+            return R.success(new CollectionFields(fields, false));
+        });
+    }
+
+    protected void invalidateSchema(String collectionName) {
+        if (schemaCache != null) {
+            schemaCache.invalidate(collectionName);
+        }
+    }
+
+    private void invalidateSchemaOnError(String collectionName, ErrorCode errorCode) {
+        if (errorCode == ErrorCode.CollectionNotExists || errorCode == ErrorCode.CollectionNameNotFound
+                || errorCode == ErrorCode.IllegalDimension) {
+            invalidateSchema(collectionName);
         }
     }
 
@@ -0,0 +1,112 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.rpc.callback.Callback;
+import io.github.liumy213.rpc.*;
+
+import java.util.function.Function;
+
+/**
+ * Adapts a synchronous {@link VectorSearchBrpc} stub to {@link VectorSearchBrpcAsync}, each
+ * <code>xxxCallback</code> method sends the request on the calling thread and invokes the callback
+ * with its result.
+ */
+class BlockingBrpcStub implements VectorSearchBrpcAsync {
+    private final VectorSearchBrpc stub;
+
+    BlockingBrpcStub(VectorSearchBrpc stub) {
+        this.stub = stub;
+    }
+
+    private static <Q, T> void call(Function<Q, T> method, Q request, Callback<T> callback) {
+        T response;
+        try {
+            response = method.apply(request);
+        } catch (Throwable e) {
+            callback.onError(e);
+            return;
+        }
+        callback.onResponse(response);
+    }
+
+    @Override
+    public HasCollectionResponse has_collection(HasCollectionRequest hasCollectionRequest) {
+        return stub.has_collection(hasCollectionRequest);
+    }
+
+    @Override
+    public Status create_collection(CreateCollectionRequest createCollectionRequest) {
+        return stub.create_collection(createCollectionRequest);
+    }
+
+    @Override
+    public Status drop_collection(DropCollectionRequest dropCollectionRequest) {
+        return stub.drop_collection(dropCollectionRequest);
+    }
+
+    @Override
+    public DescribeCollectionResponse describe_collection(DescribeCollectionRequest describeCollectionRequest) {
+        return stub.describe_collection(describeCollectionRequest);
+    }
+
+    @Override
+    public Status create_index(CreateIndexRequest createIndexRequest) {
+        return stub.create_index(createIndexRequest);
+    }
+
+    @Override
+    public Status drop_index(DropIndexRequest dropIndexRequest) {
+        return stub.drop_index(dropIndexRequest);
+    }
+
+    @Override
+    public InsertResponse insert_entity(InsertRequest insertRequest) {
+        return stub.insert_entity(insertRequest);
+    }
+
+    @Override
+    public SearchResponse search_entity(SearchRequest searchRequest) {
+        return stub.search_entity(searchRequest);
+    }
+
+    @Override
+    public void has_collectionCallback(HasCollectionRequest hasCollectionRequest,
+                                       Callback<HasCollectionResponse> callback) {
+        call(stub::has_collection, hasCollectionRequest, callback);
+    }
+
+    @Override
+    public void create_collectionCallback(CreateCollectionRequest createCollectionRequest, Callback<Status> callback) {
+        call(stub::create_collection, createCollectionRequest, callback);
+    }
+
+    @Override
+    public void drop_collectionCallback(DropCollectionRequest dropCollectionRequest, Callback<Status> callback) {
+        call(stub::drop_collection, dropCollectionRequest, callback);
+    }
+
+    @Override
+    public void describe_collectionCallback(DescribeCollectionRequest describeCollectionRequest,
+                                            Callback<DescribeCollectionResponse> callback) {
+        call(stub::describe_collection, describeCollectionRequest, callback);
+    }
+
+    @Override
+    public void create_indexCallback(CreateIndexRequest createIndexRequest, Callback<Status> callback) {
+        call(stub::create_index, createIndexRequest, callback);
+    }
+
+    @Override
+    public void drop_indexCallback(DropIndexRequest dropIndexRequest, Callback<Status> callback) {
+        call(stub::drop_index, dropIndexRequest, callback);
+    }
+
+    @Override
+    public void insert_entityCallback(InsertRequest insertRequest, Callback<InsertResponse> callback) {
+        call(stub::insert_entity, insertRequest, callback);
+    }
+
+    @Override
+    public void search_entityCallback(SearchRequest searchRequest, Callback<SearchResponse> callback) {
+        call(stub::search_entity, searchRequest, callback);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import com.baidu.cloud.starlight.api.rpc.RpcContext;
+import com.baidu.cloud.starlight.api.rpc.StarlightClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One starlight client, which owns its own connection to the server, and the stub bound to it.
+ * Tracks the number of outstanding requests for least-outstanding-request selection.
+ */
+class BrpcChannel {
+    private final StarlightClient starlightClient;
+    private final VectorSearchBrpcAsync stub;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    BrpcChannel(StarlightClient starlightClient, VectorSearchBrpcAsync stub) {
+        this.starlightClient = starlightClient;
+        this.stub = stub;
+    }
+
+    /**
+     * Sends a request through the asynchronous stub of this channel.
+     * The returned future completes exceptionally if the request cannot be sent or the RPC fails.
+     */
+    <T> CompletableFuture<T> invoke(AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        return invoke(call, 0);
+    }
+
+    /**
+     * Sends a request with the time left before the deadline as its RPC timeout, starlight passes it on
+     * to the server as well. A request whose deadline has expired is not sent.
+     *
+     * @param deadlineNanos deadline based on <code>System.nanoTime()</code>, zero means the default timeout
+     */
+    <T> CompletableFuture<T> invoke(AbstractVectorSearchBrpcClient.BrpcCall<T> call, long deadlineNanos) {
+        CallbackFuture<T> future = new CallbackFuture<>();
+        int timeoutMs = 0;
+        if (deadlineNanos != 0) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                future.completeExceptionally(deadlineExceeded());
+                return future;
+            }
+            timeoutMs = (int) Math.min(Integer.MAX_VALUE, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        }
+
+        outstanding.incrementAndGet();
+        future.whenComplete((r, e) -> outstanding.decrementAndGet());
+        // starlight reads the timeout of a request from the context of the calling thread
+        RpcContext rpcContext = RpcContext.getContext();
+        Integer defaultTimeoutMs = rpcContext.getRequestTimeoutMills();
+        if (timeoutMs > 0) {
+            rpcContext.setRequestTimeoutMills(timeoutMs);
+        }
+        try {
+            call.invoke(stub, future);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        } finally {
+            if (timeoutMs > 0) {
+                rpcContext.setRequestTimeoutMills(defaultTimeoutMs);
+            }
+        }
+        return future;
+    }
+
+    static StarlightRpcException deadlineExceeded() {
+        return new StarlightRpcException(StarlightRpcException.TIME_OUT_EXCEPTION,
+                "Deadline exceeded before the request is sent");
+    }
+
+    VectorSearchBrpcAsync getStub() {
+        return stub;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    boolean isActive() {
+        return starlightClient.isActive();
+    }
+
+    void destroy() {
+        starlightClient.destroy();
+    }
+}
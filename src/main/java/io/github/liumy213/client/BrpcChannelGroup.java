@@ -0,0 +1,47 @@
+package io.github.liumy213.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A group of channels serving the same kind of traffic.
+ * Requests go to the active channel with the least outstanding requests, ties are broken round robin.
+ */
+class BrpcChannelGroup {
+    private final List<BrpcChannel> channels;
+    private final AtomicInteger next = new AtomicInteger();
+
+    BrpcChannelGroup(List<BrpcChannel> channels) {
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("Channel group cannot be empty");
+        }
+        this.channels = Collections.unmodifiableList(channels);
+    }
+
+    BrpcChannel select() {
+        int size = channels.size();
+        if (size == 1) {
+            return channels.get(0);
+        }
+
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        BrpcChannel best = null;
+        boolean bestActive = false;
+        for (int i = 0; i < size; ++i) {
+            BrpcChannel channel = channels.get((start + i) % size);
+            boolean active = channel.isActive();
+            // an active channel always wins over an inactive one
+            if (best == null || (active && !bestActive)
+                    || (active == bestActive && channel.getOutstanding() < best.getOutstanding())) {
+                best = channel;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    List<BrpcChannel> getChannels() {
+        return channels;
+    }
+}
@@ -1,17 +1,29 @@
 package io.github.liumy213.client;
 
-import com.baidu.cloud.starlight.api.rpc.StarlightClient;
 import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
 import com.baidu.cloud.starlight.api.rpc.config.TransportConfig;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
 import com.baidu.cloud.starlight.core.rpc.proxy.JDKProxyFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class BrpcClientConfig {
     public BrpcClientConfig() {}
     public BrpcClientConfig(String brpcHost, int brpcPort) {
+        this(brpcHost, brpcPort, 1, 0);
+    }
+
+    /**
+     * Opens a pool of channels to the server, each channel is a starlight client with its own connection.
+     *
+     * @param brpcHost server host
+     * @param brpcPort server port
+     * @param channelCount channels shared by search and DDL, and by writes if there is no write channel
+     * @param writeChannelCount channels dedicated to writes, zero means writes share the channels above
+     */
+    public BrpcClientConfig(String brpcHost, int brpcPort, int channelCount, int writeChannelCount) {
         config = new TransportConfig();
-        starlightClient = new SingleStarlightClient(brpcHost, brpcPort, config);
-        starlightClient.init();
 
         // 服务配置
         clientConfig = new ServiceConfig();
@@ -19,20 +31,52 @@ public class BrpcClientConfig {
         clientConfig.setServiceId("VectorSearchService");
 
         proxyFactory = new JDKProxyFactory();
+
+        defaultGroup = openGroup(brpcHost, brpcPort, channelCount);
+        writeGroup = writeChannelCount > 0 ? openGroup(brpcHost, brpcPort, writeChannelCount) : defaultGroup;
     }
 
-    private StarlightClient starlightClient;
     private TransportConfig config;
     private ServiceConfig clientConfig;
     private JDKProxyFactory proxyFactory;
+    private BrpcChannelGroup defaultGroup;
+    private BrpcChannelGroup writeGroup;
+
+    private BrpcChannelGroup openGroup(String brpcHost, int brpcPort, int channelCount) {
+        List<BrpcChannel> channels = new ArrayList<>(channelCount);
+        for (int i = 0; i < channelCount; ++i) {
+            SingleStarlightClient starlightClient = new SingleStarlightClient(brpcHost, brpcPort, config);
+            starlightClient.init();
+            // 生成异步代理, 同步方法同样可用
+            VectorSearchBrpcAsync stub = proxyFactory.getProxy(VectorSearchBrpcAsync.class, clientConfig, starlightClient);
+            channels.add(new BrpcChannel(starlightClient, stub));
+        }
+        return new BrpcChannelGroup(channels);
+    }
+
     public VectorSearchBrpc getVectorProto () {
-        // 生成代理
-        VectorSearchBrpc userService = proxyFactory.getProxy(VectorSearchBrpc.class, clientConfig, starlightClient);
-        return userService;
+        return getVectorAsyncProto();
+    }
+
+    public VectorSearchBrpcAsync getVectorAsyncProto() {
+        return defaultGroup.select().getStub();
+    }
+
+    /**
+     * Selects the channel with the least outstanding requests from the group serving the operation.
+     *
+     * @param operationType kind of the request
+     * @return {@link BrpcChannel}
+     */
+    BrpcChannel selectChannel(OperationType operationType) {
+        return operationType == OperationType.WRITE ? writeGroup.select() : defaultGroup.select();
     }
 
     public void releaseClient() {
-        starlightClient.destroy();
+        defaultGroup.getChannels().forEach(BrpcChannel::destroy);
+        if (writeGroup != defaultGroup) {
+            writeGroup.getChannels().forEach(BrpcChannel::destroy);
+        }
     }
 
 }
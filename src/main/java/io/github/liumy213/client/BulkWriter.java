@@ -0,0 +1,387 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.BulkWriteException;
+import io.github.liumy213.exception.IllegalResponseException;
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.dml.BulkWriterParam;
+import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.rpc.InsertResponse;
+import io.github.liumy213.rpc.LongArray;
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Buffers rows of one collection and inserts them in batches.
+ * Rows are appended to primitive column buffers, a batch is sent once it reaches the max row count or the max size,
+ * or when its first row has waited for the linger time. At most <code>maxInFlight</code> inserts are sent at the
+ * same time, full batches wait for one of them to finish. With <code>maxQueuedBatches</code>, adding rows blocks
+ * while that many full batches are waiting, so producers slow down to the pace of the server.
+ * Every row gets a future which is completed with the id assigned to the row, or with a {@link BulkWriteException}
+ * if the insert of its batch failed.
+ * The writer is thread-safe.
+ */
+public class BulkWriter implements AutoCloseable {
+    private final VectorSearchAsyncClient client;
+    private final BulkWriterParam param;
+    private final ScheduledExecutorService scheduler;
+    // called with the row count of every finished batch and the error, null on success
+    private final BiConsumer<Integer, Throwable> batchListener;
+
+    // guarded by this
+    private Batch current;
+    private final Deque<Batch> sealed = new ArrayDeque<>();
+    private final Set<Batch> unfinished = new LinkedHashSet<>();
+    private int inFlight;
+    private boolean closed;
+
+    BulkWriter(@NonNull VectorSearchAsyncClient client, @NonNull BulkWriterParam param,
+               @NonNull ScheduledExecutorService scheduler) {
+        this(client, param, scheduler, null);
+    }
+
+    BulkWriter(@NonNull VectorSearchAsyncClient client, @NonNull BulkWriterParam param,
+               @NonNull ScheduledExecutorService scheduler, BiConsumer<Integer, Throwable> batchListener) {
+        this.client = client;
+        this.param = param;
+        this.scheduler = scheduler;
+        this.batchListener = batchListener;
+    }
+
+    /**
+     * Adds a row. All rows of a batch must have the same fields, and the values of a field the same type:
+     * Long, Integer, Boolean, Float, Double, String, or a float vector as <code>float[]</code> or
+     * <code>List&lt;Float&gt;</code>.
+     *
+     * @param row values of the row by field name
+     * @return future of the id assigned to the row
+     */
+    public CompletableFuture<Long> add(@NonNull Map<String, ?> row) throws ParamException {
+        if (row.isEmpty()) {
+            throw new ParamException("Row cannot be empty");
+        }
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        boolean full;
+        synchronized (this) {
+            awaitCapacity();
+            checkOpen();
+            Batch batch = current != null ? current : new Batch(columnsOf(row));
+            batch.checkRow(row);
+            if (batch != current) {
+                start(batch);
+            }
+            for (Map.Entry<String, ColumnBuffer> column : batch.columns.entrySet()) {
+                column.getValue().append(row.get(column.getKey()));
+            }
+            batch.futures.add(future);
+            full = sealIfFull(batch);
+        }
+        if (full) {
+            dispatch();
+        }
+        return future;
+    }
+
+    /**
+     * Adds a chunk of rows in columns. The chunk can be split over several batches.
+     *
+     * @param fields column data of the rows, with the same row count
+     * @return futures of the ids assigned to the rows, in row order
+     */
+    public List<CompletableFuture<Long>> addColumns(@NonNull List<InsertParam.Field> fields) throws ParamException {
+        if (fields.isEmpty()) {
+            throw new ParamException("Fields cannot be empty");
+        }
+        int rowCount = -1;
+        Map<String, List<?>> columns = new LinkedHashMap<>();
+        for (InsertParam.Field field : fields) {
+            if (field == null || field.getValues() == null || field.getValues().isEmpty()) {
+                throw new ParamException("Field value cannot be empty");
+            }
+            if (rowCount >= 0 && field.getValues().size() != rowCount) {
+                throw new ParamException("Row count of fields must be equal");
+            }
+            rowCount = field.getValues().size();
+            columns.put(field.getName(), field.getValues());
+        }
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>(rowCount);
+        boolean full = false;
+        synchronized (this) {
+            awaitCapacity();
+            checkOpen();
+            long rowBytes = checkColumns(columns, rowCount);
+            int offset = 0;
+            while (offset < rowCount) {
+                Batch batch = current;
+                if (batch == null) {
+                    Map<String, Object> first = new LinkedHashMap<>();
+                    columns.forEach((name, values) -> first.put(name, values.get(0)));
+                    batch = new Batch(columnsOf(first));
+                    start(batch);
+                }
+                long bytesLeft = Math.max(param.getMaxBatchBytes() - batch.bytes(), 0);
+                int take = Math.min(rowCount - offset, param.getMaxBatchRows() - batch.rows());
+                take = (int) Math.max(Math.min(take, bytesLeft / Math.max(rowBytes, 1)), 1);
+                for (Map.Entry<String, ColumnBuffer> column : batch.columns.entrySet()) {
+                    column.getValue().appendAll(columns.get(column.getKey()), offset, offset + take);
+                }
+                for (int i = 0; i < take; ++i) {
+                    CompletableFuture<Long> future = new CompletableFuture<>();
+                    batch.futures.add(future);
+                    futures.add(future);
+                }
+                offset += take;
+                full |= sealIfFull(batch);
+            }
+        }
+        if (full) {
+            dispatch();
+        }
+        return futures;
+    }
+
+    /**
+     * Sends the buffered rows without waiting for the linger time.
+     *
+     * @return future completed when all rows added before are inserted or failed
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<?>[] pending;
+        synchronized (this) {
+            if (current != null) {
+                seal();
+            }
+            pending = unfinished.stream().map(batch -> batch.done).toArray(CompletableFuture[]::new);
+        }
+        dispatch();
+        return CompletableFuture.allOf(pending);
+    }
+
+    /**
+     * Count of rows which are added but not inserted yet.
+     *
+     * @return pending rows
+     */
+    public synchronized int getPendingRows() {
+        return unfinished.stream().mapToInt(Batch::rows).sum() + (current != null ? current.rows() : 0);
+    }
+
+    /**
+     * Flushes the buffered rows and waits until they are inserted. Rows cannot be added afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        flush().join();
+    }
+
+    // waits while the queue of full batches is full, the chunk of addColumns() is not checked so it can overshoot
+    private void awaitCapacity() {
+        while (!closed && param.getMaxQueuedBatches() > 0 && sealed.size() >= param.getMaxQueuedBatches()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Bulk writer is closed");
+        }
+    }
+
+    private static Map<String, ColumnBuffer> columnsOf(Map<String, ?> firstRow) {
+        Map<String, ColumnBuffer> columns = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : firstRow.entrySet()) {
+            columns.put(entry.getKey(), ColumnBuffer.of(entry.getKey(), entry.getValue()));
+        }
+        return columns;
+    }
+
+    private void start(Batch batch) {
+        current = batch;
+        if (param.getLingerNanos() > 0) {
+            batch.timer = scheduler.schedule(() -> linger(batch), param.getLingerNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // checks the chunk against the current batch, or against new buffers, returns the average size of a row
+    private long checkColumns(Map<String, List<?>> columns, int rowCount) {
+        if (current != null && !current.columns.keySet().equals(columns.keySet())) {
+            throw new ParamException("Fields " + columns.keySet() + " don't match the fields of the batch "
+                    + current.columns.keySet());
+        }
+        long bytes = 0;
+        for (Map.Entry<String, List<?>> column : columns.entrySet()) {
+            List<?> values = column.getValue();
+            ColumnBuffer buffer = current != null
+                    ? current.columns.get(column.getKey()) : ColumnBuffer.of(column.getKey(), values.get(0));
+            if (!buffer.acceptsAll(values)) {
+                throw new ParamException("Values of field '" + column.getKey() + "' have different types");
+            }
+            bytes += buffer.bytesOf(values.get(0)) * rowCount;
+        }
+        return bytes / rowCount;
+    }
+
+    private boolean sealIfFull(Batch batch) {
+        if (param.getLingerNanos() > 0 && batch.rows() < param.getMaxBatchRows()
+                && batch.bytes() < param.getMaxBatchBytes()) {
+            return false;
+        }
+        seal();
+        return true;
+    }
+
+    private void seal() {
+        Batch batch = current;
+        current = null;
+        if (batch.timer != null) {
+            batch.timer.cancel(false);
+        }
+        sealed.add(batch);
+        unfinished.add(batch);
+    }
+
+    private void linger(Batch batch) {
+        synchronized (this) {
+            if (current != batch) {
+                return;
+            }
+            seal();
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<Batch> ready = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < param.getMaxInFlight() && !sealed.isEmpty()) {
+                inFlight++;
+                ready.add(sealed.poll());
+            }
+            if (!ready.isEmpty()) {
+                notifyAll();
+            }
+        }
+        ready.forEach(this::send);
+    }
+
+    private void send(Batch batch) {
+        CompletableFuture<R<InsertResponse>> response;
+        try {
+            List<InsertParam.Field> fields = new ArrayList<>(batch.columns.size());
+            batch.columns.forEach((name, buffer) -> fields.add(buffer.toField(name)));
+            InsertParam insertParam = InsertParam.newBuilder()
+                    .withCollectionName(param.getCollectionName())
+                    .withPartitionName(param.getPartitionName())
+                    .withFields(fields)
+                    .withTimeout(param.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                    .build();
+            response = client.insertAsync(insertParam);
+        } catch (Exception e) {
+            response = CompletableFuture.completedFuture(R.failed(e));
+        }
+        response.whenComplete((r, e) -> {
+            synchronized (this) {
+                inFlight--;
+                unfinished.remove(batch);
+            }
+            Throwable error = batch.complete(e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r);
+            try {
+                if (batchListener != null) {
+                    batchListener.accept(batch.rows(), error);
+                }
+            } finally {
+                batch.done.complete(null);
+                dispatch();
+            }
+        });
+    }
+
+    private static final class Batch {
+        private final Map<String, ColumnBuffer> columns;
+        private final List<CompletableFuture<Long>> futures = new ArrayList<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private ScheduledFuture<?> timer;
+
+        Batch(Map<String, ColumnBuffer> columns) {
+            this.columns = columns;
+        }
+
+        int rows() {
+            return futures.size();
+        }
+
+        long bytes() {
+            long bytes = 0;
+            for (ColumnBuffer buffer : columns.values()) {
+                bytes += buffer.bytes();
+            }
+            return bytes;
+        }
+
+        void checkRow(Map<String, ?> row) {
+            if (!columns.keySet().equals(row.keySet())) {
+                throw new ParamException("Fields " + row.keySet() + " don't match the fields of the batch "
+                        + columns.keySet());
+            }
+            for (Map.Entry<String, ColumnBuffer> column : columns.entrySet()) {
+                if (!column.getValue().accepts(row.get(column.getKey()))) {
+                    throw new ParamException("Value of field '" + column.getKey()
+                            + "' has a different type from the other rows of the batch");
+                }
+            }
+        }
+
+        // completes the futures of the rows, returns the error of the batch or null
+        Throwable complete(R<InsertResponse> response) {
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                Exception cause = response.getException();
+                BulkWriteException e = new BulkWriteException(
+                        cause != null ? cause.getMessage() : "Insert failed", response.getStatus());
+                if (cause != null) {
+                    e.initCause(cause);
+                }
+                futures.forEach(future -> future.completeExceptionally(e));
+                return e;
+            }
+
+            LongArray ids = response.getData().getIDs();
+            if (ids.getDataCount() == 0) {
+                // the ids are given by the rows, nothing is assigned
+                futures.forEach(future -> future.complete(null));
+            } else if (ids.getDataCount() != futures.size()) {
+                IllegalResponseException e = new IllegalResponseException("Insert returned "
+                        + ids.getDataCount() + " ids for " + futures.size() + " rows");
+                futures.forEach(future -> future.completeExceptionally(e));
+                return e;
+            } else {
+                for (int i = 0; i < futures.size(); ++i) {
+                    futures.get(i).complete(ids.getData(i));
+                }
+            }
+            return null;
+        }
+    }
+}
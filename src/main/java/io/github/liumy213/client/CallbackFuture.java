@@ -0,0 +1,20 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.rpc.callback.Callback;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link CompletableFuture} which is handed to starlight as the callback of an asynchronous brpc call.
+ */
+class CallbackFuture<T> extends CompletableFuture<T> implements Callback<T> {
+    @Override
+    public void onResponse(T response) {
+        complete(response);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completeExceptionally(throwable);
+    }
+}
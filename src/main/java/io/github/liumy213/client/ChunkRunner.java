@@ -0,0 +1,206 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.R;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs one request as consecutive chunks of its rows or queries, with a bounded number of chunks in flight.
+ * The chunks are sliced and sent on the executor, and their responses are merged in order once every chunk succeeded.
+ * After the first failed chunk no further chunk is sent, the chunks in flight are then either cancelled, or awaited
+ * so that the chunks confirmed by the server are known exactly. Cancelling the result cancels the chunks in flight.
+ */
+abstract class ChunkRunner<T> {
+    private final int size;
+    private final int concurrency;
+    private final boolean awaitOnFailure;
+    private final Executor executor;
+    private final CompletableFuture<R<T>> result = new CompletableFuture<>();
+
+    // guarded by this
+    private final List<Chunk<T>> chunks = new ArrayList<>();
+    private final List<Chunk<T>> inFlight = new ArrayList<>();
+    // the first failed chunk, null while every chunk succeeded
+    private R<T> failure;
+    private int next;
+
+    /**
+     * @param size number of rows or queries of the request
+     * @param awaitOnFailure true to wait for the chunks in flight after a failure instead of cancelling them
+     */
+    ChunkRunner(int size, int concurrency, boolean awaitOnFailure, Executor executor) {
+        this.size = size;
+        this.concurrency = concurrency;
+        this.awaitOnFailure = awaitOnFailure;
+        this.executor = executor;
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                cancelInFlight();
+            }
+        });
+    }
+
+    CompletableFuture<R<T>> run() {
+        dispatch();
+        return result;
+    }
+
+    /**
+     * Returns the number of rows or queries of the next chunk.
+     */
+    protected abstract int nextChunkSize();
+
+    /**
+     * Sends rows or queries <code>[from, to)</code> of the request.
+     */
+    protected abstract CompletableFuture<R<T>> send(int from, int to);
+
+    /**
+     * Merges the responses of all chunks, in order.
+     */
+    protected abstract T merge(List<T> responses);
+
+    /**
+     * Returns the result of a failed request, the first failure by default.
+     *
+     * @param succeeded the chunks confirmed by the server, in order
+     */
+    protected R<T> failed(R<T> failure, List<Chunk<T>> succeeded) {
+        return failure;
+    }
+
+    private void dispatch() {
+        List<Chunk<T>> ready = new ArrayList<>();
+        synchronized (this) {
+            while (!isStopped() && inFlight.size() < concurrency && next < size) {
+                int count = Math.min(Math.max(nextChunkSize(), 1), size - next);
+                Chunk<T> chunk = new Chunk<>(next, next + count);
+                chunks.add(chunk);
+                inFlight.add(chunk);
+                ready.add(chunk);
+                next += count;
+            }
+        }
+        ready.forEach(this::send);
+    }
+
+    private void send(Chunk<T> chunk) {
+        CompletableFuture.supplyAsync(() -> {
+            // a chunk which is not sent yet is known not to have reached the server
+            if (isStopped()) {
+                return CompletableFuture.<R<T>>completedFuture(R.failed(R.Status.Unknown, "Request is stopped"));
+            }
+            CompletableFuture<R<T>> request = send(chunk.from, chunk.to);
+            chunk.request = request;
+            if (result.isCancelled()) {
+                request.cancel(false);
+            }
+            return request;
+        }, executor).thenCompose(request -> request).whenComplete((r, e) ->
+                onChunkDone(chunk, e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r));
+    }
+
+    private synchronized boolean isStopped() {
+        return result.isDone() || failure != null;
+    }
+
+    private void onChunkDone(Chunk<T> chunk, R<T> response) {
+        boolean settled;
+        boolean failedNow = false;
+        synchronized (this) {
+            inFlight.remove(chunk);
+            if (response.getStatus() == R.Status.Success.getCode()) {
+                chunk.response = response.getData();
+            } else if (failure == null) {
+                failure = response;
+                failedNow = true;
+            }
+            settled = inFlight.isEmpty() && (failure != null || next == size);
+        }
+        if (failedNow && !awaitOnFailure) {
+            if (result.complete(failure(response))) {
+                cancelInFlight();
+            }
+        } else if (!settled) {
+            dispatch();
+        } else {
+            complete();
+        }
+    }
+
+    private void complete() {
+        R<T> failed;
+        List<T> responses = new ArrayList<>();
+        synchronized (this) {
+            failed = failure;
+            if (failed == null) {
+                chunks.forEach(chunk -> responses.add(chunk.response));
+            }
+        }
+        if (failed != null) {
+            result.complete(failure(failed));
+            return;
+        }
+        try {
+            result.complete(R.success(merge(responses)));
+        } catch (Exception e) {
+            result.complete(R.failed(e));
+        }
+    }
+
+    private R<T> failure(R<T> failed) {
+        List<Chunk<T>> succeeded = new ArrayList<>();
+        synchronized (this) {
+            for (Chunk<T> chunk : chunks) {
+                if (chunk.response != null) {
+                    succeeded.add(chunk);
+                }
+            }
+        }
+        return failed(failed, succeeded);
+    }
+
+    private void cancelInFlight() {
+        List<Chunk<T>> cancelled;
+        synchronized (this) {
+            cancelled = new ArrayList<>(inFlight);
+        }
+        for (Chunk<T> chunk : cancelled) {
+            CompletableFuture<R<T>> request = chunk.request;
+            if (request != null) {
+                request.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Rows or queries <code>[from, to)</code> of the request.
+     */
+    static final class Chunk<T> {
+        private final int from;
+        private final int to;
+        // guarded by the runner, null until the chunk succeeded
+        private T response;
+        private volatile CompletableFuture<R<T>> request;
+
+        private Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        int getFrom() {
+            return from;
+        }
+
+        int getTo() {
+            return to;
+        }
+
+        T getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.CircuitBreakerParam;
+import io.github.liumy213.rpc.DescribeCollectionResponse;
+import io.github.liumy213.rpc.ErrorCode;
+import io.github.liumy213.rpc.HasCollectionResponse;
+import io.github.liumy213.rpc.InsertResponse;
+import io.github.liumy213.rpc.SearchResponse;
+import io.github.liumy213.rpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of one endpoint and collection.
+ * <p>
+ * Closed, it counts the failed and slow requests among the latest <code>windowSize</code> ones and opens
+ * when one of the rates reaches its threshold. Open, it rejects every request until the open time is over.
+ * Then it is half-open and lets <code>halfOpenTrials</code> requests through: it closes if all of them
+ * succeed, and opens again on the first failed or slow one.
+ */
+class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final CircuitBreakerParam param;
+    private final String name;
+    private final boolean[] failures;
+    private final boolean[] slows;
+    private int next = 0;
+    private int count = 0;
+    private int failureCount = 0;
+    private int slowCount = 0;
+    private State state = State.CLOSED;
+    private long openUntil = 0;
+    private int trialsStarted = 0;
+    private int trialsSucceeded = 0;
+
+    CircuitBreaker(CircuitBreakerParam param, String name) {
+        this.param = param;
+        this.name = name;
+        this.failures = new boolean[param.getWindowSize()];
+        this.slows = new boolean[param.getWindowSize()];
+    }
+
+    /**
+     * @return false if the request must be short-circuited
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntil < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+            logger.info("Circuit breaker {} is half-open", name);
+        }
+        if (trialsStarted >= param.getHalfOpenTrials()) {
+            return false;
+        }
+        trialsStarted++;
+        return true;
+    }
+
+    /**
+     * Gives back a permit of a request which was not sent.
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) {
+            trialsStarted--;
+        }
+    }
+
+    /**
+     * Records the outcome of a request which got a permit.
+     */
+    void onResult(long latencyNanos, Object response, Throwable throwable) {
+        boolean failed = throwable != null || param.getFailureErrorCodes().contains(errorCodeOf(response));
+        boolean slow = param.getSlowLatencyNanos() > 0 && latencyNanos > param.getSlowLatencyNanos();
+        synchronized (this) {
+            switch (state) {
+                case HALF_OPEN:
+                    if (failed || slow) {
+                        open();
+                    } else if (++trialsSucceeded >= param.getHalfOpenTrials()) {
+                        close();
+                    }
+                    break;
+                case CLOSED:
+                    record(failed, slow);
+                    if (count >= param.getMinRequests()
+                            && (failureCount >= param.getFailureRateThreshold() * count
+                            || param.getSlowLatencyNanos() > 0 && slowCount >= param.getSlowRateThreshold() * count)) {
+                        open();
+                    }
+                    break;
+                default:
+                    // a request sent before the breaker opened
+                    break;
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (count == failures.length) {
+            failureCount -= failures[next] ? 1 : 0;
+            slowCount -= slows[next] ? 1 : 0;
+        } else {
+            count++;
+        }
+        failures[next] = failed;
+        slows[next] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + param.getOpenNanos();
+        logger.warn("Circuit breaker {} is open for {}ms, {} failed and {} slow in the latest {} requests",
+                name, TimeUnit.NANOSECONDS.toMillis(param.getOpenNanos()), failureCount, slowCount, count);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        count = 0;
+        failureCount = 0;
+        slowCount = 0;
+        logger.info("Circuit breaker {} is closed", name);
+    }
+
+    private static ErrorCode errorCodeOf(Object response) {
+        Status status;
+        if (response instanceof Status) {
+            status = (Status) response;
+        } else if (response instanceof SearchResponse) {
+            status = ((SearchResponse) response).getStatus();
+        } else if (response instanceof InsertResponse) {
+            status = ((InsertResponse) response).getStatus();
+        } else if (response instanceof HasCollectionResponse) {
+            status = ((HasCollectionResponse) response).getStatus();
+        } else if (response instanceof DescribeCollectionResponse) {
+            status = ((DescribeCollectionResponse) response).getStatus();
+        } else {
+            return ErrorCode.Success;
+        }
+        return status.getErrorCode();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.collection.FieldType;
+import io.github.liumy213.response.DescCollResponseWrapper;
+import io.github.liumy213.rpc.DescribeCollectionResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the schema and the existence of collections by collection name, so that insert/createIndex
+ * don't need to describe the collection before every request. Only existing collections are cached.
+ * Entries expire after the ttl, and are invalidated when this client creates or drops the collection.
+ */
+class CollectionSchemaCache {
+    private final long ttlNanos;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    CollectionSchemaCache(long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * Returns the live entry of a collection, or null if it is not cached or expired.
+     */
+    private Entry get(String collectionName) {
+        Entry entry = entries.get(collectionName);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expireAt >= 0) {
+            entries.remove(collectionName, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns true if the collection is known to exist, false if it is not cached.
+     */
+    boolean exists(String collectionName) {
+        return get(collectionName) != null;
+    }
+
+    /**
+     * Returns the cached field schemas of a collection, or null if the schema is not cached.
+     */
+    List<FieldType> getFields(String collectionName) {
+        Entry entry = get(collectionName);
+        return entry == null ? null : entry.fields;
+    }
+
+    void putSchema(String collectionName, DescribeCollectionResponse response) {
+        DescCollResponseWrapper wrapper = new DescCollResponseWrapper(response);
+        Entry entry = new Entry(Collections.unmodifiableList(wrapper.getFields()), System.nanoTime() + ttlNanos);
+        entries.put(collectionName, entry);
+    }
+
+    /**
+     * Records that a collection exists. Missing collections are never cached, so a collection created by
+     * another client is seen at once.
+     */
+    void putExisting(String collectionName) {
+        if (exists(collectionName)) {
+            return;
+        }
+        entries.put(collectionName, new Entry(null, System.nanoTime() + ttlNanos));
+    }
+
+    void invalidate(String collectionName) {
+        entries.remove(collectionName);
+    }
+
+    private static final class Entry {
+        // null if only the existence of the collection is known
+        private final List<FieldType> fields;
+        private final long expireAt;
+
+        private Entry(List<FieldType> fields, long expireAt) {
+            this.fields = fields;
+            this.expireAt = expireAt;
+        }
+    }
+}
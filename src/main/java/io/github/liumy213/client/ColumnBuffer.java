@@ -0,0 +1,443 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.InsertParam;
+
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Growable column of one field, scalars and vectors are kept in primitive arrays.
+ * The type of the column is decided by its first value, later values must have the same type.
+ * The data is handed over to the insert request by {@link #toField(String)}, the buffer is not used afterwards.
+ */
+abstract class ColumnBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected int size;
+
+    /**
+     * Creates an empty buffer for values of the same type as the given value.
+     *
+     * @param fieldName field name, for the error message
+     * @param value first value of the column
+     * @return {@link ColumnBuffer}
+     */
+    static ColumnBuffer of(String fieldName, Object value) throws ParamException {
+        if (value instanceof Long) {
+            return new Longs();
+        } else if (value instanceof Integer || value instanceof Short) {
+            return new Ints();
+        } else if (value instanceof Boolean) {
+            return new Bools();
+        } else if (value instanceof Float) {
+            return new Floats();
+        } else if (value instanceof Double) {
+            return new Doubles();
+        } else if (value instanceof String) {
+            return new Strings();
+        } else if (value instanceof float[] || value instanceof List) {
+            int dim = value instanceof float[] ? ((float[]) value).length : ((List<?>) value).size();
+            if (dim == 0) {
+                throw new ParamException("Float vector dimension of field '" + fieldName + "' must be positive");
+            }
+            return new Vectors(dim);
+        }
+        throw new ParamException("Unsupported value type of field '" + fieldName + "': "
+                + (value == null ? "null" : value.getClass().getName()));
+    }
+
+    /**
+     * Checks whether a value can be appended to the column.
+     */
+    abstract boolean accepts(Object value);
+
+    /**
+     * Appends a value, the value must be accepted by {@link #accepts(Object)}.
+     */
+    abstract void append(Object value);
+
+    /**
+     * Estimated size of a value in the request.
+     */
+    abstract long bytesOf(Object value);
+
+    /**
+     * Estimated size of the values in the request.
+     */
+    abstract long bytes();
+
+    abstract InsertParam.Field toField(String name);
+
+    /**
+     * Checks whether all values of a column chunk can be appended.
+     */
+    boolean acceptsAll(List<?> values) {
+        for (Object value : values) {
+            if (!accepts(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the values of a column chunk in [from, to).
+     */
+    void appendAll(List<?> values, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            append(values.get(i));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    static int grow(int capacity, int minCapacity) {
+        return Math.max(Math.max(capacity * 2, minCapacity), INITIAL_CAPACITY);
+    }
+
+    static final class Longs extends ColumnBuffer {
+        private long[] data = new long[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void append(Object value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size + 1));
+            }
+            data[size++] = (Long) value;
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        long bytes() {
+            return (long) size * Long.BYTES;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            long[] values = data;
+            int count = size;
+            return new InsertParam.Field(name, new View<Long>(count) {
+                @Override
+                public Long get(int index) {
+                    return values[checkIndex(index)];
+                }
+            });
+        }
+    }
+
+    static final class Ints extends ColumnBuffer {
+        private int[] data = new int[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer || value instanceof Short;
+        }
+
+        @Override
+        void append(Object value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size + 1));
+            }
+            data[size++] = ((Number) value).intValue();
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        long bytes() {
+            return (long) size * Integer.BYTES;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            int[] values = data;
+            int count = size;
+            return new InsertParam.Field(name, new View<Integer>(count) {
+                @Override
+                public Integer get(int index) {
+                    return values[checkIndex(index)];
+                }
+            });
+        }
+    }
+
+    static final class Bools extends ColumnBuffer {
+        private boolean[] data = new boolean[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void append(Object value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size + 1));
+            }
+            data[size++] = (Boolean) value;
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return 1;
+        }
+
+        @Override
+        long bytes() {
+            return size;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            boolean[] values = data;
+            int count = size;
+            return new InsertParam.Field(name, new View<Boolean>(count) {
+                @Override
+                public Boolean get(int index) {
+                    return values[checkIndex(index)];
+                }
+            });
+        }
+    }
+
+    static final class Floats extends ColumnBuffer {
+        private float[] data = new float[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Float;
+        }
+
+        @Override
+        void append(Object value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size + 1));
+            }
+            data[size++] = (Float) value;
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return Float.BYTES;
+        }
+
+        @Override
+        long bytes() {
+            return (long) size * Float.BYTES;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            float[] values = data;
+            int count = size;
+            return new InsertParam.Field(name, new View<Float>(count) {
+                @Override
+                public Float get(int index) {
+                    return values[checkIndex(index)];
+                }
+            });
+        }
+    }
+
+    static final class Doubles extends ColumnBuffer {
+        private double[] data = new double[0];
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void append(Object value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size + 1));
+            }
+            data[size++] = (Double) value;
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return Double.BYTES;
+        }
+
+        @Override
+        long bytes() {
+            return (long) size * Double.BYTES;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            double[] values = data;
+            int count = size;
+            return new InsertParam.Field(name, new View<Double>(count) {
+                @Override
+                public Double get(int index) {
+                    return values[checkIndex(index)];
+                }
+            });
+        }
+    }
+
+    static final class Strings extends ColumnBuffer {
+        private final List<String> data = new ArrayList<>();
+        private long bytes;
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void append(Object value) {
+            data.add((String) value);
+            bytes += bytesOf(value);
+            size++;
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            // UTF-8 size is not computed, the length is close enough for batching
+            return ((String) value).length();
+        }
+
+        @Override
+        long bytes() {
+            return bytes;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            return new InsertParam.Field(name, data);
+        }
+    }
+
+    static final class Vectors extends ColumnBuffer {
+        private final int dim;
+        private float[] data = new float[0];
+
+        Vectors(int dim) {
+            this.dim = dim;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            if (value instanceof float[]) {
+                return ((float[]) value).length == dim;
+            }
+            if (value instanceof List) {
+                List<?> vector = (List<?>) value;
+                if (vector.size() != dim) {
+                    return false;
+                }
+                for (Object v : vector) {
+                    if (!(v instanceof Float)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean acceptsAll(List<?> values) {
+            if (values instanceof FloatVectors) {
+                return ((FloatVectors) values).getDim() == dim;
+            }
+            return super.acceptsAll(values);
+        }
+
+        @Override
+        void append(Object value) {
+            ensureCapacity(size + 1);
+            int offset = size * dim;
+            if (value instanceof float[]) {
+                System.arraycopy((float[]) value, 0, data, offset, dim);
+            } else {
+                List<?> vector = (List<?>) value;
+                for (int i = 0; i < dim; ++i) {
+                    data[offset + i] = (Float) vector.get(i);
+                }
+            }
+            size++;
+        }
+
+        @Override
+        void appendAll(List<?> values, int from, int to) {
+            if (!(values instanceof FloatVectors)) {
+                super.appendAll(values, from, to);
+                return;
+            }
+            FloatVectors vectors = (FloatVectors) values;
+            ensureCapacity(size + to - from);
+            for (int i = from; i < to; ++i) {
+                vectors.copyVector(i, data, size * dim);
+                size++;
+            }
+        }
+
+        private void ensureCapacity(int rows) {
+            if ((long) rows * dim > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, rows * dim));
+            }
+        }
+
+        @Override
+        long bytesOf(Object value) {
+            return (long) dim * Float.BYTES;
+        }
+
+        @Override
+        long bytes() {
+            return (long) size * dim * Float.BYTES;
+        }
+
+        @Override
+        InsertParam.Field toField(String name) {
+            return new InsertParam.Field(name, FloatBuffer.wrap(data, 0, size * dim), dim);
+        }
+    }
+
+    /**
+     * Read-only list over the first values of a primitive array.
+     */
+    private abstract static class View<T> extends AbstractList<T> implements RandomAccess {
+        private final int count;
+
+        View(int count) {
+            this.count = count;
+        }
+
+        int checkIndex(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
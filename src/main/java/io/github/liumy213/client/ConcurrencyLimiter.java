@@ -0,0 +1,175 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.LimitExceededException;
+import io.github.liumy213.param.ConcurrencyLimitParam;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit of in-flight requests, based on the latency gradient.
+ * <p>
+ * The long term latency is a slow moving average of the latency samples. While the latency of a request
+ * stays within <code>latencyTolerance</code> times the long term latency, the limit grows by about the square
+ * root of itself, when the latency rises above it the limit shrinks in proportion. A failed request shrinks
+ * the limit by <code>backoffRatio</code>. Samples taken while less than half of the limit is used don't
+ * grow the limit, the latency says nothing about the capacity then.
+ */
+class ConcurrencyLimiter {
+    private static final double LONG_LATENCY_WINDOW = 100;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final ConcurrencyLimitParam param;
+    private final ScheduledExecutorService scheduler;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private double longLatencyNanos = 0;
+    private int inFlight = 0;
+
+    ConcurrencyLimiter(ConcurrencyLimitParam param, ScheduledExecutorService scheduler) {
+        this.param = param;
+        this.scheduler = scheduler;
+        this.limit = param.getInitialLimit();
+    }
+
+    /**
+     * Runs the task when the request gets under the limit.
+     * If the limit is reached and the request cannot wait, it completes the request with a
+     * {@link LimitExceededException}. A request waits at most the queue timeout, and never past its deadline,
+     * after which it fails with a timeout. A waiting request is dropped from the queue when it is completed.
+     *
+     * @param deadlineNanos deadline of the request, zero means no deadline
+     */
+    void acquire(CompletableFuture<?> request, long deadlineNanos, Runnable task) {
+        Waiter waiter = null;
+        synchronized (this) {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+            } else if (queue.size() < param.getMaxQueueSize()) {
+                waiter = new Waiter(request, task);
+                queue.addLast(waiter);
+            } else {
+                request.completeExceptionally(overloaded());
+                return;
+            }
+        }
+        if (waiter == null) {
+            task.run();
+            return;
+        }
+
+        Waiter queued = waiter;
+        request.whenComplete((r, e) -> {
+            synchronized (this) {
+                queue.remove(queued);
+            }
+        });
+        long waitNanos = param.getQueueTimeoutNanos();
+        boolean untilDeadline = false;
+        if (deadlineNanos != 0 && deadlineNanos - System.nanoTime() < waitNanos) {
+            waitNanos = deadlineNanos - System.nanoTime();
+            untilDeadline = true;
+        }
+        boolean deadlineExceeded = untilDeadline;
+        try {
+            scheduler.schedule(() -> {
+                boolean expired;
+                synchronized (this) {
+                    expired = queue.remove(queued);
+                }
+                if (expired) {
+                    request.completeExceptionally(deadlineExceeded ? BrpcChannel.deadlineExceeded() : overloaded());
+                }
+            }, Math.max(waitNanos, 0), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the client is closed
+            request.completeExceptionally(overloaded());
+        }
+    }
+
+    /**
+     * Releases a request which got under the limit and updates the limit with its outcome.
+     *
+     * @param latencyNanos latency of the request
+     * @param failed true if the request failed
+     */
+    void release(long latencyNanos, boolean failed) {
+        release(latencyNanos, failed, true);
+    }
+
+    /**
+     * Releases a request which was cancelled, its latency says nothing about the server.
+     */
+    void releaseCancelled() {
+        release(0, false, false);
+    }
+
+    private void release(long latencyNanos, boolean failed, boolean sample) {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            if (sample) {
+                update(latencyNanos, failed);
+            }
+            inFlight--;
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter waiter = queue.pollFirst();
+                if (!waiter.request.isDone()) {
+                    inFlight++;
+                    ready.add(waiter);
+                }
+            }
+        }
+        ready.forEach(waiter -> waiter.task.run());
+    }
+
+    private void update(long latencyNanos, boolean failed) {
+        double newLimit;
+        if (failed) {
+            newLimit = limit * param.getBackoffRatio();
+        } else {
+            longLatencyNanos = longLatencyNanos == 0 ? latencyNanos
+                    : longLatencyNanos + (latencyNanos - longLatencyNanos) / LONG_LATENCY_WINDOW;
+            if (longLatencyNanos > latencyNanos * 2) {
+                // the latency has dropped for good, let the long term latency catch up faster
+                longLatencyNanos *= 0.95;
+            }
+            if (inFlight < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0,
+                    param.getLatencyTolerance() * longLatencyNanos / Math.max(latencyNanos, 1)));
+            newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        limit = Math.max(param.getMinLimit(), Math.min(param.getMaxLimit(), newLimit));
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private static LimitExceededException overloaded() {
+        return new LimitExceededException("Too many requests in flight");
+    }
+
+    private static final class Waiter {
+        private final CompletableFuture<?> request;
+        private final Runnable task;
+
+        private Waiter(CompletableFuture<?> request, Runnable task) {
+            this.request = request;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.CircuitOpenException;
+import io.github.liumy213.param.CircuitBreakerParam;
+import io.github.liumy213.param.ConcurrencyLimitParam;
+import io.github.liumy213.param.ConnectParam;
+import io.github.liumy213.param.Endpoint;
+import io.github.liumy213.rpc.HasCollectionRequest;
+import io.github.liumy213.rpc.HasCollectionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Channel pools of all server replicas.
+ * Each request goes to the better of two random healthy replicas, scored by the EWMA latency of its operation type
+ * times outstanding requests (power of two choices), so large inserts do not make a replica look slow for searches.
+ * A replica is ejected for a while after consecutive failed requests or health checks, or when its search latency
+ * is far above the others, a successful health check brings a replica ejected for failures back early. Health
+ * checks are no sample of the latency. If every replica is ejected, requests are sent to all of them anyway.
+ * With a {@link ConcurrencyLimitParam}, the in-flight requests of each replica and operation type are capped
+ * by a {@link ConcurrencyLimiter}. With a {@link CircuitBreakerParam}, each replica has a {@link CircuitBreaker}
+ * for every collection, requests avoid the replicas on which the breaker of the collection is open.
+ */
+class EndpointPool {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointPool.class);
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final double OUTLIER_LATENCY_FACTOR = 3.0;
+    private static final long OUTLIER_MIN_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int OUTLIER_MIN_ENDPOINTS = 3;
+    private static final HasCollectionRequest HEALTH_CHECK_REQUEST = HasCollectionRequest.newBuilder()
+            .setCollectionName("__health_check__")
+            .build();
+
+    private final List<EndpointState> endpoints;
+    private final int failureThreshold;
+    private final long ejectNanos;
+    private final ScheduledFuture<?> healthCheck;
+
+    EndpointPool(ConnectParam connectParam, ScheduledExecutorService scheduler) {
+        this.failureThreshold = connectParam.getEndpointFailureThreshold();
+        this.ejectNanos = connectParam.getEndpointEjectNanos();
+        CircuitBreakerParam breakerParam = connectParam.getCircuitBreakerParam();
+
+        List<EndpointState> states = new ArrayList<>();
+        try {
+            for (Endpoint endpoint : connectParam.getEndpoints()) {
+                EndpointState state = new EndpointState(endpoint, new BrpcClientConfig(endpoint.getHost(),
+                        endpoint.getPort(), connectParam.getChannelCount(), connectParam.getWriteChannelCount()),
+                        breakerParam);
+                ConcurrencyLimitParam limitParam = connectParam.getConcurrencyLimitParam();
+                if (limitParam != null) {
+                    for (OperationType operationType : OperationType.values()) {
+                        state.limiters.put(operationType, new ConcurrencyLimiter(limitParam, scheduler));
+                    }
+                }
+                states.add(state);
+            }
+        } catch (RuntimeException e) {
+            states.forEach(state -> state.config.releaseClient());
+            throw e;
+        }
+        this.endpoints = Collections.unmodifiableList(states);
+
+        long interval = connectParam.getHealthCheckIntervalNanos();
+        if (endpoints.size() > 1 && interval > 0) {
+            this.healthCheck = scheduler.scheduleWithFixedDelay(this::checkHealth, interval, interval,
+                    TimeUnit.NANOSECONDS);
+        } else {
+            this.healthCheck = null;
+        }
+    }
+
+    /**
+     * Sends a request to the selected replica, and records the outcome for the selection.
+     * The request fails with a {@link CircuitOpenException} if the circuit breaker of the collection is open
+     * on the selected replica and another one.
+     */
+    <T> CompletableFuture<T> invoke(OperationType operationType, String collectionName,
+                                    AbstractVectorSearchBrpcClient.CallContext context,
+                                    AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        EndpointState endpoint = select(null, operationType, collectionName);
+        if (endpoint == null) {
+            return circuitOpen(collectionName);
+        }
+        return invoke(endpoint, operationType, collectionName, context, call);
+    }
+
+    /**
+     * Sends a request to a replica returned by {@link #select}, which has taken a permit from the circuit breaker.
+     * Cancelling the returned future, or the call of the context, releases the request: it leaves the queue
+     * of the concurrency limiter, or its response is dropped if it is already sent.
+     */
+    <T> CompletableFuture<T> invoke(EndpointState endpoint, OperationType operationType, String collectionName,
+                                    AbstractVectorSearchBrpcClient.CallContext context,
+                                    AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        CircuitBreaker breaker = endpoint.getBreaker(collectionName);
+        ConcurrencyLimiter limiter = endpoint.limiters.get(operationType);
+        if (limiter == null) {
+            if (context.isExpired()) {
+                return context.bind(expired(breaker));
+            }
+            return context.bind(send(endpoint, operationType, breaker, context.getDeadlineNanos(), call));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean sent = new AtomicBoolean();
+        if (breaker != null) {
+            // rejected, expired or cancelled before it is sent, the request says nothing about the server
+            result.whenComplete((r, e) -> {
+                if (!sent.get()) {
+                    breaker.onIgnored();
+                }
+            });
+        }
+        limiter.acquire(result, context.getDeadlineNanos(), () -> {
+            if (context.isExpired()) {
+                // expired in the queue, which is client-side overload and no failure of the replica
+                limiter.releaseCancelled();
+                result.completeExceptionally(BrpcChannel.deadlineExceeded());
+                return;
+            }
+            sent.set(true);
+            long begin = System.nanoTime();
+            CompletableFuture<T> sending = send(endpoint, operationType, breaker, context.getDeadlineNanos(), call);
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    sending.cancel(false);
+                }
+            });
+            sending.whenComplete((r, e) -> {
+                if (sending.isCancelled()) {
+                    limiter.releaseCancelled();
+                } else {
+                    limiter.release(System.nanoTime() - begin, e != null);
+                }
+                if (e == null) {
+                    result.complete(r);
+                } else {
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return context.bind(result);
+    }
+
+    private <T> CompletableFuture<T> send(EndpointState endpoint, OperationType operationType,
+                                          CircuitBreaker breaker, long deadlineNanos,
+                                          AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        long begin = System.nanoTime();
+        endpoint.outstanding.incrementAndGet();
+        CompletableFuture<T> future = endpoint.config.selectChannel(operationType).invoke(call, deadlineNanos);
+        future.whenComplete((r, e) -> {
+            long latency = System.nanoTime() - begin;
+            endpoint.outstanding.decrementAndGet();
+            if (future.isCancelled()) {
+                // the caller gave up, e.g. a hedge lost the race, which is no failure of the replica
+                if (breaker != null) {
+                    breaker.onIgnored();
+                }
+                return;
+            }
+            if (e == null) {
+                endpoint.latencies.get(operationType).update(latency);
+                onSuccess(endpoint, false);
+            } else {
+                onFailure(endpoint);
+            }
+            if (breaker != null) {
+                breaker.onResult(latency, r, e);
+            }
+        });
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> expired(CircuitBreaker breaker) {
+        if (breaker != null) {
+            breaker.onIgnored();
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(BrpcChannel.deadlineExceeded());
+        return future;
+    }
+
+    static <T> CompletableFuture<T> circuitOpen(String collectionName) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new CircuitOpenException(
+                "Circuit breaker of collection " + collectionName + " is open"));
+        return future;
+    }
+
+    /**
+     * Selects a replica other than <code>avoid</code> and takes a permit from its circuit breaker of the collection.
+     * If the breaker is open, it tries one more replica.
+     *
+     * @return the replica, or null if there is no other replica or the breakers are open
+     */
+    EndpointState select(EndpointState avoid, OperationType operationType, String collectionName) {
+        EndpointState endpoint = choose(avoid, null, operationType);
+        if (endpoint == null || endpoint.tryAcquire(collectionName)) {
+            return endpoint;
+        }
+        EndpointState other = choose(avoid, endpoint, operationType);
+        return other != null && other.tryAcquire(collectionName) ? other : null;
+    }
+
+    private EndpointState choose(EndpointState avoid, EndpointState alsoAvoid, OperationType operationType) {
+        int size = endpoints.size();
+        if (size == 1 && avoid == null && alsoAvoid == null) {
+            return endpoints.get(0);
+        }
+
+        long now = System.nanoTime();
+        List<EndpointState> candidates = new ArrayList<>(size);
+        for (EndpointState endpoint : endpoints) {
+            if (endpoint != avoid && endpoint != alsoAvoid && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (EndpointState endpoint : endpoints) {
+                if (endpoint != avoid && endpoint != alsoAvoid) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        EndpointState a = candidates.get(first);
+        EndpointState b = candidates.get(second);
+        return a.score(operationType) <= b.score(operationType) ? a : b;
+    }
+
+    private void onSuccess(EndpointState endpoint, boolean healthCheck) {
+        boolean reinstated;
+        synchronized (endpoint) {
+            endpoint.consecutiveFailures = 0;
+            // a slow replica stays ejected until its ejection expires, pings say nothing about its load
+            reinstated = endpoint.ejected && (!healthCheck || !endpoint.ejectedForLatency);
+            if (reinstated) {
+                endpoint.ejected = false;
+            }
+        }
+        if (reinstated) {
+            logger.info("Endpoint {} is reinstated", endpoint.endpoint);
+        }
+    }
+
+    private void onFailure(EndpointState endpoint) {
+        boolean ejected = false;
+        synchronized (endpoint) {
+            endpoint.consecutiveFailures++;
+            if (endpoint.consecutiveFailures >= failureThreshold && !endpoint.isEjected(System.nanoTime())) {
+                endpoint.eject(System.nanoTime() + ejectNanos, false);
+                ejected = true;
+            }
+        }
+        if (ejected) {
+            logger.warn("Endpoint {} is ejected after {} consecutive failures", endpoint.endpoint, failureThreshold);
+        }
+    }
+
+    private void checkHealth() {
+        for (EndpointState endpoint : endpoints) {
+            CompletableFuture<HasCollectionResponse> future;
+            try {
+                future = endpoint.config.selectChannel(OperationType.DDL).invoke((stub, callback) ->
+                        stub.has_collectionCallback(HEALTH_CHECK_REQUEST, callback));
+            } catch (Exception e) {
+                onFailure(endpoint);
+                continue;
+            }
+            future.whenComplete((r, e) -> {
+                if (e == null) {
+                    onSuccess(endpoint, true);
+                } else {
+                    onFailure(endpoint);
+                }
+            });
+        }
+        ejectLatencyOutliers();
+    }
+
+    // only search latencies are compared, writes and DDL vary too much with the size of the request
+    private void ejectLatencyOutliers() {
+        if (endpoints.size() < OUTLIER_MIN_ENDPOINTS) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        int ejectedCount = 0;
+        List<EndpointState> healthy = new ArrayList<>();
+        for (EndpointState endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                ejectedCount++;
+            } else if (endpoint.latencies.get(OperationType.SEARCH).nanos > 0) {
+                healthy.add(endpoint);
+            }
+        }
+        if (healthy.size() < OUTLIER_MIN_ENDPOINTS) {
+            return;
+        }
+
+        double[] latencies = new double[healthy.size()];
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = healthy.get(i).latencies.get(OperationType.SEARCH).nanos;
+        }
+        Arrays.sort(latencies);
+        double threshold = Math.max(latencies[latencies.length / 2] * OUTLIER_LATENCY_FACTOR,
+                OUTLIER_MIN_LATENCY_NANOS);
+
+        // never eject more than half of the replicas
+        int maxEjected = endpoints.size() / 2;
+        for (EndpointState endpoint : healthy) {
+            if (ejectedCount >= maxEjected) {
+                break;
+            }
+            double latency = endpoint.latencies.get(OperationType.SEARCH).nanos;
+            if (latency > threshold) {
+                synchronized (endpoint) {
+                    endpoint.eject(now + ejectNanos, true);
+                    // start over after the ejection instead of carrying the stale latencies
+                    endpoint.latencies.values().forEach(Ewma::reset);
+                }
+                ejectedCount++;
+                logger.warn("Endpoint {} is ejected for latency {}ms", endpoint.endpoint,
+                        TimeUnit.NANOSECONDS.toMillis((long) latency));
+            }
+        }
+    }
+
+    /**
+     * @return the current concurrency limits of every replica and operation type, empty if there is no limit
+     */
+    Map<Endpoint, Map<OperationType, Integer>> getConcurrencyLimits() {
+        Map<Endpoint, Map<OperationType, Integer>> limits = new LinkedHashMap<>();
+        for (EndpointState endpoint : endpoints) {
+            if (endpoint.limiters.isEmpty()) {
+                continue;
+            }
+            Map<OperationType, Integer> endpointLimits = new EnumMap<>(OperationType.class);
+            endpoint.limiters.forEach((operationType, limiter) ->
+                    endpointLimits.put(operationType, limiter.getLimit()));
+            limits.put(endpoint.endpoint, endpointLimits);
+        }
+        return limits;
+    }
+
+    int size() {
+        return endpoints.size();
+    }
+
+    void close() {
+        if (healthCheck != null) {
+            healthCheck.cancel(false);
+        }
+        endpoints.forEach(endpoint -> endpoint.config.releaseClient());
+    }
+
+    static final class EndpointState {
+        private final Endpoint endpoint;
+        private final BrpcClientConfig config;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Map<OperationType, ConcurrencyLimiter> limiters = new EnumMap<>(OperationType.class);
+        private final CircuitBreakerParam breakerParam;
+        private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+        private final Map<OperationType, Ewma> latencies = new EnumMap<>(OperationType.class);
+        private int consecutiveFailures = 0;
+        private volatile boolean ejected = false;
+        private volatile long ejectedUntil = 0;
+        private boolean ejectedForLatency = false;
+
+        private EndpointState(Endpoint endpoint, BrpcClientConfig config, CircuitBreakerParam breakerParam) {
+            this.endpoint = endpoint;
+            this.config = config;
+            this.breakerParam = breakerParam;
+            for (OperationType operationType : OperationType.values()) {
+                latencies.put(operationType, new Ewma());
+            }
+        }
+
+        private CircuitBreaker getBreaker(String collectionName) {
+            if (breakerParam == null || collectionName == null) {
+                return null;
+            }
+            return breakers.computeIfAbsent(collectionName,
+                    name -> new CircuitBreaker(breakerParam, endpoint + "/" + name));
+        }
+
+        private boolean tryAcquire(String collectionName) {
+            CircuitBreaker breaker = getBreaker(collectionName);
+            return breaker == null || breaker.tryAcquire();
+        }
+
+        private boolean isEjected(long now) {
+            return ejected && now - ejectedUntil < 0;
+        }
+
+        private void eject(long until, boolean forLatency) {
+            this.ejectedUntil = until;
+            this.ejectedForLatency = forLatency;
+            this.ejected = true;
+        }
+
+        private double score(OperationType operationType) {
+            // replicas without latency samples yet are treated as the fastest
+            return Math.max(latencies.get(operationType).nanos, 1) * (outstanding.get() + 1);
+        }
+    }
+
+    /**
+     * Exponentially weighted moving average of the latency of one operation type on a replica.
+     */
+    private static final class Ewma {
+        private volatile double nanos = 0;
+
+        synchronized void update(long latencyNanos) {
+            nanos = nanos == 0 ? latencyNanos : nanos + EWMA_WEIGHT * (latencyNanos - nanos);
+        }
+
+        synchronized void reset() {
+            nanos = 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.liumy213.client;
+
+/**
+ * Listener of an ingest. The methods are called from the reading thread or the threads completing the inserts,
+ * they should return quickly.
+ */
+public interface IngestListener {
+    /**
+     * Called after every inserted or failed batch.
+     *
+     * @param progress progress of the ingest
+     */
+    default void onProgress(IngestProgress progress) {
+    }
+
+    /**
+     * Called for an invalid row or a failed insert.
+     *
+     * @param error the error
+     * @param failedRows count of the rows which are not inserted because of the error
+     */
+    default void onError(Throwable error, long failedRows) {
+    }
+}
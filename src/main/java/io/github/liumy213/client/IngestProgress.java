@@ -0,0 +1,37 @@
+package io.github.liumy213.client;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the progress of an ingest.
+ */
+@Getter
+@ToString
+public class IngestProgress {
+    private final long rowsRead;
+    private final long rowsInserted;
+    private final long rowsFailed;
+    private final long elapsedNanos;
+
+    IngestProgress(long rowsRead, long rowsInserted, long rowsFailed, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.rowsInserted = rowsInserted;
+        this.rowsFailed = rowsFailed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Average throughput of the inserted rows since the ingest started.
+     *
+     * @return rows per second
+     */
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0.0;
+        }
+        return rowsInserted * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
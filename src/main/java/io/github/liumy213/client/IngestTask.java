@@ -0,0 +1,127 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.dml.BulkWriterParam;
+import io.github.liumy213.param.dml.IngestParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A running ingest. The source is read on its own thread and the rows are written through a {@link BulkWriter}
+ * whose queue of full batches is bounded, so reading blocks while the inserts are behind.
+ * The future completes with the final progress when all rows are read and inserted, or exceptionally with
+ * the first error unless <code>continueOnError</code> is set. Cancelling the future stops reading,
+ * the rows already read are still inserted.
+ */
+public class IngestTask {
+    private static final Logger logger = LoggerFactory.getLogger(IngestTask.class);
+    // the last batch of a source waits at most this long, the rest are sent when full
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final IngestParam param;
+    private final Iterator<? extends Map<String, ?>> rows;
+    private final Runnable onFinish;
+    private final BulkWriter writer;
+    private final CompletableFuture<IngestProgress> future = new CompletableFuture<>();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+
+    IngestTask(VectorSearchAsyncClient client, IngestParam param, ScheduledExecutorService scheduler,
+               Iterator<? extends Map<String, ?>> rows, Runnable onFinish) {
+        this.param = param;
+        this.rows = rows;
+        this.onFinish = onFinish;
+        BulkWriterParam writerParam = BulkWriterParam.newBuilder()
+                .withCollectionName(param.getCollectionName())
+                .withPartitionName(param.getPartitionName())
+                .withMaxBatchRows(param.getBatchRows())
+                .withMaxBatchBytes(param.getMaxBatchBytes())
+                .withLinger(LINGER_NANOS, TimeUnit.NANOSECONDS)
+                .withMaxInFlight(param.getMaxInFlight())
+                .withMaxQueuedBatches(param.getMaxQueuedBatches())
+                .withTimeout(param.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build();
+        this.writer = new BulkWriter(client, writerParam, scheduler, this::onBatch);
+    }
+
+    void start() {
+        Thread thread = new Thread(this::run, "vector-search-ingest-" + param.getCollectionName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public CompletableFuture<IngestProgress> getFuture() {
+        return future;
+    }
+
+    public IngestProgress getProgress() {
+        return new IngestProgress(rowsRead.get(), rowsInserted.get(), rowsFailed.get(),
+                System.nanoTime() - startNanos);
+    }
+
+    private void run() {
+        try {
+            while (!future.isDone() && rows.hasNext()) {
+                Map<String, ?> row = rows.next();
+                rowsRead.incrementAndGet();
+                try {
+                    writer.add(row);
+                } catch (RuntimeException e) {
+                    onError(e, 1);
+                }
+            }
+        } catch (Throwable e) {
+            // the source failed, nothing more can be read
+            logger.error("Ingest source of collection {} failed", param.getCollectionName(), e);
+            future.completeExceptionally(e);
+        } finally {
+            try {
+                writer.close();
+            } finally {
+                if (onFinish != null) {
+                    onFinish.run();
+                }
+            }
+        }
+        future.complete(getProgress());
+    }
+
+    private void onBatch(int batchRows, Throwable error) {
+        if (error == null) {
+            rowsInserted.addAndGet(batchRows);
+        } else {
+            onError(error, batchRows);
+        }
+        IngestListener listener = param.getListener();
+        if (listener != null) {
+            try {
+                listener.onProgress(getProgress());
+            } catch (RuntimeException e) {
+                logger.warn("Ingest listener failed", e);
+            }
+        }
+    }
+
+    private void onError(Throwable error, long failedRows) {
+        rowsFailed.addAndGet(failedRows);
+        IngestListener listener = param.getListener();
+        if (listener != null) {
+            try {
+                listener.onError(error, failedRows);
+            } catch (RuntimeException e) {
+                logger.warn("Ingest listener failed", e);
+            }
+        }
+        if (!param.isContinueOnError()) {
+            future.completeExceptionally(error);
+        }
+    }
+}
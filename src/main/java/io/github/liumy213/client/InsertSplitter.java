@@ -0,0 +1,130 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.PartialInsertException;
+import io.github.liumy213.param.InsertChunkParam;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.rpc.InsertResponse;
+import io.github.liumy213.rpc.LongArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Splits inserts larger than the chunk size into row ranges.
+ * The chunks are converted and sent on the executor with bounded concurrency, the ids of the chunks are merged
+ * in row order. The chunk size is shared by the inserts of a client, it shrinks while chunks are slower than
+ * the target latency and grows back while they are faster than half of it. After the first failed chunk no further
+ * chunk is sent, and once the chunks in flight have settled the insert fails with a {@link PartialInsertException}
+ * holding every chunk the server confirmed.
+ */
+class InsertSplitter {
+    private static final double SHRINK_RATIO = 0.75;
+    private static final double GROW_RATIO = 1.25;
+
+    private final InsertChunkParam param;
+    private final Executor executor;
+    private volatile long chunkBytes;
+
+    InsertSplitter(InsertChunkParam param, Executor executor) {
+        this.param = param;
+        this.executor = executor;
+        this.chunkBytes = param.getMaxChunkBytes();
+    }
+
+    long getChunkBytes() {
+        return chunkBytes;
+    }
+
+    CompletableFuture<R<InsertResponse>> insert(InsertParam requestParam,
+                                               Function<InsertParam, CompletableFuture<R<InsertResponse>>> sender) {
+        int rowCount = requestParam.getRowCount();
+        long totalBytes = PayloadSizes.estimate(requestParam);
+        if (rowCount <= 1 || totalBytes <= chunkBytes) {
+            return sender.apply(requestParam);
+        }
+        return new SplitInsert(requestParam, Math.max(totalBytes / rowCount, 1), sender).run();
+    }
+
+    private void onChunkLatency(long latencyNanos) {
+        long current = chunkBytes;
+        if (latencyNanos > param.getTargetLatencyNanos()) {
+            chunkBytes = Math.max((long) (current * SHRINK_RATIO), param.getMinChunkBytes());
+        } else if (latencyNanos < param.getTargetLatencyNanos() / 2) {
+            chunkBytes = Math.min((long) (current * GROW_RATIO), param.getMaxChunkBytes());
+        }
+    }
+
+    private final class SplitInsert extends ChunkRunner<InsertResponse> {
+        private final InsertParam requestParam;
+        private final long rowBytes;
+        private final Function<InsertParam, CompletableFuture<R<InsertResponse>>> sender;
+
+        SplitInsert(InsertParam requestParam, long rowBytes,
+                    Function<InsertParam, CompletableFuture<R<InsertResponse>>> sender) {
+            // after a failure the chunks in flight are awaited, so that the confirmed ranges are exact
+            super(requestParam.getRowCount(), param.getConcurrency(), true, executor);
+            this.requestParam = requestParam;
+            this.rowBytes = rowBytes;
+            this.sender = sender;
+        }
+
+        @Override
+        protected int nextChunkSize() {
+            return (int) Math.min(chunkBytes / rowBytes, Integer.MAX_VALUE);
+        }
+
+        @Override
+        protected CompletableFuture<R<InsertResponse>> send(int from, int to) {
+            long start = System.nanoTime();
+            return sender.apply(slice(from, to)).whenComplete((r, e) -> {
+                if (e == null && r.getStatus() == R.Status.Success.getCode()) {
+                    onChunkLatency(System.nanoTime() - start);
+                }
+            });
+        }
+
+        private InsertParam slice(int from, int to) {
+            List<InsertParam.Field> fields = new ArrayList<>(requestParam.getFields().size());
+            for (InsertParam.Field field : requestParam.getFields()) {
+                fields.add(new InsertParam.Field(field.getName(), field.getValues().subList(from, to)));
+            }
+            return InsertParam.newBuilder()
+                    .withCollectionName(requestParam.getCollectionName())
+                    .withPartitionName(requestParam.getPartitionName())
+                    .withFields(fields)
+                    .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+        @Override
+        protected InsertResponse merge(List<InsertResponse> responses) {
+            LongArray.Builder merged = LongArray.newBuilder();
+            for (InsertResponse response : responses) {
+                merged.addAllData(response.getIDs().getDataList());
+            }
+            return responses.get(0).toBuilder().setIDs(merged).build();
+        }
+
+        @Override
+        protected R<InsertResponse> failed(R<InsertResponse> failure, List<Chunk<InsertResponse>> succeeded) {
+            // the chunks inserted are not rolled back, the caller gets them with the first failure
+            List<PartialInsertException.RowRange> inserted = new ArrayList<>(succeeded.size());
+            int insertedRows = 0;
+            for (Chunk<InsertResponse> chunk : succeeded) {
+                inserted.add(new PartialInsertException.RowRange(chunk.getFrom(), chunk.getTo(),
+                        chunk.getResponse().getIDs().getDataList()));
+                insertedRows += chunk.getTo() - chunk.getFrom();
+            }
+            PartialInsertException partialFailure = new PartialInsertException(String.format(
+                    "Insert failed after %d of %d rows: %s", insertedRows, requestParam.getRowCount(),
+                    failure.getMessage()), failure.getStatus(), inserted);
+            partialFailure.initCause(failure.getException());
+            return R.failed(partialFailure);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.liumy213.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the latest requests and their percentile.
+ * The percentile is recomputed once every {@link #REFRESH_INTERVAL} samples instead of on every read.
+ */
+class LatencyTracker {
+    private static final int CAPACITY = 1024;
+    private static final int REFRESH_INTERVAL = 64;
+    private static final int MIN_SAMPLES = 100;
+
+    private final double percentile;
+    private final long[] samples = new long[CAPACITY];
+    private int count = 0;
+    private int next = 0;
+    private volatile long percentileNanos = -1;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    void record(long latencyNanos) {
+        long[] snapshot = null;
+        synchronized (this) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % CAPACITY;
+            if (count < CAPACITY) {
+                count++;
+            }
+            if (count == MIN_SAMPLES && next == MIN_SAMPLES
+                    || count >= MIN_SAMPLES && next % REFRESH_INTERVAL == 0) {
+                snapshot = Arrays.copyOf(samples, count);
+            }
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            percentileNanos = snapshot[Math.min((int) (snapshot.length * percentile), snapshot.length - 1)];
+        }
+    }
+
+    /**
+     * @return the latency percentile, or -1 if there are not enough samples yet
+     */
+    long getPercentileNanos() {
+        return percentileNanos;
+    }
+}
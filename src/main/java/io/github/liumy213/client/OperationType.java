@@ -0,0 +1,19 @@
+package io.github.liumy213.client;
+
+/**
+ * Kind of traffic a request belongs to, used to route requests to channel groups.
+ */
+public enum OperationType {
+    /**
+     * Latency sensitive reads: search.
+     */
+    SEARCH,
+    /**
+     * Bulk data writes: insert.
+     */
+    WRITE,
+    /**
+     * Collection and index management.
+     */
+    DDL,
+}
@@ -0,0 +1,52 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.InsertParam;
+
+import java.util.List;
+
+/**
+ * Estimates the size of the values carried by a request, used to size chunks and to account for buffered writes.
+ */
+final class PayloadSizes {
+    private PayloadSizes() {
+    }
+
+    /**
+     * Estimated size of the field values of an insert.
+     */
+    static long estimate(InsertParam requestParam) {
+        long bytes = 0;
+        for (InsertParam.Field field : requestParam.getFields()) {
+            bytes += estimate(field.getValues());
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimated size of a column of values, such as field values or search targets.
+     */
+    static long estimate(List<?> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        if (values instanceof FloatVectors) {
+            return (long) values.size() * ((FloatVectors) values).getDim() * Float.BYTES;
+        }
+        Object first = values.get(0);
+        if (first instanceof String) {
+            long bytes = 0;
+            for (Object value : values) {
+                bytes += value instanceof String ? ((String) value).length() : 0;
+            }
+            return bytes;
+        } else if (first instanceof List) {
+            return (long) values.size() * ((List<?>) first).size() * Float.BYTES;
+        } else if (first instanceof Long || first instanceof Double) {
+            return (long) values.size() * Long.BYTES;
+        } else if (first instanceof Boolean) {
+            return values.size();
+        }
+        return (long) values.size() * Integer.BYTES;
+    }
+}
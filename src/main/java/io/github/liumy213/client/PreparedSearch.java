@@ -0,0 +1,84 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.ParamUtils;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.PreparedSearchParam;
+import io.github.liumy213.rpc.SearchRequest;
+import io.github.liumy213.rpc.SearchResponse;
+import lombok.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A vector search with fixed collection, field, topK, expr, params and output fields, created by
+ * {@link VectorSearchServiceClient#prepareSearch(PreparedSearchParam)}.
+ * The fixed part of the request is validated and encoded once, each search copies it with the encoded target vectors.
+ * Searches go through the same cache, coalescing, retry and hedging as <code>search</code>. Thread safe.
+ */
+public class PreparedSearch {
+    private final VectorSearchServiceClient client;
+    private final PreparedSearchParam param;
+    private final SearchRequest prepared;
+
+    PreparedSearch(VectorSearchServiceClient client, PreparedSearchParam param) {
+        this.client = client;
+        this.param = param;
+        this.prepared = ParamUtils.convertSearchParam(param);
+    }
+
+    public PreparedSearchParam getParam() {
+        return param;
+    }
+
+    /**
+     * Searches one target vector.
+     *
+     * @param vector target vector
+     * @return {@link R} holding {@link SearchResponse}
+     */
+    public R<SearchResponse> search(@NonNull float[] vector) {
+        return client.await(searchAsync(vector));
+    }
+
+    /**
+     * Searches target vectors.
+     *
+     * @param vectors target vectors
+     * @return {@link R} holding {@link SearchResponse}
+     */
+    public R<SearchResponse> search(@NonNull FloatVectors vectors) {
+        return client.await(searchAsync(vectors));
+    }
+
+    /**
+     * Searches one target vector asynchronously.
+     *
+     * @param vector target vector
+     * @return future of {@link R} holding {@link SearchResponse}
+     */
+    public CompletableFuture<R<SearchResponse>> searchAsync(@NonNull float[] vector) {
+        FloatVectors vectors;
+        try {
+            vectors = FloatVectors.of(vector, vector.length);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(R.failed(e));
+        }
+        return searchAsync(vectors);
+    }
+
+    /**
+     * Searches target vectors asynchronously.
+     *
+     * @param vectors target vectors
+     * @return future of {@link R} holding {@link SearchResponse}
+     */
+    public CompletableFuture<R<SearchResponse>> searchAsync(@NonNull FloatVectors vectors) {
+        try {
+            return client.cachedSearchAsync(param.toSearchParam(vectors),
+                    ParamUtils.withSearchVectors(prepared, vectors));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(R.failed(e));
+        }
+    }
+}
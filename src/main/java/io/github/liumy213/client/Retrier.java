@@ -0,0 +1,198 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.exception.RpcException;
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import com.baidu.cloud.starlight.api.exception.TransportException;
+import io.github.liumy213.client.AbstractVectorSearchBrpcClient.CallContext;
+import io.github.liumy213.exception.VectorSearchException;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.RetryParam;
+import io.github.liumy213.rpc.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Retries asynchronous calls according to a {@link RetryParam}.
+ * The retries are scheduled on the client scheduler, no thread is blocked while waiting for the backoff.
+ */
+class Retrier {
+    private static final Logger logger = LoggerFactory.getLogger(Retrier.class);
+
+    private final RetryParam retryParam;
+    private final ScheduledExecutorService scheduler;
+    private final RetryBudget budget;
+    private final Set<Integer> retryableStatus = new HashSet<>();
+
+    Retrier(RetryParam retryParam, ScheduledExecutorService scheduler) {
+        this.retryParam = retryParam;
+        this.scheduler = scheduler;
+        this.budget = new RetryBudget(retryParam.getRetryBudgetRatio(), retryParam.getMinRetriesPerSecond());
+        for (ErrorCode errorCode : retryParam.getRetryableErrorCodes()) {
+            retryableStatus.add(R.Status.valueOf(errorCode).getCode());
+        }
+        retryableStatus.add(R.Status.RpcError.getCode());
+        retryableStatus.add(R.Status.ClientNotConnected.getCode());
+    }
+
+    /**
+     * Runs an idempotent call and its retries.
+     *
+     * @param deadlineNanos deadline of the call, zero means no deadline
+     * @param call sends one attempt of the call with the shared context
+     * @return the future of the call, cancelling it cancels the pending attempt and stops retrying
+     */
+    <T> CompletableFuture<R<T>> execute(long deadlineNanos,
+                                        Function<CallContext, CompletableFuture<R<T>>> call) {
+        return execute(deadlineNanos, true, call);
+    }
+
+    /**
+     * Runs a call and its retries.
+     *
+     * @param deadlineNanos deadline of the call, zero means no deadline
+     * @param idempotent false for writes and DDL which must not be applied twice, they are only retried
+     *                   when the failed attempt never reached the server
+     * @param call sends one attempt of the call with the shared context
+     * @return the future of the call, cancelling it cancels the pending attempt and stops retrying
+     */
+    <T> CompletableFuture<R<T>> execute(long deadlineNanos, boolean idempotent,
+                                        Function<CallContext, CompletableFuture<R<T>>> call) {
+        CompletableFuture<R<T>> result = new CompletableFuture<>();
+        CallContext context = new CallContext(deadlineNanos, result);
+        if (retryParam.getMaxRetryTimes() <= 0) {
+            attempt(call, idempotent, context, 0, deadlineNanos, result);
+            return result;
+        }
+
+        budget.onRequest();
+        long deadline = deadlineNanos;
+        if (retryParam.getTimeoutNanos() > 0) {
+            long retryDeadline = System.nanoTime() + retryParam.getTimeoutNanos();
+            if (deadline == 0 || retryDeadline - deadline < 0) {
+                deadline = retryDeadline;
+            }
+        }
+        attempt(call, idempotent, context, 0, deadline, result);
+        return result;
+    }
+
+    private <T> void attempt(Function<CallContext, CompletableFuture<R<T>>> call, boolean idempotent,
+                             CallContext context, int retries, long deadline, CompletableFuture<R<T>> result) {
+        if (result.isDone()) {
+            // cancelled by the caller
+            return;
+        }
+        CompletableFuture<R<T>> future;
+        try {
+            future = call.apply(context);
+        } catch (Exception e) {
+            future = CompletableFuture.completedFuture(R.failed(e));
+        }
+
+        future.whenComplete((r, e) -> {
+            R<T> outcome = e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r;
+            if (outcome.getStatus() == R.Status.Success.getCode()
+                    || retries >= retryParam.getMaxRetryTimes()
+                    || !(idempotent ? isRetryable(outcome) : isNeverSent(outcome))) {
+                result.complete(outcome);
+                return;
+            }
+
+            long delay = backoffNanos(retries);
+            if (deadline != 0 && System.nanoTime() + delay - deadline >= 0) {
+                logger.debug("Retry timeout, give up after {} retries", retries);
+                result.complete(outcome);
+                return;
+            }
+            if (!budget.tryRetry()) {
+                logger.warn("Retry budget is used up, give up retrying: {}", outcome.getMessage());
+                result.complete(outcome);
+                return;
+            }
+
+            logger.debug("Retry again after {}ms: {}", TimeUnit.NANOSECONDS.toMillis(delay), outcome.getMessage());
+            try {
+                scheduler.schedule(() -> attempt(call, idempotent, context, retries + 1, deadline, result),
+                        delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException rejected) {
+                // the client is closed
+                result.complete(outcome);
+            }
+        });
+    }
+
+    private long backoffNanos(int retries) {
+        double backoff = retryParam.getInitialBackoffNanos() * Math.pow(retryParam.getBackoffMultiplier(), retries);
+        backoff = Math.min(backoff, retryParam.getMaxBackoffNanos());
+        double jitter = retryParam.getJitter() * ThreadLocalRandom.current().nextDouble();
+        return (long) (backoff * (1.0 - jitter));
+    }
+
+    /**
+     * Transient failures are retryable: RPC/transport errors and retryable server error codes.
+     * Invalid parameters, illegal responses and other server error codes are not.
+     */
+    boolean isRetryable(R<?> r) {
+        Exception exception = r.getException();
+        if (exception instanceof VectorSearchException || exception == null
+                || r.getStatus() != R.Status.Unknown.getCode()) {
+            return retryableStatus.contains(r.getStatus());
+        }
+        return isTransient(exception);
+    }
+
+    /**
+     * Failures which prove the request was never processed: the connection could not be made, or the server
+     * refused it before doing anything. A timeout or a lost response proves nothing, the request may have been applied.
+     */
+    boolean isNeverSent(R<?> r) {
+        int status = r.getStatus();
+        if (status == R.Status.ConnectFailed.getCode() || status == R.Status.NotReadyServe.getCode()
+                || status == R.Status.ClientNotConnected.getCode()) {
+            return true;
+        }
+        for (Throwable cause = r.getException(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+            if (cause instanceof TransportException) {
+                Integer code = ((TransportException) cause).getCode();
+                return TransportException.CONNECT_EXCEPTION.equals(code)
+                        || TransportException.RPC_CHANNEL_NULL_EXCEPTION.equals(code);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransient(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CodecException) {
+                return false;
+            }
+            if (cause instanceof RpcException) {
+                Integer code = ((RpcException) cause).getCode();
+                return !StarlightRpcException.BAD_REQUEST.equals(code)
+                        && !StarlightRpcException.SERVICE_NOT_FOUND_EXCEPTION.equals(code)
+                        && !StarlightRpcException.METHOD_NOT_FOUND_EXCEPTION.equals(code)
+                        && !StarlightRpcException.MSG_NULL_EXCEPTION.equals(code);
+            }
+            if (cause instanceof TimeoutException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.liumy213.client;
+
+/**
+ * Caps the retries of a client: within a sliding window, retries can be at most <code>ratio</code> of
+ * the requests plus <code>minRetriesPerSecond</code> per second of the window.
+ */
+class RetryBudget {
+    private static final int WINDOW_SECONDS = 10;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double ratio;
+    private final int minRetriesPerSecond;
+    private final long[] seconds = new long[WINDOW_SECONDS];
+    private final long[] requests = new long[WINDOW_SECONDS];
+    private final long[] retries = new long[WINDOW_SECONDS];
+
+    RetryBudget(double ratio, int minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+    }
+
+    synchronized void onRequest() {
+        requests[slot(currentSecond())]++;
+    }
+
+    /**
+     * Takes one retry from the budget.
+     *
+     * @return false if the budget is used up and the request must not be retried
+     */
+    synchronized boolean tryRetry() {
+        long now = currentSecond();
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < WINDOW_SECONDS; ++i) {
+            if (now - seconds[i] < WINDOW_SECONDS) {
+                totalRequests += requests[i];
+                totalRetries += retries[i];
+            }
+        }
+        if (totalRetries >= totalRequests * ratio + (long) minRetriesPerSecond * WINDOW_SECONDS) {
+            return false;
+        }
+        retries[slot(now)]++;
+        return true;
+    }
+
+    private int slot(long second) {
+        int slot = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        if (seconds[slot] != second) {
+            seconds[slot] = second;
+            requests[slot] = 0;
+            retries[slot] = 0;
+        }
+        return slot;
+    }
+
+    private static long currentSecond() {
+        return System.nanoTime() / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,383 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.response.SearchResultUtils;
+import io.github.liumy213.rpc.SearchResponse;
+import io.github.liumy213.rpc.SearchResultData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Merges concurrent searches with identical search settings into one multi-nq request.
+ * A batch is sent when it reaches the max nq or when the window of its first search expires,
+ * the response is then split by target queries and each caller gets back only its own slice.
+ * The batch is sent with the latest deadline of its searches, each search still times out at its own deadline.
+ */
+class SearchCoalescer {
+    private final BiFunction<SearchParam, AbstractVectorSearchBrpcClient.CallContext,
+            CompletableFuture<R<SearchResponse>>> sender;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private final int maxNq;
+    private final Map<BatchKey, Batch> pending = new HashMap<>();
+
+    SearchCoalescer(BiFunction<SearchParam, AbstractVectorSearchBrpcClient.CallContext,
+                            CompletableFuture<R<SearchResponse>>> sender,
+                    ScheduledExecutorService scheduler, long windowNanos, int maxNq) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.windowNanos = windowNanos;
+        this.maxNq = maxNq;
+    }
+
+    CompletableFuture<R<SearchResponse>> submit(SearchParam requestParam,
+                                                AbstractVectorSearchBrpcClient.CallContext context) {
+        int nq = requestParam.getNQ().intValue();
+        BatchKey key = BatchKey.of(requestParam);
+        // a malformed search is sent alone so that it fails without failing a batch
+        if (nq >= maxNq || key == null) {
+            return sender.apply(requestParam, context);
+        }
+
+        PendingSearch search = new PendingSearch(requestParam, context, nq);
+        Batch overflow = null;
+        Batch full = null;
+        synchronized (pending) {
+            Batch batch = pending.get(key);
+            if (batch != null && batch.nq + nq > maxNq) {
+                pending.remove(key);
+                overflow = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                Batch created = new Batch();
+                created.timer = scheduler.schedule(() -> expire(key, created), windowNanos, TimeUnit.NANOSECONDS);
+                pending.put(key, created);
+                batch = created;
+            }
+            batch.add(search);
+            if (batch.nq >= maxNq) {
+                pending.remove(key);
+                full = batch;
+            }
+        }
+
+        if (overflow != null) {
+            send(overflow);
+        }
+        if (full != null) {
+            send(full);
+        }
+        return search.future;
+    }
+
+    private void expire(BatchKey key, Batch batch) {
+        synchronized (pending) {
+            if (pending.get(key) != batch) {
+                return;
+            }
+            pending.remove(key);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        batch.timer.cancel(false);
+        if (batch.searches.size() == 1) {
+            PendingSearch search = batch.searches.get(0);
+            sender.apply(search.requestParam, search.context).whenComplete((r, e) ->
+                    search.future.complete(e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r));
+            return;
+        }
+
+        List<Long> deadlines = new ArrayList<>(batch.searches.size());
+        batch.searches.forEach(search -> deadlines.add(search.context.getDeadlineNanos()));
+        long deadline = latestDeadline(deadlines);
+        SearchParam merged;
+        try {
+            merged = merge(batch.requestParams(), timeoutOf(deadline));
+        } catch (Exception e) {
+            batch.searches.forEach(search -> search.future.complete(R.failed(e)));
+            return;
+        }
+        // a caller with a short timeout gives up on its own, without failing the other callers
+        batch.searches.forEach(search -> expireAt(search.future, search.context.getDeadlineNanos(), scheduler));
+        // the batch is shared, a caller cancelling its search doesn't cancel the batch
+        sender.apply(merged, new AbstractVectorSearchBrpcClient.CallContext(deadline, null))
+                .whenComplete((r, e) -> {
+                    List<R<SearchResponse>> results = split(
+                            e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r, batch.requestParams());
+                    for (int i = 0; i < results.size(); i++) {
+                        batch.searches.get(i).future.complete(results.get(i));
+                    }
+                });
+    }
+
+    /**
+     * Returns the deadline of a request shared by several calls: the latest deadline of the calls,
+     * or no deadline if one of them has none.
+     */
+    static long latestDeadline(List<Long> deadlines) {
+        long latest = 0;
+        for (long deadline : deadlines) {
+            if (deadline == 0) {
+                return 0;
+            }
+            if (latest == 0 || deadline - latest > 0) {
+                latest = deadline;
+            }
+        }
+        return latest;
+    }
+
+    static long timeoutOf(long deadlineNanos) {
+        return deadlineNanos == 0 ? 0 : Math.max(deadlineNanos - System.nanoTime(), 1);
+    }
+
+    /**
+     * Fails the search of one caller at its deadline if the shared request has not answered by then.
+     *
+     * @param deadlineNanos deadline of the caller, zero means no deadline
+     */
+    static void expireAt(CompletableFuture<R<SearchResponse>> future, long deadlineNanos,
+                         ScheduledExecutorService scheduler) {
+        if (deadlineNanos == 0 || future.isDone()) {
+            return;
+        }
+        try {
+            ScheduledFuture<?> timer = scheduler.schedule(() -> future.complete(R.failed(
+                    new StarlightRpcException(StarlightRpcException.TIME_OUT_EXCEPTION, "Deadline exceeded"))),
+                    Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            future.whenComplete((r, e) -> timer.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // the client is closed, the shared request completes the search
+        }
+    }
+
+    /**
+     * Merges searches with the same {@link BatchKey} into one multi-nq search, the target data is concatenated
+     * in order.
+     *
+     * @param timeoutNanos timeout of the merged search, the callers apply their own timeouts to their results
+     */
+    static SearchParam merge(List<SearchParam> requestParams, long timeoutNanos) {
+        SearchParam first = requestParams.get(0);
+        List<?> searchData = mergeSearchData(requestParams);
+
+        SearchParam.Builder builder = SearchParam.newBuilder()
+                .withCollectionName(first.getCollectionName())
+                .withTopK(first.getTopK())
+                .withExpr(first.getExpr())
+                .withParams(first.getParams())
+                .withOutFields(first.getOutFields())
+                .withSearchData(searchData)
+                .withTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        if (first.getVectorFieldName() != null) {
+            builder.withVectorFieldName(first.getVectorFieldName());
+        } else {
+            builder.withTextFieldName(first.getTextFieldName());
+        }
+        return builder.build();
+    }
+
+    private static List<?> mergeSearchData(List<SearchParam> requestParams) {
+        List<FloatVectors> vectors = new ArrayList<>(requestParams.size());
+        int nq = 0;
+        for (SearchParam requestParam : requestParams) {
+            nq += requestParam.getSearchData().size();
+            if (vectors != null && requestParam.getSearchData() instanceof FloatVectors) {
+                vectors.add((FloatVectors) requestParam.getSearchData());
+            } else {
+                vectors = null;
+            }
+        }
+        // keep primitive vectors unboxed if every search in the batch uses them
+        if (vectors != null) {
+            return FloatVectors.concat(vectors);
+        }
+
+        List<Object> searchData = new ArrayList<>(nq);
+        for (SearchParam requestParam : requestParams) {
+            searchData.addAll(requestParam.getSearchData());
+        }
+        return searchData;
+    }
+
+    /**
+     * Splits the result of a merged search into the results of the searches it was merged from.
+     * A failed result is the result of every search.
+     */
+    static List<R<SearchResponse>> split(R<SearchResponse> r, List<SearchParam> requestParams) {
+        List<R<SearchResponse>> results = new ArrayList<>(requestParams.size());
+        if (r.getStatus() != R.Status.Success.getCode()) {
+            requestParams.forEach(requestParam -> results.add(r));
+            return results;
+        }
+
+        SearchResponse response = r.getData();
+        int offset = 0;
+        for (SearchParam requestParam : requestParams) {
+            int nq = requestParam.getNQ().intValue();
+            try {
+                SearchResultData data = SearchResultUtils.slice(response.getResults(), offset, offset + nq);
+                results.add(R.success(SearchResponse.newBuilder()
+                        .setStatus(response.getStatus())
+                        .setCollectionName(response.getCollectionName())
+                        .setResults(data)
+                        .build()));
+            } catch (Exception e) {
+                results.add(R.failed(e));
+            }
+            offset += nq;
+        }
+        return results;
+    }
+
+    private static final class PendingSearch {
+        private final SearchParam requestParam;
+        private final AbstractVectorSearchBrpcClient.CallContext context;
+        private final int nq;
+        private final CompletableFuture<R<SearchResponse>> future = new CompletableFuture<>();
+
+        private PendingSearch(SearchParam requestParam, AbstractVectorSearchBrpcClient.CallContext context, int nq) {
+            this.requestParam = requestParam;
+            this.context = context;
+            this.nq = nq;
+        }
+    }
+
+    private static final class Batch {
+        private final List<PendingSearch> searches = new ArrayList<>();
+        private int nq = 0;
+        private ScheduledFuture<?> timer;
+
+        private void add(PendingSearch search) {
+            searches.add(search);
+            nq += search.nq;
+        }
+
+        private List<SearchParam> requestParams() {
+            List<SearchParam> requestParams = new ArrayList<>(searches.size());
+            searches.forEach(search -> requestParams.add(search.requestParam));
+            return requestParams;
+        }
+    }
+
+    /**
+     * Searches can only share one request if everything except the target data is identical,
+     * and their target data has the same kind and dimension.
+     */
+    static final class BatchKey {
+        private final String collectionName;
+        private final String vectorFieldName;
+        private final String textFieldName;
+        // dimension of the target vectors, zero for text searches
+        private final int dimension;
+        private final int topK;
+        private final String expr;
+        private final String params;
+        private final List<String> outFields;
+
+        private BatchKey(SearchParam requestParam, int dimension) {
+            this.collectionName = requestParam.getCollectionName();
+            this.vectorFieldName = requestParam.getVectorFieldName();
+            this.textFieldName = requestParam.getTextFieldName();
+            this.dimension = dimension;
+            this.topK = requestParam.getTopK();
+            this.expr = requestParam.getExpr();
+            this.params = requestParam.getParams();
+            // copied since the key can outlive the search, as a key of the semantic cache
+            this.outFields = new ArrayList<>(requestParam.getOutFields());
+        }
+
+        String getCollectionName() {
+            return collectionName;
+        }
+
+        /**
+         * Returns the key of a search, or null if its target data doesn't match its target field and
+         * it must not be merged with other searches.
+         */
+        static BatchKey of(SearchParam requestParam) {
+            int dimension = requestParam.getVectorFieldName() != null
+                    ? dimensionOf(requestParam.getSearchData()) : textsOf(requestParam.getSearchData());
+            return dimension < 0 ? null : new BatchKey(requestParam, dimension);
+        }
+
+        /**
+         * Returns the dimension of target vectors, -1 if they are not float vectors of one dimension.
+         */
+        private static int dimensionOf(List<?> searchData) {
+            if (searchData instanceof FloatVectors) {
+                return ((FloatVectors) searchData).getDim();
+            }
+            int dimension = -1;
+            for (Object vector : searchData) {
+                if (!(vector instanceof List) || ((List<?>) vector).isEmpty()) {
+                    return -1;
+                }
+                List<?> values = (List<?>) vector;
+                if (dimension != -1 && values.size() != dimension) {
+                    return -1;
+                }
+                for (Object value : values) {
+                    if (!(value instanceof Float)) {
+                        return -1;
+                    }
+                }
+                dimension = values.size();
+            }
+            return dimension;
+        }
+
+        /**
+         * Returns 0 if every target is a text, -1 otherwise.
+         */
+        private static int textsOf(List<?> searchData) {
+            for (Object text : searchData) {
+                if (!(text instanceof String)) {
+                    return -1;
+                }
+            }
+            return searchData.isEmpty() ? -1 : 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey that = (BatchKey) o;
+            return dimension == that.dimension
+                    && topK == that.topK
+                    && collectionName.equals(that.collectionName)
+                    && Objects.equals(vectorFieldName, that.vectorFieldName)
+                    && Objects.equals(textFieldName, that.textFieldName)
+                    && Objects.equals(expr, that.expr)
+                    && Objects.equals(params, that.params)
+                    && Objects.equals(outFields, that.outFields);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(collectionName, vectorFieldName, textFieldName, dimension, topK, expr, params,
+                    outFields);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.HedgeParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends a search again to another replica if the first attempt has not answered within the hedge delay.
+ * The first successful response wins and the other attempt is cancelled, a failed attempt only fails the
+ * search if the other one fails too. Hedges are capped by a budget so that they cannot amplify the load
+ * when every replica is slow.
+ * <p>
+ * brpc cannot abort a request which is already sent, cancelling an attempt drops its response.
+ */
+class SearchHedger {
+    private static final Logger logger = LoggerFactory.getLogger(SearchHedger.class);
+
+    private final HedgeParam hedgeParam;
+    private final EndpointPool endpointPool;
+    private final ScheduledExecutorService scheduler;
+    private final RetryBudget budget;
+    private final LatencyTracker latencyTracker;
+
+    SearchHedger(HedgeParam hedgeParam, EndpointPool endpointPool, ScheduledExecutorService scheduler) {
+        this.hedgeParam = hedgeParam;
+        this.endpointPool = endpointPool;
+        this.scheduler = scheduler;
+        this.budget = new RetryBudget(hedgeParam.getBudgetRatio(), 0);
+        this.latencyTracker = new LatencyTracker(hedgeParam.getLatencyPercentile());
+    }
+
+    <T> CompletableFuture<T> invoke(String collectionName, AbstractVectorSearchBrpcClient.CallContext context,
+                                    AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        budget.onRequest();
+        EndpointPool.EndpointState primary = endpointPool.select(null, OperationType.SEARCH, collectionName);
+        if (primary == null) {
+            return EndpointPool.circuitOpen(collectionName);
+        }
+        CompletableFuture<T> first = attempt(primary, collectionName, context, call);
+        long delay = delayNanos();
+        if (delay < 0) {
+            return first;
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // attempts which may still answer, the hedge is counted before it claims its slot
+        AtomicInteger pending = new AtomicInteger(1);
+        // claimed by the timer to send the hedge, or by the first attempt when it answers before the timer
+        AtomicBoolean hedgeClaimed = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<CompletableFuture<T>> second = new AtomicReference<>();
+        ScheduledFuture<?> timer;
+        try {
+            timer = scheduler.schedule(() -> {
+                if (result.isDone() || context.isExpired()) {
+                    return;
+                }
+                pending.incrementAndGet();
+                if (!hedgeClaimed.compareAndSet(false, true)) {
+                    // the first attempt has answered and completes the search by itself
+                    return;
+                }
+                EndpointPool.EndpointState other = budget.tryRetry()
+                        ? endpointPool.select(primary, OperationType.SEARCH, collectionName) : null;
+                if (other == null) {
+                    // no hedge after all, the first attempt is the last one
+                    if (pending.decrementAndGet() == 0) {
+                        result.completeExceptionally(failure.get());
+                    }
+                    return;
+                }
+                logger.debug("Search has not answered in {}ms, send a hedge",
+                        TimeUnit.NANOSECONDS.toMillis(delay));
+                CompletableFuture<T> hedge = attempt(other, collectionName, context, call);
+                second.set(hedge);
+                hedge.whenComplete((r, e) -> onComplete(result, pending, failure, r, e, first));
+                if (result.isDone()) {
+                    // the first attempt has answered while the hedge was being sent
+                    hedge.cancel(false);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the client is closed
+            return first;
+        }
+        first.whenComplete((r, e) -> {
+            if (hedgeClaimed.compareAndSet(false, true)) {
+                timer.cancel(false);
+                if (e == null) {
+                    result.complete(r);
+                } else {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            onComplete(result, pending, failure, r, e, second.get());
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> attempt(EndpointPool.EndpointState endpoint, String collectionName,
+                                             AbstractVectorSearchBrpcClient.CallContext context,
+                                             AbstractVectorSearchBrpcClient.BrpcCall<T> call) {
+        long begin = System.nanoTime();
+        CompletableFuture<T> future = endpointPool.invoke(endpoint, OperationType.SEARCH, collectionName, context,
+                call);
+        future.whenComplete((r, e) -> {
+            if (e == null) {
+                latencyTracker.record(System.nanoTime() - begin);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Completes the search with the first successful response, or with the first failure once no attempt is left.
+     */
+    private static <T> void onComplete(CompletableFuture<T> result, AtomicInteger pending,
+                                       AtomicReference<Throwable> failure, T response, Throwable throwable,
+                                       CompletableFuture<T> other) {
+        if (throwable == null) {
+            if (result.complete(response) && other != null) {
+                other.cancel(false);
+            }
+            return;
+        }
+        failure.compareAndSet(null, throwable);
+        if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(failure.get());
+        }
+    }
+
+    private long delayNanos() {
+        if (endpointPool.size() < 2) {
+            return -1;
+        }
+        if (hedgeParam.getDelayNanos() > 0) {
+            return hedgeParam.getDelayNanos();
+        }
+        long percentile = latencyTracker.getPercentileNanos();
+        return percentile < 0 ? -1 : Math.max(percentile, hedgeParam.getMinDelayNanos());
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.liumy213.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.github.liumy213.param.SearchCacheParam;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.rpc.SearchResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of search responses keyed by the SHA-256 of the search parameters and target data, which are hashed
+ * directly so that the request is only encoded once, when it is sent.
+ * Responses are kept serialized, which is much smaller than the parsed messages.
+ * Invalidating a collection bumps its generation, the entries put under an older generation are dropped when
+ * they are read or evicted, so an invalidation doesn't scan the cache.
+ */
+class SearchResultCache {
+    // rough cost of an entry besides the response bytes: key, entry and map node
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final SearchCacheParam param;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    // guarded by this
+    private final LinkedHashMap<ByteString, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    SearchResultCache(SearchCacheParam param) {
+        this.param = param;
+    }
+
+    /**
+     * Computes the cache key of a search from its parameters and target data, without encoding the request.
+     *
+     * @return the key, or null if the target data has an unknown type, the search is then sent without the cache
+     */
+    Key keyOf(SearchParam requestParam) {
+        KeyHasher hasher;
+        try {
+            hasher = new KeyHasher(MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        hasher.putString(requestParam.getCollectionName());
+        hasher.putString(requestParam.getVectorFieldName());
+        hasher.putString(requestParam.getTextFieldName());
+        hasher.putInt(requestParam.getTopK());
+        hasher.putString(requestParam.getExpr());
+        hasher.putString(requestParam.getParams());
+        List<String> outFields = requestParam.getOutFields();
+        hasher.putInt(outFields == null ? -1 : outFields.size());
+        if (outFields != null) {
+            outFields.forEach(hasher::putString);
+        }
+        if (!hasher.putSearchData(requestParam.getSearchData())) {
+            return null;
+        }
+        String collectionName = requestParam.getCollectionName();
+        return new Key(collectionName, ByteString.copyFrom(hasher.digest()), generationOf(collectionName));
+    }
+
+    SearchResponse get(Key key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key.hash);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expireAt >= 0 || entry.generation != generationOf(key.collectionName)) {
+                remove(key.hash);
+                return null;
+            }
+        }
+        try {
+            return SearchResponse.parseFrom(entry.response);
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches a response, unless the collection has been invalidated since the key was computed.
+     */
+    void put(Key key, SearchResponse response) {
+        if (key.generation != generationOf(key.collectionName)) {
+            return;
+        }
+        ByteString serialized = response.toByteString();
+        long size = serialized.size() + ENTRY_OVERHEAD;
+        if (size > param.getMaxBytes()) {
+            return;
+        }
+        Entry entry = new Entry(serialized, key.generation, System.nanoTime() + param.getTtlNanos(), size);
+        synchronized (this) {
+            remove(key.hash);
+            entries.put(key.hash, entry);
+            bytes += size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > param.getMaxEntries() || bytes > param.getMaxBytes()) && eldest.hasNext()) {
+                bytes -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    void invalidate(String collectionName) {
+        generations.computeIfAbsent(collectionName, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private long generationOf(String collectionName) {
+        AtomicLong generation = generations.get(collectionName);
+        return generation == null ? 0 : generation.get();
+    }
+
+    private void remove(ByteString hash) {
+        Entry removed = entries.remove(hash);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    /**
+     * Feeds the fields of a search into a digest through a buffer, every value is typed or length-prefixed
+     * so that different searches never produce the same bytes.
+     */
+    private static final class KeyHasher {
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+        private KeyHasher(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putFloat(float value) {
+            ensure(Float.BYTES);
+            buffer.putFloat(value);
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            flush();
+            digest.update(bytes);
+        }
+
+        private boolean putSearchData(List<?> searchData) {
+            putInt(searchData.size());
+            if (searchData instanceof FloatVectors) {
+                FloatVectors vectors = (FloatVectors) searchData;
+                float[] vector = new float[vectors.getDim()];
+                putInt(vectors.getDim());
+                for (int i = 0; i < vectors.size(); i++) {
+                    vectors.copyVector(i, vector, 0);
+                    for (float value : vector) {
+                        putFloat(value);
+                    }
+                }
+                return true;
+            }
+            for (Object target : searchData) {
+                if (target instanceof String) {
+                    putString((String) target);
+                } else if (target instanceof List) {
+                    List<?> vector = (List<?>) target;
+                    putInt(vector.size());
+                    for (Object value : vector) {
+                        if (!(value instanceof Number)) {
+                            return false;
+                        }
+                        putFloat(((Number) value).floatValue());
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte[] digest() {
+            flush();
+            return digest.digest();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    static final class Key {
+        private final String collectionName;
+        private final ByteString hash;
+        private final long generation;
+
+        private Key(String collectionName, ByteString hash, long generation) {
+            this.collectionName = collectionName;
+            this.hash = hash;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Entry {
+        private final ByteString response;
+        private final long generation;
+        private final long expireAt;
+        private final long size;
+
+        private Entry(ByteString response, long generation, long expireAt, long size) {
+            this.response = response;
+            this.generation = generation;
+            this.expireAt = expireAt;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.R;
+import io.github.liumy213.rpc.SearchRequest;
+import io.github.liumy213.rpc.SearchResponse;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Sends one request for identical searches in flight at the same time.
+ * Requests are identical if their <code>SearchRequest</code> messages are equal, which covers the collection,
+ * query data, topK, expr, params and output fields. The first caller sends the request, later callers wait for
+ * its response; a search arriving after the response is sent again. Every caller gets its own future and result,
+ * so a caller cancelling its future doesn't affect the others.
+ * <p>
+ * The shared request is sent with the deadline of the first caller, a later caller only joins it if its own deadline
+ * is not later, otherwise it sends a new request which later searches join instead. Each caller still times out at
+ * its own deadline, and when every caller has given up the shared request is cancelled.
+ */
+class SearchSingleFlight {
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<SearchRequest, Flight> inFlight = new ConcurrentHashMap<>();
+
+    SearchSingleFlight(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Joins the flight of an identical search, or sends the request if there is none.
+     *
+     * @param deadlineNanos deadline of the caller, zero means no deadline
+     * @param sender sends the shared request within the given context, which is cancelled when every caller
+     *               has given up
+     */
+    CompletableFuture<R<SearchResponse>> execute(
+            SearchRequest request, long deadlineNanos,
+            Function<AbstractVectorSearchBrpcClient.CallContext, CompletableFuture<R<SearchResponse>>> sender) {
+        Flight flight;
+        while (true) {
+            Flight created = new Flight(deadlineNanos);
+            flight = inFlight.putIfAbsent(request, created);
+            if (flight == null) {
+                flight = created;
+                send(request, flight, sender);
+                break;
+            }
+            if (flight.join(deadlineNanos)) {
+                break;
+            }
+            // the flight was abandoned by all its callers or ends before the deadline of this caller
+            if (inFlight.replace(request, flight, created)) {
+                flight = created;
+                send(request, flight, sender);
+                break;
+            }
+        }
+
+        Flight joined = flight;
+        CompletableFuture<R<SearchResponse>> result = new CompletableFuture<>();
+        joined.future.thenAccept(r -> result.complete(copyOf(r)));
+        SearchCoalescer.expireAt(result, deadlineNanos, scheduler);
+        result.whenComplete((r, e) -> {
+            if (joined.leave()) {
+                inFlight.remove(request, joined);
+                joined.call.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private void send(
+            SearchRequest request, Flight flight,
+            Function<AbstractVectorSearchBrpcClient.CallContext, CompletableFuture<R<SearchResponse>>> sender) {
+        CompletableFuture<R<SearchResponse>> sent;
+        try {
+            // a caller giving up while the request is being sent cancels it through the context as well
+            sent = sender.apply(new AbstractVectorSearchBrpcClient.CallContext(flight.deadlineNanos, flight.call));
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.completedFuture(R.failed(e));
+        }
+        sent.whenComplete((r, e) -> {
+            inFlight.remove(request, flight);
+            flight.future.complete(e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r);
+        });
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static R<SearchResponse> copyOf(R<SearchResponse> r) {
+        R<SearchResponse> copy = new R<>();
+        copy.setStatus(r.getStatus());
+        copy.setException(r.getException());
+        copy.setData(r.getData());
+        return copy;
+    }
+
+    private static final class Flight {
+        // deadline of the shared request, the latest deadline of the callers
+        private final long deadlineNanos;
+        private final CompletableFuture<R<SearchResponse>> future = new CompletableFuture<>();
+        // cancelled when every caller has given up, which cancels the shared request
+        private final CompletableFuture<Void> call = new CompletableFuture<>();
+        // guarded by this, the caller which creates the flight has joined it
+        private int callers = 1;
+        private boolean abandoned = false;
+
+        private Flight(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return false if the flight is abandoned, or ends before the deadline of the caller, and cannot be joined
+         */
+        private synchronized boolean join(long callerDeadlineNanos) {
+            if (abandoned || SearchCoalescer.latestDeadline(
+                    Arrays.asList(deadlineNanos, callerDeadlineNanos)) != deadlineNanos) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        /**
+         * @return true if the last caller has given up before the response, the flight is then abandoned
+         */
+        private synchronized boolean leave() {
+            callers--;
+            if (callers == 0 && !future.isDone()) {
+                abandoned = true;
+            }
+            return abandoned;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.SearchSplitParam;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.response.SearchResultUtils;
+import io.github.liumy213.rpc.SearchResponse;
+import io.github.liumy213.rpc.SearchResultData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Splits searches with more target queries than a chunk into ranges of queries.
+ * The chunks are converted and sent on the executor with bounded concurrency, and the results of the chunks are
+ * merged in query order. The first failed chunk fails the search and cancels the chunks in flight.
+ */
+class SearchSplitter {
+    private final SearchSplitParam param;
+    private final Executor executor;
+
+    SearchSplitter(SearchSplitParam param, Executor executor) {
+        this.param = param;
+        this.executor = executor;
+    }
+
+    boolean shouldSplit(SearchParam requestParam) {
+        return requestParam.getNQ() > chunkNq(requestParam);
+    }
+
+    CompletableFuture<R<SearchResponse>> search(SearchParam requestParam,
+                                                Function<SearchParam, CompletableFuture<R<SearchResponse>>> sender) {
+        return new SplitSearch(requestParam, chunkNq(requestParam), sender).run();
+    }
+
+    private int chunkNq(SearchParam requestParam) {
+        List<?> searchData = requestParam.getSearchData();
+        long queryBytes = Math.max(PayloadSizes.estimate(searchData) / Math.max(searchData.size(), 1), 1);
+        return (int) Math.max(Math.min(param.getMaxChunkNq(), param.getMaxChunkBytes() / queryBytes), 1);
+    }
+
+    private final class SplitSearch extends ChunkRunner<SearchResponse> {
+        private final SearchParam requestParam;
+        private final int chunkNq;
+        private final Function<SearchParam, CompletableFuture<R<SearchResponse>>> sender;
+
+        SplitSearch(SearchParam requestParam, int chunkNq,
+                    Function<SearchParam, CompletableFuture<R<SearchResponse>>> sender) {
+            // searches don't change the server, the chunks in flight are cancelled after a failure
+            super(requestParam.getSearchData().size(), param.getConcurrency(), false, executor);
+            this.requestParam = requestParam;
+            this.chunkNq = chunkNq;
+            this.sender = sender;
+        }
+
+        @Override
+        protected int nextChunkSize() {
+            return chunkNq;
+        }
+
+        @Override
+        protected CompletableFuture<R<SearchResponse>> send(int from, int to) {
+            SearchParam.Builder builder = SearchParam.newBuilder()
+                    .withCollectionName(requestParam.getCollectionName())
+                    .withTopK(requestParam.getTopK())
+                    .withExpr(requestParam.getExpr())
+                    .withParams(requestParam.getParams())
+                    .withOutFields(requestParam.getOutFields())
+                    .withSearchData(requestParam.getSearchData().subList(from, to))
+                    .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS);
+            if (requestParam.getVectorFieldName() != null) {
+                builder.withVectorFieldName(requestParam.getVectorFieldName());
+            } else {
+                builder.withTextFieldName(requestParam.getTextFieldName());
+            }
+            return sender.apply(builder.build());
+        }
+
+        @Override
+        protected SearchResponse merge(List<SearchResponse> responses) {
+            List<SearchResultData> results = new ArrayList<>(responses.size());
+            responses.forEach(response -> results.add(response.getResults()));
+            return responses.get(0).toBuilder().setResults(SearchResultUtils.merge(results)).build();
+        }
+    }
+}
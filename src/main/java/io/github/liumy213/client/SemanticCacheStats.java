@@ -0,0 +1,37 @@
+package io.github.liumy213.client;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of the counters of the semantic search cache.
+ * The distances of the hits bound how far a served result is from the query which produced it,
+ * compare them with the epsilon to tune it.
+ */
+@Getter
+@ToString
+public class SemanticCacheStats {
+    private final long hits;
+    private final long misses;
+    private final int entries;
+    private final double meanHitDistance;
+    private final double maxHitDistance;
+
+    SemanticCacheStats(long hits, long misses, int entries, double meanHitDistance, double maxHitDistance) {
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = entries;
+        this.meanHitDistance = meanHitDistance;
+        this.maxHitDistance = maxHitDistance;
+    }
+
+    /**
+     * Share of the cacheable searches answered from the cache.
+     *
+     * @return hit ratio, zero if there was no search
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,285 @@
+package io.github.liumy213.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.github.liumy213.param.MetricType;
+import io.github.liumy213.param.SemanticCacheParam;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.rpc.SearchResponse;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of search responses which answers searches with a query vector close to a cached one.
+ * Searches with one query vector are grouped by collection and search settings, each group keeps its recent
+ * query vectors in buckets of a random hyperplane hash. A query is compared to the queries of its bucket and of
+ * the buckets one bit away, and is answered with the response of the nearest one within epsilon.
+ * Invalidating a collection drops its groups and bumps its generation, so a response of a search sent before
+ * the invalidation is not cached.
+ */
+class SemanticSearchCache {
+    // bound of the groups of distinct search settings, the least recently used group is dropped beyond it
+    private static final int MAX_GROUPS = 256;
+
+    private final SemanticCacheParam param;
+    private final Random random = new Random();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    // guarded by this
+    private final LinkedHashMap<SearchCoalescer.BatchKey, Group> groups =
+            new LinkedHashMap<SearchCoalescer.BatchKey, Group>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SearchCoalescer.BatchKey, Group> eldest) {
+            return size() > MAX_GROUPS;
+        }
+    };
+    private long hits;
+    private long misses;
+    private double hitDistanceSum;
+    private double maxHitDistance;
+
+    SemanticSearchCache(SemanticCacheParam param) {
+        this.param = param;
+    }
+
+    /**
+     * Extracts the query of a search.
+     *
+     * @return the query, or null if the search has no single query vector, it is then sent without the cache
+     */
+    Query queryOf(SearchParam requestParam) {
+        if (StringUtils.isBlank(requestParam.getVectorFieldName()) || requestParam.getSearchData().size() != 1) {
+            return null;
+        }
+        float[] vector = vectorOf(requestParam.getSearchData());
+        if (vector == null) {
+            return null;
+        }
+        if (param.getMetricType() == MetricType.COSINE) {
+            double norm = Math.sqrt(dot(vector, vector));
+            if (norm == 0) {
+                return null;
+            }
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= norm;
+            }
+        }
+        SearchCoalescer.BatchKey groupKey = SearchCoalescer.BatchKey.of(requestParam);
+        if (groupKey == null) {
+            return null;
+        }
+        String collectionName = requestParam.getCollectionName();
+        return new Query(groupKey, vector, generationOf(collectionName));
+    }
+
+    SearchResponse get(Query query) {
+        ByteString response;
+        synchronized (this) {
+            Group group = groups.get(query.groupKey);
+            Entry nearest = null;
+            double distance = Double.MAX_VALUE;
+            if (group != null && group.dim == query.vector.length) {
+                long now = System.nanoTime();
+                int signature = group.signatureOf(query.vector);
+                for (int bit = -1; bit < param.getHashBits(); bit++) {
+                    List<Entry> bucket = group.buckets.get(bit < 0 ? signature : signature ^ (1 << bit));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Entry entry : bucket) {
+                        double d = distance(query.vector, entry.vector);
+                        if (d < distance && now - entry.expireAt < 0) {
+                            nearest = entry;
+                            distance = d;
+                        }
+                    }
+                }
+            }
+            if (nearest == null || distance > param.getEpsilon()) {
+                misses++;
+                return null;
+            }
+            hits++;
+            hitDistanceSum += distance;
+            maxHitDistance = Math.max(maxHitDistance, distance);
+            response = nearest.response;
+        }
+        try {
+            return SearchResponse.parseFrom(response);
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches the response of a query, unless the collection has been invalidated since the query was extracted.
+     */
+    void put(Query query, SearchResponse response) {
+        if (query.generation != generationOf(query.groupKey.getCollectionName())) {
+            return;
+        }
+        ByteString serialized = response.toByteString();
+        synchronized (this) {
+            Group group = groups.get(query.groupKey);
+            if (group == null || group.dim != query.vector.length) {
+                group = new Group(query.vector.length, param.getHashBits(), random);
+                groups.put(query.groupKey, group);
+            }
+            long now = System.nanoTime();
+            Deque<Entry> order = group.order;
+            while (!order.isEmpty() && (order.size() >= param.getMaxEntries() || now - order.peek().expireAt >= 0)) {
+                group.remove(order.poll());
+            }
+            Entry entry = new Entry(query.vector, group.signatureOf(query.vector), serialized,
+                    now + param.getTtlNanos());
+            order.add(entry);
+            group.buckets.computeIfAbsent(entry.signature, s -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    void invalidate(String collectionName) {
+        generations.computeIfAbsent(collectionName, name -> new AtomicLong()).incrementAndGet();
+        synchronized (this) {
+            groups.keySet().removeIf(key -> key.getCollectionName().equals(collectionName));
+        }
+    }
+
+    synchronized SemanticCacheStats stats() {
+        int entries = 0;
+        for (Group group : groups.values()) {
+            entries += group.order.size();
+        }
+        return new SemanticCacheStats(hits, misses, entries, hits == 0 ? 0.0 : hitDistanceSum / hits,
+                maxHitDistance);
+    }
+
+    private long generationOf(String collectionName) {
+        AtomicLong generation = generations.get(collectionName);
+        return generation == null ? 0 : generation.get();
+    }
+
+    private double distance(float[] a, float[] b) {
+        if (param.getMetricType() == MetricType.COSINE) {
+            // both are normalized
+            return 1.0 - dot(a, b);
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            double d = a[i] - b[i];
+            sum += d * d;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // copies the vector, the caller may reuse its buffer
+    private static float[] vectorOf(List<?> searchData) {
+        if (searchData instanceof FloatVectors) {
+            FloatVectors vectors = (FloatVectors) searchData;
+            float[] vector = new float[vectors.getDim()];
+            vectors.copyVector(0, vector, 0);
+            return vector;
+        }
+        Object first = searchData.get(0);
+        if (!(first instanceof List)) {
+            return null;
+        }
+        List<?> values = (List<?>) first;
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            Object value = values.get(i);
+            if (!(value instanceof Float)) {
+                return null;
+            }
+            vector[i] = (Float) value;
+        }
+        return vector;
+    }
+
+    static final class Query {
+        private final SearchCoalescer.BatchKey groupKey;
+        private final float[] vector;
+        private final long generation;
+
+        private Query(SearchCoalescer.BatchKey groupKey, float[] vector, long generation) {
+            this.groupKey = groupKey;
+            this.vector = vector;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Group {
+        private final int dim;
+        private final float[][] hyperplanes;
+        private final Map<Integer, List<Entry>> buckets = new HashMap<>();
+        // in insertion order, which is also the order of expiry
+        private final Deque<Entry> order = new ArrayDeque<>();
+
+        private Group(int dim, int hashBits, Random random) {
+            this.dim = dim;
+            this.hyperplanes = new float[hashBits][dim];
+            for (float[] hyperplane : hyperplanes) {
+                for (int i = 0; i < dim; i++) {
+                    hyperplane[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+
+        private int signatureOf(float[] vector) {
+            int signature = 0;
+            for (int bit = 0; bit < hyperplanes.length; bit++) {
+                if (dot(hyperplanes[bit], vector) >= 0) {
+                    signature |= 1 << bit;
+                }
+            }
+            return signature;
+        }
+
+        private void remove(Entry entry) {
+            List<Entry> bucket = buckets.get(entry.signature);
+            Iterator<Entry> it = bucket.iterator();
+            while (it.hasNext()) {
+                if (it.next() == entry) {
+                    it.remove();
+                    break;
+                }
+            }
+            if (bucket.isEmpty()) {
+                buckets.remove(entry.signature);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final float[] vector;
+        private final int signature;
+        private final ByteString response;
+        private final long expireAt;
+
+        private Entry(float[] vector, int signature, ByteString response, long expireAt) {
+            this.vector = vector;
+            this.signature = signature;
+            this.response = response;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.Endpoint;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Snapshot of a shard of a {@link ShardedVectorSearchClient}: where it is and how its requests went.
+ */
+@Getter
+@ToString
+public class ShardStats {
+    private final int index;
+    private final List<Endpoint> endpoints;
+    private final String collectionSuffix;
+    private final long requests;
+    private final long failures;
+    private final long meanLatencyNanos;
+    // -1 until the shard has enough samples
+    private final long p99LatencyNanos;
+
+    ShardStats(int index, List<Endpoint> endpoints, String collectionSuffix, long requests, long failures,
+               long meanLatencyNanos, long p99LatencyNanos) {
+        this.index = index;
+        this.endpoints = endpoints;
+        this.collectionSuffix = collectionSuffix;
+        this.requests = requests;
+        this.failures = failures;
+        this.meanLatencyNanos = meanLatencyNanos;
+        this.p99LatencyNanos = p99LatencyNanos;
+    }
+}
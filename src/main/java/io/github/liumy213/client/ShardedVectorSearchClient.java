@@ -0,0 +1,595 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.IllegalResponseException;
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.Constant;
+import io.github.liumy213.param.ConnectParam;
+import io.github.liumy213.param.MetricType;
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.RpcStatus;
+import io.github.liumy213.param.ShardingParam;
+import io.github.liumy213.param.collection.CreateCollectionParam;
+import io.github.liumy213.param.collection.DescribeCollectionParam;
+import io.github.liumy213.param.collection.DropCollectionParam;
+import io.github.liumy213.param.collection.HasCollectionParam;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.param.index.CreateIndexParam;
+import io.github.liumy213.param.index.DropIndexParam;
+import io.github.liumy213.response.SearchResultUtils;
+import io.github.liumy213.rpc.DescribeCollectionResponse;
+import io.github.liumy213.rpc.FieldData;
+import io.github.liumy213.rpc.InsertResponse;
+import io.github.liumy213.rpc.LongArray;
+import io.github.liumy213.rpc.SearchResponse;
+import io.github.liumy213.rpc.SearchResultData;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Client of a logical collection spread over several shards, see {@link ShardingParam}.
+ * Collection and index operations are applied to every shard, inserts are routed by the hash of their primary key,
+ * and searches are sent to every shard with their hits merged by score. A search fails if any shard fails, an insert
+ * returns the first failure of its shards and the rows inserted into the other shards are kept.
+ */
+public class ShardedVectorSearchClient implements VectorSearchClient, VectorSearchAsyncClient, AutoCloseable {
+    private final ShardingParam shardingParam;
+    private final List<Shard> shards;
+    private final List<VectorSearchServiceClient> clients;
+    // spreads inserts without primary keys
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedVectorSearchClient(@NonNull ShardingParam shardingParam) {
+        this.shardingParam = shardingParam;
+        Map<ConnectParam, VectorSearchServiceClient> clientOf = new IdentityHashMap<>();
+        List<Shard> shards = new ArrayList<>();
+        try {
+            for (ShardingParam.Shard shard : shardingParam.getShards()) {
+                VectorSearchServiceClient client = clientOf.get(shard.getConnectParam());
+                if (client == null) {
+                    client = new VectorSearchServiceClient(shard.getConnectParam());
+                    clientOf.put(shard.getConnectParam(), client);
+                }
+                shards.add(new Shard(shards.size(), shard, client));
+            }
+        } catch (RuntimeException e) {
+            clientOf.values().forEach(VectorSearchServiceClient::close);
+            throw e;
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        this.clients = new ArrayList<>(clientOf.values());
+    }
+
+    public ShardingParam getShardingParam() {
+        return shardingParam;
+    }
+
+    /**
+     * Returns the shard which rows with a primary key are inserted into.
+     *
+     * @param primaryKey Int64 primary key
+     * @return index of the shard in {@link ShardingParam#getShards()}
+     */
+    public int getShardIndexOf(long primaryKey) {
+        return (int) Math.floorMod(mix(primaryKey), (long) shards.size());
+    }
+
+    /**
+     * Returns the location and the request counters of every shard.
+     *
+     * @return one {@link ShardStats} per shard, in the order of the shards
+     */
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.size());
+        shards.forEach(shard -> stats.add(shard.stats()));
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(VectorSearchServiceClient::close);
+    }
+
+    @Override
+    public R<Boolean> hasCollection(HasCollectionParam requestParam) {
+        return await(hasCollectionAsync(requestParam));
+    }
+
+    @Override
+    public R<RpcStatus> createCollection(CreateCollectionParam requestParam) {
+        return await(createCollectionAsync(requestParam));
+    }
+
+    @Override
+    public R<RpcStatus> dropCollection(DropCollectionParam requestParam) {
+        return await(dropCollectionAsync(requestParam));
+    }
+
+    @Override
+    public R<DescribeCollectionResponse> describeCollection(DescribeCollectionParam requestParam) {
+        return await(describeCollectionAsync(requestParam));
+    }
+
+    @Override
+    public R<RpcStatus> createIndex(CreateIndexParam requestParam) {
+        return await(createIndexAsync(requestParam));
+    }
+
+    @Override
+    public R<RpcStatus> dropIndex(DropIndexParam requestParam) {
+        return await(dropIndexAsync(requestParam));
+    }
+
+    @Override
+    public R<InsertResponse> insert(InsertParam requestParam) {
+        return await(insertAsync(requestParam));
+    }
+
+    @Override
+    public R<SearchResponse> search(SearchParam requestParam) {
+        return await(searchAsync(requestParam));
+    }
+
+    /**
+     * Checks the collection on every shard, it exists only if it exists on all of them.
+     */
+    @Override
+    public CompletableFuture<R<Boolean>> hasCollectionAsync(@NonNull HasCollectionParam requestParam) {
+        return onAllShards(shard -> shard.client.hasCollectionAsync(HasCollectionParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build()))
+                .thenApply(results -> {
+                    for (R<Boolean> r : results) {
+                        if (r.getStatus() != R.Status.Success.getCode()) {
+                            return r;
+                        }
+                    }
+                    for (R<Boolean> r : results) {
+                        if (!Boolean.TRUE.equals(r.getData())) {
+                            return r;
+                        }
+                    }
+                    return results.get(0);
+                });
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> createCollectionAsync(@NonNull CreateCollectionParam requestParam) {
+        return firstFailure(onAllShards(shard -> shard.client.createCollectionAsync(CreateCollectionParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withDescription(requestParam.getDescription())
+                .withFieldTypes(requestParam.getFieldTypes())
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build())));
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> dropCollectionAsync(@NonNull DropCollectionParam requestParam) {
+        return firstFailure(onAllShards(shard -> shard.client.dropCollectionAsync(DropCollectionParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build())));
+    }
+
+    /**
+     * Describes the collection on the first shard, the schema is the same on every shard.
+     */
+    @Override
+    public CompletableFuture<R<DescribeCollectionResponse>> describeCollectionAsync(
+            @NonNull DescribeCollectionParam requestParam) {
+        Shard shard = shards.get(0);
+        return shard.call(() -> shard.client.describeCollectionAsync(DescribeCollectionParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build()));
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> createIndexAsync(@NonNull CreateIndexParam requestParam) {
+        Map<String, String> extraParam = requestParam.getExtraParam();
+        return firstFailure(onAllShards(shard -> {
+            CreateIndexParam.Builder builder = CreateIndexParam.newBuilder()
+                    .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                    .withFieldName(requestParam.getFieldName())
+                    .withIndexName(requestParam.getIndexName())
+                    .withIndexType(requestParam.getIndexType())
+                    .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS);
+            if (extraParam.containsKey(Constant.METRIC_TYPE)) {
+                builder.withMetricType(MetricType.valueOf(extraParam.get(Constant.METRIC_TYPE)));
+            }
+            if (extraParam.containsKey(Constant.PARAMS)) {
+                builder.withExtraParam(extraParam.get(Constant.PARAMS));
+            }
+            return shard.client.createIndexAsync(builder.build());
+        }));
+    }
+
+    @Override
+    public CompletableFuture<R<RpcStatus>> dropIndexAsync(@NonNull DropIndexParam requestParam) {
+        return firstFailure(onAllShards(shard -> shard.client.dropIndexAsync(DropIndexParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withFieldName(requestParam.getFieldName())
+                .withIndexName(requestParam.getIndexName())
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build())));
+    }
+
+    /**
+     * Splits the rows by shard and inserts them into the shards in parallel. The returned ids are in row order
+     * if every shard returns one id per row, otherwise in shard order.
+     */
+    @Override
+    public CompletableFuture<R<InsertResponse>> insertAsync(@NonNull InsertParam requestParam) {
+        List<List<Integer>> rowsOfShard;
+        try {
+            rowsOfShard = route(requestParam);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(R.failed(e));
+        }
+
+        List<List<Integer>> sentRows = new ArrayList<>();
+        List<CompletableFuture<R<InsertResponse>>> requests = new ArrayList<>();
+        for (Shard shard : shards) {
+            List<Integer> rows = rowsOfShard.get(shard.index);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            sentRows.add(rows);
+            requests.add(shard.call(() -> shard.client.insertAsync(sliceInsert(requestParam, shard, rows))));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<InsertResponse> responses = new ArrayList<>(requests.size());
+            for (CompletableFuture<R<InsertResponse>> request : requests) {
+                R<InsertResponse> r = request.join();
+                if (r.getStatus() != R.Status.Success.getCode()) {
+                    return r;
+                }
+                responses.add(r.getData());
+            }
+            return R.success(mergeInsert(requestParam.getRowCount(), sentRows, responses));
+        });
+    }
+
+    /**
+     * Searches every shard in parallel and merges the hits of each target query by score.
+     */
+    @Override
+    public CompletableFuture<R<SearchResponse>> searchAsync(@NonNull SearchParam requestParam) {
+        List<CompletableFuture<R<SearchResponse>>> requests = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            requests.add(shard.call(() -> shard.client.searchAsync(sliceSearch(requestParam, shard))));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<SearchResponse> responses = new ArrayList<>(requests.size());
+            for (CompletableFuture<R<SearchResponse>> request : requests) {
+                R<SearchResponse> r = request.join();
+                if (r.getStatus() != R.Status.Success.getCode()) {
+                    return r;
+                }
+                responses.add(r.getData());
+            }
+            try {
+                return R.success(mergeSearch(requestParam, responses));
+            } catch (Exception e) {
+                return R.failed(e);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<List<R<T>>> onAllShards(Function<Shard, CompletableFuture<R<T>>> call) {
+        List<CompletableFuture<R<T>>> requests = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            requests.add(shard.call(() -> call.apply(shard)));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<R<T>> results = new ArrayList<>(requests.size());
+            requests.forEach(request -> results.add(request.join()));
+            return results;
+        });
+    }
+
+    private static <T> CompletableFuture<R<T>> firstFailure(CompletableFuture<List<R<T>>> results) {
+        return results.thenApply(list -> {
+            for (R<T> r : list) {
+                if (r.getStatus() != R.Status.Success.getCode()) {
+                    return r;
+                }
+            }
+            return list.get(0);
+        });
+    }
+
+    private static <T> R<T> await(CompletableFuture<R<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return R.failed(e);
+        } catch (ExecutionException e) {
+            return R.failed(AbstractVectorSearchBrpcClient.unwrap(e));
+        }
+    }
+
+    private List<List<Integer>> route(InsertParam requestParam) {
+        List<List<Integer>> rowsOfShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            rowsOfShard.add(new ArrayList<>());
+        }
+
+        List<?> keys = null;
+        for (InsertParam.Field field : requestParam.getFields()) {
+            if (field.getName().equals(shardingParam.getPrimaryKeyField())) {
+                keys = field.getValues();
+            }
+        }
+        int rowCount = requestParam.getRowCount();
+        if (keys == null) {
+            int first = nextShard.getAndAdd(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                rowsOfShard.get(Math.floorMod(first + row, shards.size())).add(row);
+            }
+            return rowsOfShard;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            Object key = keys.get(row);
+            if (!(key instanceof Long)) {
+                throw new ParamException("Primary key values must be Int64: " + shardingParam.getPrimaryKeyField());
+            }
+            rowsOfShard.get(getShardIndexOf((Long) key)).add(row);
+        }
+        return rowsOfShard;
+    }
+
+    // murmur3 finalizer, so that sequential keys are spread evenly
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static InsertParam sliceInsert(InsertParam requestParam, Shard shard, List<Integer> rows) {
+        List<InsertParam.Field> fields = new ArrayList<>(requestParam.getFields().size());
+        for (InsertParam.Field field : requestParam.getFields()) {
+            fields.add(new InsertParam.Field(field.getName(), pick(field.getValues(), rows)));
+        }
+        return InsertParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withPartitionName(requestParam.getPartitionName())
+                .withFields(fields)
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    private static List<?> pick(List<?> values, List<Integer> rows) {
+        if (values instanceof FloatVectors) {
+            FloatVectors vectors = (FloatVectors) values;
+            int dim = vectors.getDim();
+            float[] data = new float[rows.size() * dim];
+            for (int i = 0; i < rows.size(); i++) {
+                vectors.copyVector(rows.get(i), data, i * dim);
+            }
+            return FloatVectors.of(data, dim);
+        }
+        List<Object> picked = new ArrayList<>(rows.size());
+        for (Integer row : rows) {
+            picked.add(values.get(row));
+        }
+        return picked;
+    }
+
+    private static InsertResponse mergeInsert(int rowCount, List<List<Integer>> sentRows,
+                                              List<InsertResponse> responses) {
+        boolean idPerRow = true;
+        for (int i = 0; i < responses.size(); i++) {
+            if (responses.get(i).getIDs().getDataCount() != sentRows.get(i).size()) {
+                idPerRow = false;
+            }
+        }
+
+        LongArray.Builder ids = LongArray.newBuilder();
+        if (idPerRow) {
+            long[] rowIds = new long[rowCount];
+            for (int i = 0; i < responses.size(); i++) {
+                LongArray shardIds = responses.get(i).getIDs();
+                List<Integer> rows = sentRows.get(i);
+                for (int j = 0; j < rows.size(); j++) {
+                    rowIds[rows.get(j)] = shardIds.getData(j);
+                }
+            }
+            for (long id : rowIds) {
+                ids.addData(id);
+            }
+        } else {
+            responses.forEach(response -> ids.addAllData(response.getIDs().getDataList()));
+        }
+        InsertResponse.Builder merged = InsertResponse.newBuilder().setIDs(ids);
+        if (!responses.isEmpty()) {
+            merged.setStatus(responses.get(0).getStatus());
+        }
+        return merged.build();
+    }
+
+    private static SearchParam sliceSearch(SearchParam requestParam, Shard shard) {
+        SearchParam.Builder builder = SearchParam.newBuilder()
+                .withCollectionName(shard.collectionNameOf(requestParam.getCollectionName()))
+                .withTopK(requestParam.getTopK())
+                .withExpr(requestParam.getExpr())
+                .withParams(requestParam.getParams())
+                .withOutFields(requestParam.getOutFields())
+                .withSearchData(requestParam.getSearchData())
+                .withTimeout(requestParam.getTimeoutNanos(), TimeUnit.NANOSECONDS);
+        if (requestParam.getVectorFieldName() != null) {
+            builder.withVectorFieldName(requestParam.getVectorFieldName());
+        } else {
+            builder.withTextFieldName(requestParam.getTextFieldName());
+        }
+        return builder.build();
+    }
+
+    private SearchResponse mergeSearch(SearchParam requestParam, List<SearchResponse> responses) {
+        List<SearchResultData> parts = new ArrayList<>(responses.size());
+        responses.forEach(response -> parts.add(response.getResults()));
+        SearchResultData results = mergeHits(parts, requestParam.getNQ().intValue(), requestParam.getTopK(),
+                shardingParam.getMetricType() == MetricType.L2);
+        return responses.get(0).toBuilder()
+                .setCollectionName(requestParam.getCollectionName())
+                .setResults(results)
+                .build();
+    }
+
+    /**
+     * Merges the hits of the shards query by query, a heap holds the best remaining hit of each shard and the
+     * best of them is taken until topK hits are taken or the shards run out of hits.
+     *
+     * @param ascending true if lower scores are better
+     */
+    static SearchResultData mergeHits(List<SearchResultData> parts, int nq, int topK, boolean ascending) {
+        long[][] offsets = new long[parts.size()][];
+        for (int i = 0; i < parts.size(); i++) {
+            offsets[i] = SearchResultUtils.queryOffsets(parts.get(i));
+            if (offsets[i].length - 1 != nq) {
+                throw new IllegalResponseException("Shard " + i + " returned results of "
+                        + (offsets[i].length - 1) + " queries, expected " + nq);
+            }
+            if (parts.get(i).getFieldsDataCount() != parts.get(0).getFieldsDataCount()) {
+                throw new IllegalResponseException("Shards returned different output fields");
+            }
+        }
+
+        Comparator<Cursor> byScore = Comparator.comparingDouble(Cursor::score);
+        if (!ascending) {
+            byScore = byScore.reversed();
+        }
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(parts.size(), 1), byScore);
+        SearchResultData.Builder builder = SearchResultData.newBuilder()
+                .setNumQueries(nq)
+                .setTopK(topK)
+                .addAllOutputFields(parts.get(0).getOutputFieldsList());
+        LongArray.Builder ids = LongArray.newBuilder();
+        int[] columns = new int[nq * topK];
+        int[] rows = new int[nq * topK];
+        int count = 0;
+        for (int q = 0; q < nq; q++) {
+            for (int i = 0; i < parts.size(); i++) {
+                if (offsets[i][q] < offsets[i][q + 1]) {
+                    heap.add(new Cursor(i, parts.get(i), (int) offsets[i][q], (int) offsets[i][q + 1]));
+                }
+            }
+            int hits = 0;
+            while (hits < topK && !heap.isEmpty()) {
+                Cursor cursor = heap.poll();
+                ids.addData(cursor.part.getIds().getData(cursor.row));
+                builder.addScores(cursor.score());
+                columns[count] = cursor.shard;
+                rows[count] = cursor.row;
+                count++;
+                hits++;
+                if (++cursor.row < cursor.end) {
+                    heap.add(cursor);
+                }
+            }
+            heap.clear();
+            builder.addTopks(hits);
+        }
+        builder.setIds(ids);
+
+        int[] pickedColumns = Arrays.copyOf(columns, count);
+        int[] pickedRows = Arrays.copyOf(rows, count);
+        for (int f = 0; f < parts.get(0).getFieldsDataCount(); f++) {
+            List<FieldData> fields = new ArrayList<>(parts.size());
+            for (SearchResultData part : parts) {
+                fields.add(part.getFieldsData(f));
+            }
+            builder.addFieldsData(SearchResultUtils.gatherFieldData(fields, pickedColumns, pickedRows));
+        }
+        return builder.build();
+    }
+
+    private static final class Cursor {
+        private final int shard;
+        private final SearchResultData part;
+        private final int end;
+        private int row;
+
+        private Cursor(int shard, SearchResultData part, int row, int end) {
+            this.shard = shard;
+            this.part = part;
+            this.row = row;
+            this.end = end;
+        }
+
+        private float score() {
+            return part.getScores(row);
+        }
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final ShardingParam.Shard param;
+        private final VectorSearchServiceClient client;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private final LatencyTracker latency = new LatencyTracker(0.99);
+
+        private Shard(int index, ShardingParam.Shard param, VectorSearchServiceClient client) {
+            this.index = index;
+            this.param = param;
+            this.client = client;
+        }
+
+        private String collectionNameOf(String collectionName) {
+            return param.collectionNameOf(collectionName);
+        }
+
+        private <T> CompletableFuture<R<T>> call(Supplier<CompletableFuture<R<T>>> request) {
+            long start = System.nanoTime();
+            requests.incrementAndGet();
+            CompletableFuture<R<T>> future;
+            try {
+                future = request.get();
+            } catch (Exception e) {
+                future = CompletableFuture.completedFuture(R.failed(e));
+            }
+            return future.handle((r, e) -> {
+                long elapsed = System.nanoTime() - start;
+                latencyNanos.addAndGet(elapsed);
+                latency.record(elapsed);
+                completed.incrementAndGet();
+                R<T> result = e != null ? R.failed(AbstractVectorSearchBrpcClient.unwrap(e)) : r;
+                if (result.getStatus() != R.Status.Success.getCode()) {
+                    failures.incrementAndGet();
+                }
+                return result;
+            });
+        }
+
+        private ShardStats stats() {
+            long done = completed.get();
+            return new ShardStats(index, param.getConnectParam().getEndpoints(), param.getCollectionSuffix(),
+                    requests.get(), failures.get(), done == 0 ? 0 : latencyNanos.get() / done,
+                    latency.getPercentileNanos());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.param.R;
+import io.github.liumy213.param.RpcStatus;
+import io.github.liumy213.param.collection.CreateCollectionParam;
+import io.github.liumy213.param.collection.DescribeCollectionParam;
+import io.github.liumy213.param.collection.DropCollectionParam;
+import io.github.liumy213.param.collection.HasCollectionParam;
+import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.param.dml.SearchParam;
+import io.github.liumy213.param.index.CreateIndexParam;
+import io.github.liumy213.param.index.DropIndexParam;
+import io.github.liumy213.rpc.DescribeCollectionResponse;
+import io.github.liumy213.rpc.InsertResponse;
+import io.github.liumy213.rpc.SearchResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link VectorSearchClient}.
+ * The returned futures are completed by the brpc I/O threads, they always complete normally with an {@link R}
+ * that carries either the response or the failure. Heavy work chained on them should use the
+ * <code>xxxAsync(..., executor)</code> variants of {@link CompletableFuture}.
+ */
+public interface VectorSearchAsyncClient {
+    CompletableFuture<R<Boolean>> hasCollectionAsync(HasCollectionParam requestParam);
+    CompletableFuture<R<RpcStatus>> createCollectionAsync(CreateCollectionParam requestParam);
+    CompletableFuture<R<RpcStatus>> dropCollectionAsync(DropCollectionParam requestParam);
+    CompletableFuture<R<DescribeCollectionResponse>> describeCollectionAsync(DescribeCollectionParam requestParam);
+
+    CompletableFuture<R<RpcStatus>> createIndexAsync(CreateIndexParam requestParam);
+    CompletableFuture<R<RpcStatus>> dropIndexAsync(DropIndexParam requestParam);
+
+    CompletableFuture<R<InsertResponse>> insertAsync(InsertParam requestParam);
+    CompletableFuture<R<SearchResponse>> searchAsync(SearchParam requestParam);
+}
@@ -0,0 +1,23 @@
+package io.github.liumy213.client;
+
+import com.baidu.cloud.starlight.api.rpc.callback.Callback;
+import io.github.liumy213.rpc.*;
+
+/**
+ * Asynchronous view of {@link VectorSearchBrpc}.
+ * Starlight maps each <code>xxxCallback</code> method to the synchronous method <code>xxx</code> of the parent
+ * interface, sends the request without blocking and invokes the callback once the response arrives.
+ */
+public interface VectorSearchBrpcAsync extends VectorSearchBrpc {
+    void has_collectionCallback(HasCollectionRequest hasCollectionRequest, Callback<HasCollectionResponse> callback);
+    void create_collectionCallback(CreateCollectionRequest createCollectionRequest, Callback<Status> callback);
+    void drop_collectionCallback(DropCollectionRequest dropCollectionRequest, Callback<Status> callback);
+    void describe_collectionCallback(DescribeCollectionRequest describeCollectionRequest,
+                                     Callback<DescribeCollectionResponse> callback);
+
+    void create_indexCallback(CreateIndexRequest createIndexRequest, Callback<Status> callback);
+    void drop_indexCallback(DropIndexRequest dropIndexRequest, Callback<Status> callback);
+
+    void insert_entityCallback(InsertRequest insertRequest, Callback<InsertResponse> callback);
+    void search_entityCallback(SearchRequest searchRequest, Callback<SearchResponse> callback);
+}
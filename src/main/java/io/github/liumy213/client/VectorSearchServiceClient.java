@@ -1,126 +1,433 @@
 package io.github.liumy213.client;
 
 import io.github.liumy213.param.ConnectParam;
+import io.github.liumy213.param.Endpoint;
 import io.github.liumy213.param.R;
 import io.github.liumy213.param.RpcStatus;
 import io.github.liumy213.param.collection.*;
+import io.github.liumy213.param.dml.BulkWriterParam;
+import io.github.liumy213.param.dml.IngestParam;
 import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.param.dml.PreparedSearchParam;
 import io.github.liumy213.param.dml.SearchParam;
 import io.github.liumy213.param.index.CreateIndexParam;
 import io.github.liumy213.param.index.DropIndexParam;
 import io.github.liumy213.rpc.*;
 import lombok.NonNull;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
 
 public class VectorSearchServiceClient extends AbstractVectorSearchBrpcClient {
-    private final BrpcClientConfig brpcClientConfig;
-    private final VectorSearchBrpc vectorSearchBrpc;
-    private long timeoutMs = 0;
-    private int retryTimes = 0;
-    private long retryIntervalMs = 500L;
+    private final EndpointPool endpointPool;
+    private final ScheduledExecutorService scheduler;
+    private final SearchCoalescer searchCoalescer;
+    private final Retrier retrier;
+    // null if hedged search is disabled
+    private final SearchHedger searchHedger;
+    private final InsertSplitter insertSplitter;
+    private final SearchSplitter searchSplitter;
+    // null if the search result cache is disabled
+    private final SearchResultCache searchResultCache;
+    // null if the semantic search cache is disabled
+    private final SemanticSearchCache semanticSearchCache;
+    private final int searchBatchMaxNq;
+    private final long searchTimeoutNanos;
+    private final long insertTimeoutNanos;
+    private final long ddlTimeoutNanos;
 
     public VectorSearchServiceClient(@NonNull ConnectParam connectParam) {
-        String host = connectParam.getHost();
-        int port = connectParam.getPort();
-        this.brpcClientConfig = new BrpcClientConfig(host, port);
-        this.vectorSearchBrpc = brpcClientConfig.getVectorProto();
-    }
-
-    private <T> R<T> retry(Callable<R<T>> callable) {
-        // no retry, direct call the method
-        if (this.retryTimes <= 1) {
-            try {
-                return callable.call();
-            } catch (Exception e) {
-                return R.failed(e);
-            }
+        this(connectParam, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-search-client-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    private VectorSearchServiceClient(ConnectParam connectParam, ScheduledExecutorService scheduler) {
+        super(connectParam.getSchemaCacheTtlNanos() > 0
+                        ? new CollectionSchemaCache(connectParam.getSchemaCacheTtlNanos()) : null,
+                connectParam.getWriteBufferBytes() > 0
+                        ? new WriteBufferLimiter(connectParam.getWriteBufferBytes(),
+                        connectParam.getWriteBufferMaxWaitNanos(), scheduler) : null,
+                connectParam.isSearchSingleFlight() ? new SearchSingleFlight(scheduler) : null);
+        this.scheduler = scheduler;
+        try {
+            this.endpointPool = new EndpointPool(connectParam, scheduler);
+        } catch (RuntimeException e) {
+            scheduler.shutdown();
+            throw e;
+        }
+        this.retrier = new Retrier(connectParam.getRetryParam(), scheduler);
+        this.searchBatchMaxNq = connectParam.getSearchCoalesceMaxNq();
+        this.searchTimeoutNanos = connectParam.getSearchTimeoutNanos();
+        this.insertTimeoutNanos = connectParam.getInsertTimeoutNanos();
+        this.ddlTimeoutNanos = connectParam.getDdlTimeoutNanos();
+        if (connectParam.getSearchHedgeParam() != null) {
+            this.searchHedger = new SearchHedger(connectParam.getSearchHedgeParam(), endpointPool, scheduler);
+        } else {
+            this.searchHedger = null;
+        }
+        this.insertSplitter = new InsertSplitter(connectParam.getInsertChunkParam(), ForkJoinPool.commonPool());
+        this.searchSplitter = new SearchSplitter(connectParam.getSearchSplitParam(), ForkJoinPool.commonPool());
+        if (connectParam.getSearchCacheParam() != null) {
+            this.searchResultCache = new SearchResultCache(connectParam.getSearchCacheParam());
+        } else {
+            this.searchResultCache = null;
         }
+        if (connectParam.getSemanticCacheParam() != null) {
+            this.semanticSearchCache = new SemanticSearchCache(connectParam.getSemanticCacheParam());
+        } else {
+            this.semanticSearchCache = null;
+        }
+        if (connectParam.getSearchCoalesceWindowNanos() > 0) {
+            this.searchCoalescer = new SearchCoalescer(super::searchAsync, scheduler,
+                    connectParam.getSearchCoalesceWindowNanos(), connectParam.getSearchCoalesceMaxNq());
+        } else {
+            this.searchCoalescer = null;
+        }
+    }
 
-        // method to check timeout
-        long begin = System.currentTimeMillis();
-        Callable<Void> timeoutChecker = ()->{
-            long current = System.currentTimeMillis();
-            long cost = (current - begin);
-            if (this.timeoutMs > 0 && cost >= this.timeoutMs) {
-                String msg = String.format("Retry timeout: %dms", this.timeoutMs);
-                throw new RuntimeException(msg);
-            }
-            return null;
-        };
-
-        // retry within timeout
-        for (int i = 0; i < this.retryTimes; i++) {
-            try {
-                R<T> resp = callable.call();
-                if (resp.getStatus() == R.Status.Success.getCode()) {
-                    return resp;
-                }
+    @Override
+    protected <T> CompletableFuture<T> invokeAsync(OperationType operationType, String collectionName,
+                                                   CallContext context, BrpcCall<T> call) {
+        if (operationType == OperationType.SEARCH && searchHedger != null) {
+            return searchHedger.invoke(collectionName, context, call);
+        }
+        return endpointPool.invoke(operationType, collectionName, context, call);
+    }
 
-                if (i != this.retryTimes-1) {
-                    timeoutChecker.call();
-                    TimeUnit.MILLISECONDS.sleep(this.retryIntervalMs);
-                    timeoutChecker.call();
-                    logInfo(String.format("Retry again after %dms...", this.retryIntervalMs));
-                }
-            } catch (Exception e) {
-                logError(e.getMessage());
-                return R.failed(e);
-            }
+    @Override
+    protected long getDefaultTimeoutNanos(OperationType operationType) {
+        switch (operationType) {
+            case SEARCH:
+                return searchTimeoutNanos;
+            case WRITE:
+                return insertTimeoutNanos;
+            default:
+                return ddlTimeoutNanos;
         }
-        String msg = String.format("Retry run out of %d retry times", this.retryTimes);
-        logError(msg);
-        return R.failed(new RuntimeException(msg));
     }
 
+    /**
+     * Returns the current concurrency limits of every endpoint and operation type,
+     * empty if the concurrency limit is disabled.
+     *
+     * @return limits of in-flight requests
+     */
+    public Map<Endpoint, Map<OperationType, Integer>> getConcurrencyLimits() {
+        return endpointPool.getConcurrencyLimits();
+    }
+
+    /**
+     * Returns the bytes of the writes in flight, counted against the write buffer limit.
+     * Zero if the write buffer is not limited.
+     *
+     * @return bytes of the outstanding writes
+     */
     @Override
-    protected VectorSearchBrpc vectorSearchBrpc() {
-        return this.vectorSearchBrpc;
+    public long getWriteBufferUsedBytes() {
+        return super.getWriteBufferUsedBytes();
+    }
+
+    /**
+     * Returns the counters of the semantic search cache, null if the cache is disabled.
+     *
+     * @return {@link SemanticCacheStats}
+     */
+    public SemanticCacheStats getSemanticCacheStats() {
+        return semanticSearchCache != null ? semanticSearchCache.stats() : null;
+    }
+
+    /**
+     * Prepares a vector search which is sent many times with different target vectors.
+     * The parameters are validated and encoded here once, each search only encodes its target vectors.
+     *
+     * @param requestParam {@link PreparedSearchParam}
+     * @return {@link PreparedSearch}
+     * @throws io.github.liumy213.exception.ParamException if the parameters cannot be encoded
+     */
+    public PreparedSearch prepareSearch(@NonNull PreparedSearchParam requestParam) {
+        return new PreparedSearch(this, requestParam);
+    }
+
+    /**
+     * Creates a writer which buffers rows of a collection and inserts them in batches through this client.
+     *
+     * @param requestParam {@link BulkWriterParam}
+     * @return {@link BulkWriter}
+     */
+    public BulkWriter newBulkWriter(@NonNull BulkWriterParam requestParam) {
+        return new BulkWriter(this, requestParam, scheduler);
+    }
+
+    /**
+     * Starts to ingest rows from an iterator, the rows are read on a new thread and inserted in batches.
+     * Reading slows down to the pace of the inserts.
+     *
+     * @param requestParam {@link IngestParam}
+     * @param rows rows by field name, with the same fields and value types as accepted by {@link BulkWriter}
+     * @return {@link IngestTask}
+     */
+    public IngestTask ingest(@NonNull IngestParam requestParam, @NonNull Iterator<? extends Map<String, ?>> rows) {
+        IngestTask task = new IngestTask(this, requestParam, scheduler, rows, null);
+        task.start();
+        return task;
+    }
+
+    /**
+     * Starts to ingest rows from a stream, the stream is closed when the ingest is done.
+     *
+     * @param requestParam {@link IngestParam}
+     * @param rows rows by field name
+     * @return {@link IngestTask}
+     * @see #ingest(IngestParam, Iterator)
+     */
+    public IngestTask ingest(@NonNull IngestParam requestParam, @NonNull Stream<? extends Map<String, ?>> rows) {
+        IngestTask task = new IngestTask(this, requestParam, scheduler, rows.iterator(), rows::close);
+        task.start();
+        return task;
+    }
+
+    // the cached results of a collection are dropped when this client has written to it, even if the write failed
+    private <T> CompletableFuture<T> invalidateOnDone(String collectionName, CompletableFuture<T> future) {
+        if (searchResultCache != null || semanticSearchCache != null) {
+            future.whenComplete((r, e) -> {
+                if (searchResultCache != null) {
+                    searchResultCache.invalidate(collectionName);
+                }
+                if (semanticSearchCache != null) {
+                    semanticSearchCache.invalidate(collectionName);
+                }
+            });
+        }
+        return future;
     }
 
     public void close() {
-        brpcClientConfig.releaseClient();
+        scheduler.shutdown();
+        endpointPool.close();
     }
 
     @Override
-    public R<Boolean> hasCollection(HasCollectionParam hasCollectionParam) {
-        return retry(()-> super.hasCollection(hasCollectionParam));
+    public CompletableFuture<R<Boolean>> hasCollectionAsync(HasCollectionParam requestParam) {
+        return retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()),
+                context -> hasCollectionAsync(requestParam, context));
     }
 
     @Override
-    public R<RpcStatus> createCollection(CreateCollectionParam createCollectionParam) {
-        return retry(()-> super.createCollection(createCollectionParam));
+    public CompletableFuture<R<RpcStatus>> createCollectionAsync(CreateCollectionParam requestParam) {
+        return invalidateOnDone(requestParam.getCollectionName(),
+                retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), false,
+                        context -> createCollectionAsync(requestParam, context)));
     }
 
     @Override
-    public R<RpcStatus> dropCollection(DropCollectionParam requestParam) {
-        return retry(()-> super.dropCollection(requestParam));
+    public CompletableFuture<R<RpcStatus>> dropCollectionAsync(DropCollectionParam requestParam) {
+        return invalidateOnDone(requestParam.getCollectionName(),
+                retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), false,
+                        context -> dropCollectionAsync(requestParam, context)));
     }
 
     @Override
-    public R<DescribeCollectionResponse> describeCollection(DescribeCollectionParam requestParam) {
-        return retry(()-> super.describeCollection(requestParam));
+    public CompletableFuture<R<DescribeCollectionResponse>> describeCollectionAsync(DescribeCollectionParam requestParam) {
+        return retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()),
+                context -> describeCollectionAsync(requestParam, context));
     }
 
     @Override
-    public R<RpcStatus> createIndex(CreateIndexParam requestParam) {
-        return retry(()-> super.createIndex(requestParam));
+    public CompletableFuture<R<RpcStatus>> createIndexAsync(CreateIndexParam requestParam) {
+        return invalidateOnDone(requestParam.getCollectionName(),
+                retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), false,
+                        context -> createIndexAsync(requestParam, context)));
     }
 
     @Override
-    public R<RpcStatus> dropIndex(DropIndexParam requestParam) {
-        return retry(()-> super.dropIndex(requestParam));
+    public CompletableFuture<R<RpcStatus>> dropIndexAsync(DropIndexParam requestParam) {
+        return invalidateOnDone(requestParam.getCollectionName(),
+                retrier.execute(deadlineOf(OperationType.DDL, requestParam.getTimeoutNanos()), false,
+                        context -> dropIndexAsync(requestParam, context)));
     }
 
     @Override
-    public R<InsertResponse> insert(InsertParam requestParam) {
-        return retry(()-> super.insert(requestParam));
+    public CompletableFuture<R<InsertResponse>> insertAsync(InsertParam requestParam) {
+        long deadline = deadlineOf(OperationType.WRITE, requestParam.getTimeoutNanos());
+        // large inserts are split into chunks, which share the deadline of the call
+        return invalidateOnDone(requestParam.getCollectionName(), insertSplitter.insert(requestParam,
+                chunk -> retrier.execute(deadline, false, context -> insertAsync(chunk, context))));
     }
 
     @Override
-    public R<SearchResponse> search(SearchParam requestParam) {
-        return retry(()-> super.search(requestParam));
+    public CompletableFuture<R<SearchResponse>> searchAsync(SearchParam requestParam) {
+        return cachedSearchAsync(requestParam, null);
+    }
+
+    // the search request is null unless the search is prepared, it is then converted when it is sent
+    CompletableFuture<R<SearchResponse>> cachedSearchAsync(SearchParam requestParam, SearchRequest searchRequest) {
+        SearchResultCache.Key key = searchResultCache == null ? null : searchResultCache.keyOf(requestParam);
+        if (key != null) {
+            SearchResponse cached = searchResultCache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(R.success(cached));
+            }
+        }
+        SemanticSearchCache.Query query = semanticSearchCache != null ? semanticSearchCache.queryOf(requestParam) : null;
+        if (query != null) {
+            SearchResponse cached = semanticSearchCache.get(query);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(R.success(cached));
+            }
+        }
+        CompletableFuture<R<SearchResponse>> result = sendSearch(requestParam, searchRequest);
+        if (key != null || query != null) {
+            result.thenAccept(r -> {
+                if (r.getStatus() != R.Status.Success.getCode()) {
+                    return;
+                }
+                if (key != null) {
+                    searchResultCache.put(key, r.getData());
+                }
+                if (query != null) {
+                    semanticSearchCache.put(query, r.getData());
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Runs several searches in one go, for example searches of several collections.
+     *
+     * @param requestParams searches
+     * @return one result per search, in the order of the searches
+     * @see #searchBatchAsync(List)
+     */
+    public List<R<SearchResponse>> searchBatch(@NonNull List<SearchParam> requestParams) {
+        return searchBatchAsync(requestParams).join();
+    }
+
+    /**
+     * Runs several searches in one go, asynchronously. Searches with the same collection, target field, vector
+     * dimension, topK, expr, params and output fields are merged into multi-nq requests of up to the coalesce
+     * max nq of <code>ConnectParam</code>. The requests are sent concurrently, their results are split back by search,
+     * and a failed request fails only the searches merged into it. A search whose target data doesn't match its
+     * target field is sent on its own.
+     *
+     * @param requestParams searches
+     * @return future of one result per search, in the order of the searches, it never completes exceptionally
+     */
+    public CompletableFuture<List<R<SearchResponse>>> searchBatchAsync(@NonNull List<SearchParam> requestParams) {
+        Map<SearchCoalescer.BatchKey, List<Integer>> groups = new LinkedHashMap<>();
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < requestParams.size(); i++) {
+            SearchCoalescer.BatchKey batchKey = SearchCoalescer.BatchKey.of(requestParams.get(i));
+            if (batchKey == null) {
+                // a malformed search is sent alone so that it fails without failing the searches of its group
+                chunks.add(Collections.singletonList(i));
+                continue;
+            }
+            groups.computeIfAbsent(batchKey, key -> new ArrayList<>()).add(i);
+        }
+
+        for (List<Integer> group : groups.values()) {
+            List<Integer> chunk = new ArrayList<>();
+            long nq = 0;
+            for (Integer index : group) {
+                long searchNq = requestParams.get(index).getNQ();
+                if (!chunk.isEmpty() && nq + searchNq > searchBatchMaxNq) {
+                    chunks.add(chunk);
+                    chunk = new ArrayList<>();
+                    nq = 0;
+                }
+                chunk.add(index);
+                nq += searchNq;
+            }
+            chunks.add(chunk);
+        }
+
+        List<CompletableFuture<List<R<SearchResponse>>>> requests = new ArrayList<>(chunks.size());
+        for (List<Integer> chunk : chunks) {
+            List<SearchParam> chunkParams = new ArrayList<>(chunk.size());
+            chunk.forEach(index -> chunkParams.add(requestParams.get(index)));
+            requests.add(searchChunkAsync(chunkParams));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<R<SearchResponse>> results = new ArrayList<>(Collections.nCopies(requestParams.size(), null));
+            for (int i = 0; i < chunks.size(); i++) {
+                List<Integer> chunk = chunks.get(i);
+                List<R<SearchResponse>> chunkResults = requests.get(i).join();
+                for (int j = 0; j < chunk.size(); j++) {
+                    results.set(chunk.get(j), chunkResults.get(j));
+                }
+            }
+            return results;
+        });
+    }
+
+    private CompletableFuture<List<R<SearchResponse>>> searchChunkAsync(List<SearchParam> requestParams) {
+        if (requestParams.size() == 1) {
+            return searchAsync(requestParams.get(0)).handle((r, e) ->
+                    Collections.singletonList(e != null ? R.failed(unwrap(e)) : r));
+        }
+        // the merged request runs until the latest deadline, each search times out at its own deadline
+        List<Long> deadlines = new ArrayList<>(requestParams.size());
+        List<CompletableFuture<R<SearchResponse>>> futures = new ArrayList<>(requestParams.size());
+        for (SearchParam requestParam : requestParams) {
+            long deadline = deadlineOf(OperationType.SEARCH, requestParam.getTimeoutNanos());
+            CompletableFuture<R<SearchResponse>> future = new CompletableFuture<>();
+            SearchCoalescer.expireAt(future, deadline, scheduler);
+            deadlines.add(deadline);
+            futures.add(future);
+        }
+        SearchParam merged;
+        try {
+            merged = SearchCoalescer.merge(requestParams,
+                    SearchCoalescer.timeoutOf(SearchCoalescer.latestDeadline(deadlines)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(SearchCoalescer.split(R.failed(e), requestParams));
+        }
+        searchAsync(merged).whenComplete((r, e) -> {
+            List<R<SearchResponse>> results = SearchCoalescer.split(e != null ? R.failed(unwrap(e)) : r,
+                    requestParams);
+            for (int i = 0; i < results.size(); i++) {
+                futures.get(i).complete(results.get(i));
+            }
+        });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<R<SearchResponse>> results = new ArrayList<>(futures.size());
+            futures.forEach(future -> results.add(future.join()));
+            return results;
+        });
+    }
+
+    private CompletableFuture<R<SearchResponse>> sendSearch(SearchParam requestParam, SearchRequest searchRequest) {
+        long deadline = deadlineOf(OperationType.SEARCH, requestParam.getTimeoutNanos());
+        if (searchSplitter.shouldSplit(requestParam)) {
+            // the chunks of a large search share the deadline of the call
+            return searchSplitter.search(requestParam, chunk -> sendSearch(chunk, null, deadline));
+        }
+        return sendSearch(requestParam, searchRequest, deadline);
+    }
+
+    private CompletableFuture<R<SearchResponse>> sendSearch(SearchParam requestParam, SearchRequest searchRequest,
+                                                            long deadline) {
+        if (searchCoalescer != null) {
+            // a coalesced batch is converted as a whole
+            return retrier.execute(deadline, context -> searchCoalescer.submit(requestParam, context));
+        }
+        if (searchRequest != null) {
+            return retrier.execute(deadline, context -> searchAsync(requestParam, searchRequest, context));
+        }
+        return retrier.execute(deadline, context -> searchAsync(requestParam, context));
     }
 
 }
@@ -0,0 +1,175 @@
+package io.github.liumy213.client;
+
+import io.github.liumy213.exception.LimitExceededException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-wide budget of the bytes of outstanding writes.
+ * A write takes its estimated size before the request is built, the reservation is corrected to the serialized
+ * size once the request is built, and given back when the write is done. Writes which don't fit wait in FIFO order
+ * up to the max wait, or are rejected at once if there is no wait. A write larger than the whole budget is admitted
+ * alone when nothing else is outstanding.
+ */
+class WriteBufferLimiter {
+    private final long maxBytes;
+    private final long maxWaitNanos;
+    private final ScheduledExecutorService scheduler;
+
+    // guarded by this
+    private long usedBytes;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    WriteBufferLimiter(long maxBytes, long maxWaitNanos, ScheduledExecutorService scheduler) {
+        this.maxBytes = maxBytes;
+        this.maxWaitNanos = maxWaitNanos;
+        this.scheduler = scheduler;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Reserves bytes for a write.
+     *
+     * @param bytes estimated size of the write
+     * @param deadlineNanos deadline of the call, zero if none, the wait doesn't go beyond it
+     * @return future of the reservation, failed with {@link LimitExceededException} if the bytes cannot be reserved
+     */
+    CompletableFuture<Permit> acquire(long bytes, long deadlineNanos) {
+        long size = Math.min(bytes, maxBytes);
+        Waiter waiter;
+        synchronized (this) {
+            if (waiters.isEmpty() && fits(size)) {
+                usedBytes += size;
+                return CompletableFuture.completedFuture(new Permit(size));
+            }
+            long waitNanos = maxWaitNanos;
+            if (deadlineNanos != 0) {
+                waitNanos = Math.min(waitNanos, deadlineNanos - System.nanoTime());
+            }
+            if (waitNanos <= 0) {
+                return failed();
+            }
+            waiter = new Waiter(size);
+            waiters.add(waiter);
+            waiter.timer = scheduler.schedule(() -> expire(waiter), waitNanos, TimeUnit.NANOSECONDS);
+        }
+        // a caller giving up on the wait takes the waiter out of the queue
+        waiter.future.whenComplete((permit, e) -> {
+            if (waiter.future.isCancelled()) {
+                expire(waiter);
+            }
+        });
+        return waiter.future;
+    }
+
+    private boolean fits(long bytes) {
+        return usedBytes == 0 || usedBytes + bytes <= maxBytes;
+    }
+
+    private CompletableFuture<Permit> failed() {
+        CompletableFuture<Permit> future = new CompletableFuture<>();
+        future.completeExceptionally(new LimitExceededException("Write buffer is full: " + usedBytes
+                + " of " + maxBytes + " bytes are in use"));
+        return future;
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+            // a large waiter at the head might have blocked smaller ones
+            grantWaiters();
+        }
+        waiter.future.completeExceptionally(new LimitExceededException("Write buffer is full: "
+                + "timed out waiting for " + waiter.bytes + " bytes"));
+    }
+
+    private void update(long delta) {
+        synchronized (this) {
+            usedBytes += delta;
+            if (delta >= 0) {
+                return;
+            }
+            grantWaiters();
+        }
+    }
+
+    // must be called with the lock held, the granted futures are completed outside of the lock by the scheduler
+    private void grantWaiters() {
+        while (!waiters.isEmpty() && fits(waiters.peek().bytes)) {
+            Waiter waiter = waiters.poll();
+            usedBytes += waiter.bytes;
+            waiter.timer.cancel(false);
+            Permit permit = new Permit(waiter.bytes);
+            scheduler.execute(() -> {
+                if (!waiter.future.complete(permit)) {
+                    // cancelled in the meantime
+                    permit.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Bytes reserved for one write.
+     */
+    final class Permit {
+        // guarded by WriteBufferLimiter.this
+        private long bytes;
+        private boolean released;
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Corrects the reservation to the actual size of the write, without waiting.
+         */
+        void resize(long newBytes) {
+            long delta;
+            synchronized (WriteBufferLimiter.this) {
+                if (released) {
+                    return;
+                }
+                delta = newBytes - bytes;
+                bytes = newBytes;
+            }
+            update(delta);
+        }
+
+        void release() {
+            long delta;
+            synchronized (WriteBufferLimiter.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                delta = -bytes;
+            }
+            update(delta);
+        }
+    }
+
+    private static final class Waiter {
+        private final long bytes;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private ScheduledFuture<?> timer;
+
+        private Waiter(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.liumy213.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Raised when a chunk of a split insert fails, the status is the status of the first failed chunk.
+ * No further chunk is sent after the failure and the exception is raised once the chunks in flight have settled,
+ * so the inserted ranges are every chunk the server confirmed. The other rows are not inserted, except for the rows
+ * of a failed chunk whose request reached the server before failing, for example on a timeout.
+ */
+public class PartialInsertException extends VectorSearchException {
+    private final List<RowRange> insertedRanges;
+
+    public PartialInsertException(String msg, Integer status, List<RowRange> insertedRanges) {
+        super(msg, status);
+        this.insertedRanges = Collections.unmodifiableList(insertedRanges);
+    }
+
+    /**
+     * @return the confirmed row ranges of the insert, in row order
+     */
+    public List<RowRange> getInsertedRanges() {
+        return insertedRanges;
+    }
+
+    /**
+     * Rows <code>[fromRow, toRow)</code> of an insert and the ids the server returned for them.
+     */
+    public static class RowRange {
+        private final int fromRow;
+        private final int toRow;
+        private final List<Long> ids;
+
+        public RowRange(int fromRow, int toRow, List<Long> ids) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.ids = Collections.unmodifiableList(ids);
+        }
+
+        public int getFromRow() {
+            return fromRow;
+        }
+
+        public int getToRow() {
+            return toRow;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        @Override
+        public String toString() {
+            return "RowRange{fromRow=" + fromRow + ", toRow=" + toRow + "}";
+        }
+    }
+}
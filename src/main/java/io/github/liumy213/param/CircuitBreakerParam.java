@@ -0,0 +1,178 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.rpc.ErrorCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for the circuit breakers of the client, one for each endpoint and collection.
+ * A breaker opens when too many of the latest requests failed or were slow. While it is open, requests fail
+ * at once with <code>CircuitOpen</code> or go to another endpoint. After the open time a few trial requests
+ * are let through, the breaker closes if all of them succeed and opens again otherwise.
+ */
+@Getter
+@ToString
+public class CircuitBreakerParam {
+    private final int windowSize;
+    private final int minRequests;
+    private final double failureRateThreshold;
+    private final long slowLatencyNanos;
+    private final double slowRateThreshold;
+    private final long openNanos;
+    private final int halfOpenTrials;
+    private final Set<ErrorCode> failureErrorCodes;
+
+    private CircuitBreakerParam(@NonNull Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minRequests = builder.minRequests;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowLatencyNanos = builder.slowLatencyNanos;
+        this.slowRateThreshold = builder.slowRateThreshold;
+        this.openNanos = builder.openNanos;
+        this.halfOpenTrials = builder.halfOpenTrials;
+        this.failureErrorCodes = Collections.unmodifiableSet(EnumSet.copyOf(builder.failureErrorCodes));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link CircuitBreakerParam} class.
+     */
+    public static class Builder {
+        private int windowSize = 20;
+        private int minRequests = 10;
+        private double failureRateThreshold = 0.5;
+        private long slowLatencyNanos = 0;
+        private double slowRateThreshold = 0.5;
+        private long openNanos = TimeUnit.SECONDS.toNanos(10);
+        private int halfOpenTrials = 3;
+        private Set<ErrorCode> failureErrorCodes = EnumSet.of(ErrorCode.UnexpectedError,
+                ErrorCode.ConnectFailed, ErrorCode.NotReadyServe);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets how many of the latest requests the rates are computed on. The default is 20.
+         *
+         * @param windowSize number of requests
+         * @return <code>Builder</code>
+         */
+        public Builder withWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Sets how many requests are needed before the breaker can open. The default is 10.
+         *
+         * @param minRequests min number of requests in the window
+         * @return <code>Builder</code>
+         */
+        public Builder withMinRequests(int minRequests) {
+            this.minRequests = minRequests;
+            return this;
+        }
+
+        /**
+         * Sets the failure rate which opens the breaker. The default is 0.5.
+         *
+         * @param failureRateThreshold rate between 0.0 and 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Opens the breaker when too many requests are slow (Optional), which is disabled by default.
+         *
+         * @param slowLatency requests slower than it are slow
+         * @param timeUnit time unit of the latency
+         * @param slowRateThreshold rate of slow requests which opens the breaker, between 0.0 and 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withSlowRequests(long slowLatency, @NonNull TimeUnit timeUnit, double slowRateThreshold) {
+            this.slowLatencyNanos = timeUnit.toNanos(slowLatency);
+            this.slowRateThreshold = slowRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets how long the breaker stays open before trial requests. The default is 10 seconds.
+         *
+         * @param openTime open time
+         * @param timeUnit time unit of the open time
+         * @return <code>Builder</code>
+         */
+        public Builder withOpenTime(long openTime, @NonNull TimeUnit timeUnit) {
+            this.openNanos = timeUnit.toNanos(openTime);
+            return this;
+        }
+
+        /**
+         * Sets how many trial requests are let through after the open time. The default is 3.
+         *
+         * @param halfOpenTrials number of trial requests
+         * @return <code>Builder</code>
+         */
+        public Builder withHalfOpenTrials(int halfOpenTrials) {
+            this.halfOpenTrials = halfOpenTrials;
+            return this;
+        }
+
+        /**
+         * Sets the server error codes counted as failures. The default is UnexpectedError, ConnectFailed
+         * and NotReadyServe. RPC failures always count, errors of the request itself like CollectionNotExists
+         * should not.
+         *
+         * @param failureErrorCodes server error codes counted as failures
+         * @return <code>Builder</code>
+         */
+        public Builder withFailureErrorCodes(@NonNull Set<ErrorCode> failureErrorCodes) {
+            this.failureErrorCodes = failureErrorCodes.isEmpty()
+                    ? EnumSet.noneOf(ErrorCode.class) : EnumSet.copyOf(failureErrorCodes);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link CircuitBreakerParam} instance.
+         *
+         * @return {@link CircuitBreakerParam}
+         */
+        public CircuitBreakerParam build() throws ParamException {
+            if (windowSize <= 0) {
+                throw new ParamException("Window size must be positive");
+            }
+            if (minRequests <= 0 || minRequests > windowSize) {
+                throw new ParamException("Min requests must be positive and not exceed the window size");
+            }
+            if (failureRateThreshold <= 0.0 || failureRateThreshold > 1.0) {
+                throw new ParamException("Failure rate threshold must be between 0.0 and 1.0");
+            }
+            if (slowLatencyNanos < 0) {
+                throw new ParamException("Slow latency cannot be negative");
+            }
+            if (slowRateThreshold <= 0.0 || slowRateThreshold > 1.0) {
+                throw new ParamException("Slow rate threshold must be between 0.0 and 1.0");
+            }
+            if (openNanos <= 0) {
+                throw new ParamException("Open time must be positive");
+            }
+            if (halfOpenTrials <= 0) {
+                throw new ParamException("Half-open trials must be positive");
+            }
+            return new CircuitBreakerParam(this);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for the adaptive concurrency limit.
+ * Each endpoint has a limit of in-flight requests for every operation type. The limit follows the latency
+ * gradient: it grows while the latency stays near the long term latency, and shrinks when the latency rises
+ * or requests fail, so the in-flight requests stay near the capacity of the server.
+ */
+@Getter
+@ToString
+public class ConcurrencyLimitParam {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int maxQueueSize;
+    private final long queueTimeoutNanos;
+
+    private ConcurrencyLimitParam(@NonNull Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.queueTimeoutNanos = builder.queueTimeoutNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link ConcurrencyLimitParam} class.
+     */
+    public static class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 1.5;
+        private int maxQueueSize = 0;
+        private long queueTimeoutNanos = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the limit before any latency is measured. The default is 20.
+         *
+         * @param initialLimit initial limit of in-flight requests
+         * @return <code>Builder</code>
+         */
+        public Builder withInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Sets the lower bound of the limit. The default is 1.
+         *
+         * @param minLimit min limit of in-flight requests
+         * @return <code>Builder</code>
+         */
+        public Builder withMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of the limit. The default is 200.
+         *
+         * @param maxLimit max limit of in-flight requests
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets how much the limit shrinks when a request fails. The default is 0.9.
+         *
+         * @param backoffRatio ratio between 0.5 and 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets how much the latency can exceed the long term latency before the limit shrinks. The default is 1.5.
+         *
+         * @param latencyTolerance tolerance, must be at least 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Sets how many requests can wait for the limit (Optional). The default is 0, requests over the limit
+         * fail at once with <code>ClientOverloaded</code>.
+         *
+         * @param maxQueueSize max waiting requests of an endpoint and operation type
+         * @param queueTimeout how long a request can wait, it fails with <code>ClientOverloaded</code> after it,
+         *                     or with a timeout if the deadline of its call comes first
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withQueue(int maxQueueSize, long queueTimeout, @NonNull TimeUnit timeUnit) {
+            this.maxQueueSize = maxQueueSize;
+            this.queueTimeoutNanos = timeUnit.toNanos(queueTimeout);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link ConcurrencyLimitParam} instance.
+         *
+         * @return {@link ConcurrencyLimitParam}
+         */
+        public ConcurrencyLimitParam build() throws ParamException {
+            if (minLimit <= 0 || maxLimit < minLimit) {
+                throw new ParamException("Min limit must be positive and not exceed the max limit");
+            }
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new ParamException("Initial limit must be between the min limit and the max limit");
+            }
+            if (backoffRatio < 0.5 || backoffRatio >= 1.0) {
+                throw new ParamException("Backoff ratio must be between 0.5 and 1.0");
+            }
+            if (latencyTolerance < 1.0) {
+                throw new ParamException("Latency tolerance must be at least 1.0");
+            }
+            if (maxQueueSize < 0) {
+                throw new ParamException("Max queue size cannot be negative");
+            }
+            if (maxQueueSize > 0 && queueTimeoutNanos <= 0) {
+                throw new ParamException("Queue timeout must be positive if requests can wait");
+            }
+            return new ConcurrencyLimitParam(this);
+        }
+    }
+}
@@ -5,6 +5,11 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.ToString;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Parameters for client connection.
  */
@@ -13,10 +18,60 @@ import lombok.ToString;
 public class ConnectParam {
     private final String host;
     private final int port;
+    private final long searchCoalesceWindowNanos;
+    private final int searchCoalesceMaxNq;
+    private final long schemaCacheTtlNanos;
+    private final int channelCount;
+    private final int writeChannelCount;
+    private final List<Endpoint> endpoints;
+    private final long healthCheckIntervalNanos;
+    private final int endpointFailureThreshold;
+    private final long endpointEjectNanos;
+    private final RetryParam retryParam;
+    private final HedgeParam searchHedgeParam;
+    private final ConcurrencyLimitParam concurrencyLimitParam;
+    private final CircuitBreakerParam circuitBreakerParam;
+    private final InsertChunkParam insertChunkParam;
+    private final SearchSplitParam searchSplitParam;
+    private final SearchCacheParam searchCacheParam;
+    private final SemanticCacheParam semanticCacheParam;
+    private final boolean searchSingleFlight;
+    private final long writeBufferBytes;
+    private final long writeBufferMaxWaitNanos;
+    private final long searchTimeoutNanos;
+    private final long insertTimeoutNanos;
+    private final long ddlTimeoutNanos;
 
     protected ConnectParam(@NonNull Builder builder) {
         this.host = builder.host;
         this.port = builder.port;
+        this.searchCoalesceWindowNanos = builder.searchCoalesceWindowNanos;
+        this.searchCoalesceMaxNq = builder.searchCoalesceMaxNq;
+        this.schemaCacheTtlNanos = builder.schemaCacheTtlNanos;
+        this.channelCount = builder.channelCount;
+        this.writeChannelCount = builder.writeChannelCount;
+        if (builder.endpoints.isEmpty()) {
+            this.endpoints = Collections.singletonList(new Endpoint(builder.host, builder.port));
+        } else {
+            this.endpoints = Collections.unmodifiableList(new ArrayList<>(builder.endpoints));
+        }
+        this.healthCheckIntervalNanos = builder.healthCheckIntervalNanos;
+        this.endpointFailureThreshold = builder.endpointFailureThreshold;
+        this.endpointEjectNanos = builder.endpointEjectNanos;
+        this.retryParam = builder.retryParam;
+        this.searchHedgeParam = builder.searchHedgeParam;
+        this.concurrencyLimitParam = builder.concurrencyLimitParam;
+        this.circuitBreakerParam = builder.circuitBreakerParam;
+        this.insertChunkParam = builder.insertChunkParam;
+        this.searchSplitParam = builder.searchSplitParam;
+        this.searchCacheParam = builder.searchCacheParam;
+        this.semanticCacheParam = builder.semanticCacheParam;
+        this.searchSingleFlight = builder.searchSingleFlight;
+        this.writeBufferBytes = builder.writeBufferBytes;
+        this.writeBufferMaxWaitNanos = builder.writeBufferMaxWaitNanos;
+        this.searchTimeoutNanos = builder.searchTimeoutNanos;
+        this.insertTimeoutNanos = builder.insertTimeoutNanos;
+        this.ddlTimeoutNanos = builder.ddlTimeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -30,6 +85,29 @@ public class ConnectParam {
     public static class Builder {
         private String host = "localhost";
         private int port = 18880;
+        private long searchCoalesceWindowNanos = 0;
+        private int searchCoalesceMaxNq = 64;
+        private long schemaCacheTtlNanos = 0;
+        private int channelCount = 1;
+        private int writeChannelCount = 0;
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private long healthCheckIntervalNanos = TimeUnit.SECONDS.toNanos(5);
+        private int endpointFailureThreshold = 3;
+        private long endpointEjectNanos = TimeUnit.SECONDS.toNanos(30);
+        private RetryParam retryParam = RetryParam.noRetry();
+        private HedgeParam searchHedgeParam;
+        private ConcurrencyLimitParam concurrencyLimitParam;
+        private CircuitBreakerParam circuitBreakerParam;
+        private InsertChunkParam insertChunkParam = InsertChunkParam.newBuilder().build();
+        private SearchSplitParam searchSplitParam = SearchSplitParam.newBuilder().build();
+        private SearchCacheParam searchCacheParam;
+        private SemanticCacheParam semanticCacheParam;
+        private boolean searchSingleFlight = false;
+        private long writeBufferBytes = 0;
+        private long writeBufferMaxWaitNanos = 0;
+        private long searchTimeoutNanos = 0;
+        private long insertTimeoutNanos = 0;
+        private long ddlTimeoutNanos = 0;
 
         protected Builder() {
         }
@@ -56,6 +134,320 @@ public class ConnectParam {
             return this;
         }
 
+        /**
+         * Enables coalescing of concurrent searches (Optional).
+         * Searches with the same collection, target field, topK, expr, params and output fields that arrive
+         * within the window are merged into one multi-nq request, each caller only gets back its own results.
+         * Zero window means no coalescing, which is the default.
+         *
+         * @param window how long the first search of a batch waits for others
+         * @param timeUnit time unit of the window
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchCoalesceWindow(long window, @NonNull TimeUnit timeUnit) {
+            this.searchCoalesceWindowNanos = timeUnit.toNanos(window);
+            return this;
+        }
+
+        /**
+         * Sets the max number of target queries in one coalesced search request. The default is 64.
+         * A batch is sent at once when it is full, searches with a larger nq are never coalesced.
+         * It also bounds the requests which <code>searchBatch</code> merges searches into.
+         *
+         * @param searchCoalesceMaxNq max nq of a coalesced request
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchCoalesceMaxNq(int searchCoalesceMaxNq) {
+            this.searchCoalesceMaxNq = searchCoalesceMaxNq;
+            return this;
+        }
+
+        /**
+         * Sets how long the schema of a collection is cached by the client. The default is 0, no cache.
+         * The cached schema saves the describeCollection call of insert/createIndex and serves hasCollection
+         * for existing collections, it is invalidated when the client creates or drops the collection.
+         * Changes made by other clients are not seen until the entry expires. Zero ttl disables the cache.
+         *
+         * @param ttl time to live of a cached schema
+         * @param timeUnit time unit of the ttl
+         * @return <code>Builder</code>
+         */
+        public Builder withSchemaCacheTtl(long ttl, @NonNull TimeUnit timeUnit) {
+            this.schemaCacheTtlNanos = timeUnit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Sets the number of channels opened to the server, each channel has its own connection. The default is 1.
+         * Requests are sent through the channel with the least outstanding requests.
+         *
+         * @param channelCount number of channels
+         * @return <code>Builder</code>
+         */
+        public Builder withChannelCount(int channelCount) {
+            this.channelCount = channelCount;
+            return this;
+        }
+
+        /**
+         * Sets the number of channels dedicated to insert (Optional).
+         * Large insert bodies then don't delay searches queued on the same connection.
+         * Zero means inserts share the channels with other requests, which is the default.
+         *
+         * @param writeChannelCount number of channels for insert
+         * @return <code>Builder</code>
+         */
+        public Builder withWriteChannelCount(int writeChannelCount) {
+            this.writeChannelCount = writeChannelCount;
+            return this;
+        }
+
+        /**
+         * Sets the server replicas to connect to (Optional), host/port are ignored if endpoints are set.
+         * Each request goes to one of the healthy replicas, preferring the one with lower latency
+         * and fewer outstanding requests.
+         *
+         * @param endpoints server replicas
+         * @return <code>Builder</code>
+         */
+        public Builder withEndpoints(@NonNull List<Endpoint> endpoints) {
+            endpoints.forEach(this::addEndpoint);
+            return this;
+        }
+
+        /**
+         * Adds a server replica (Optional).
+         *
+         * @param endpoint server replica
+         * @return <code>Builder</code>
+         */
+        public Builder addEndpoint(@NonNull Endpoint endpoint) {
+            if (!this.endpoints.contains(endpoint)) {
+                this.endpoints.add(endpoint);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a server replica in <code>host:port</code> format (Optional).
+         *
+         * @param address server replica address
+         * @return <code>Builder</code>
+         */
+        public Builder addEndpoint(@NonNull String address) {
+            return addEndpoint(Endpoint.parse(address));
+        }
+
+        /**
+         * Sets the interval of the background health check of the replicas. The default is 5 seconds.
+         * Zero disables the health check, it is never run if there is only one endpoint.
+         *
+         * @param interval health check interval
+         * @param timeUnit time unit of the interval
+         * @return <code>Builder</code>
+         */
+        public Builder withHealthCheckInterval(long interval, @NonNull TimeUnit timeUnit) {
+            this.healthCheckIntervalNanos = timeUnit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Sets how many consecutive failed requests or health checks eject a replica. The default is 3.
+         *
+         * @param endpointFailureThreshold consecutive failures to eject a replica
+         * @return <code>Builder</code>
+         */
+        public Builder withEndpointFailureThreshold(int endpointFailureThreshold) {
+            this.endpointFailureThreshold = endpointFailureThreshold;
+            return this;
+        }
+
+        /**
+         * Sets how long an ejected replica receives no request, unless a health check succeeds first.
+         * The default is 30 seconds.
+         *
+         * @param ejectTime ejection time
+         * @param timeUnit time unit of the ejection time
+         * @return <code>Builder</code>
+         */
+        public Builder withEndpointEjectTime(long ejectTime, @NonNull TimeUnit timeUnit) {
+            this.endpointEjectNanos = timeUnit.toNanos(ejectTime);
+            return this;
+        }
+
+        /**
+         * Enables retry of failed requests (Optional), which is disabled by default.
+         * Searches and reads are retried on transient failures. Inserts and the DDL which creates or drops
+         * are only retried when the request surely never reached the server, so a lost response never writes twice.
+         *
+         * @param retryParam retry parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withRetryParam(@NonNull RetryParam retryParam) {
+            this.retryParam = retryParam;
+            return this;
+        }
+
+        /**
+         * Enables hedged search (Optional), which is disabled by default.
+         * A search which has not answered within the hedge delay is sent again to another endpoint,
+         * it only takes effect with more than one endpoint.
+         *
+         * @param searchHedgeParam hedge parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchHedgeParam(@NonNull HedgeParam searchHedgeParam) {
+            this.searchHedgeParam = searchHedgeParam;
+            return this;
+        }
+
+        /**
+         * Enables the adaptive concurrency limit (Optional), which is disabled by default.
+         * The in-flight requests of each endpoint and operation type are kept near the capacity of the server,
+         * requests over the limit fail fast or wait in a queue with a timeout.
+         *
+         * @param concurrencyLimitParam concurrency limit parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withConcurrencyLimitParam(@NonNull ConcurrencyLimitParam concurrencyLimitParam) {
+            this.concurrencyLimitParam = concurrencyLimitParam;
+            return this;
+        }
+
+        /**
+         * Enables the circuit breakers (Optional), which are disabled by default.
+         * Each endpoint has a breaker for every collection, it opens when too many requests failed or were slow,
+         * and requests to the collection fail fast with <code>CircuitOpen</code> until the endpoint recovers.
+         *
+         * @param circuitBreakerParam circuit breaker parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withCircuitBreakerParam(@NonNull CircuitBreakerParam circuitBreakerParam) {
+            this.circuitBreakerParam = circuitBreakerParam;
+            return this;
+        }
+
+        /**
+         * Sets how large inserts are split into chunks (Optional).
+         * By default inserts larger than 8 MB are split and up to 4 chunks of an insert are sent at the same time.
+         * A failed chunk stops the insert, which fails with a <code>PartialInsertException</code> holding the chunks
+         * inserted once the chunks in flight have settled.
+         *
+         * @param insertChunkParam insert chunk parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withInsertChunkParam(@NonNull InsertChunkParam insertChunkParam) {
+            this.insertChunkParam = insertChunkParam;
+            return this;
+        }
+
+        /**
+         * Sets how searches with many target queries are split into chunks (Optional).
+         * By default searches with more than 1024 queries or 4 MB of queries are split and up to 4 chunks of
+         * a search are sent at the same time.
+         *
+         * @param searchSplitParam search split parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchSplitParam(@NonNull SearchSplitParam searchSplitParam) {
+            this.searchSplitParam = searchSplitParam;
+            return this;
+        }
+
+        /**
+         * Enables the search result cache (Optional), which is disabled by default.
+         * Repeated searches are answered from the cache until the ttl expires or this client writes to
+         * the collection. Writes of other clients are not seen until the ttl expires.
+         *
+         * @param searchCacheParam search cache parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchCacheParam(@NonNull SearchCacheParam searchCacheParam) {
+            this.searchCacheParam = searchCacheParam;
+            return this;
+        }
+
+        /**
+         * Enables the semantic search cache (Optional), which is disabled by default.
+         * A search with one query vector close enough to a recent query is answered with the result of that query,
+         * until the ttl expires or this client writes to the collection.
+         *
+         * @param semanticCacheParam semantic cache parameters
+         * @return <code>Builder</code>
+         */
+        public Builder withSemanticCacheParam(@NonNull SemanticCacheParam semanticCacheParam) {
+            this.semanticCacheParam = semanticCacheParam;
+            return this;
+        }
+
+        /**
+         * Sets whether identical searches in flight at the same time share one request (Optional).
+         * The default is false. If enabled, the response of the first search is given to all of them, each search
+         * still times out at its own deadline.
+         *
+         * @param searchSingleFlight true to share one request between identical searches
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchSingleFlight(boolean searchSingleFlight) {
+            this.searchSingleFlight = searchSingleFlight;
+            return this;
+        }
+
+        /**
+         * Limits the bytes of the writes in flight of the client (Optional), the default is 0 which doesn't limit
+         * them. A write which doesn't fit waits up to the max wait, then fails with <code>ClientOverloaded</code>.
+         *
+         * @param writeBufferBytes max bytes of the outstanding writes
+         * @param maxWait how long a write can wait for the bytes, zero rejects it at once
+         * @param timeUnit time unit of the max wait
+         * @return <code>Builder</code>
+         */
+        public Builder withWriteBufferLimit(long writeBufferBytes, long maxWait, @NonNull TimeUnit timeUnit) {
+            this.writeBufferBytes = writeBufferBytes;
+            this.writeBufferMaxWaitNanos = timeUnit.toNanos(maxWait);
+            return this;
+        }
+
+        /**
+         * Sets the default timeout of search calls, used if the <code>SearchParam</code> has no timeout.
+         * The timeout covers the retries, and each RPC gets the time left as its timeout.
+         * Zero means the starlight default of each RPC, which is the default.
+         *
+         * @param searchTimeout timeout of search calls
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withSearchTimeout(long searchTimeout, @NonNull TimeUnit timeUnit) {
+            this.searchTimeoutNanos = timeUnit.toNanos(searchTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the default timeout of insert calls, used if the <code>InsertParam</code> has no timeout.
+         * Zero means the starlight default of each RPC, which is the default.
+         *
+         * @param insertTimeout timeout of insert calls
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withInsertTimeout(long insertTimeout, @NonNull TimeUnit timeUnit) {
+            this.insertTimeoutNanos = timeUnit.toNanos(insertTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the default timeout of collection and index calls, used if their parameters have no timeout.
+         * Zero means the starlight default of each RPC, which is the default.
+         *
+         * @param ddlTimeout timeout of collection and index calls
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withDdlTimeout(long ddlTimeout, @NonNull TimeUnit timeUnit) {
+            this.ddlTimeoutNanos = timeUnit.toNanos(ddlTimeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link ConnectParam} instance.
          *
@@ -72,6 +464,50 @@ public class ConnectParam {
             if (port < 0 || port > 0xFFFF) {
                 throw new ParamException("Port is out of range!");
             }
+
+            if (searchCoalesceWindowNanos < 0) {
+                throw new ParamException("Search coalesce window cannot be negative");
+            }
+
+            if (searchCoalesceMaxNq <= 0) {
+                throw new ParamException("Search coalesce max nq must be positive");
+            }
+
+            if (schemaCacheTtlNanos < 0) {
+                throw new ParamException("Schema cache ttl cannot be negative");
+            }
+
+            if (channelCount <= 0) {
+                throw new ParamException("Channel count must be positive");
+            }
+
+            if (writeChannelCount < 0) {
+                throw new ParamException("Write channel count cannot be negative");
+            }
+
+            if (healthCheckIntervalNanos < 0) {
+                throw new ParamException("Health check interval cannot be negative");
+            }
+
+            if (endpointFailureThreshold <= 0) {
+                throw new ParamException("Endpoint failure threshold must be positive");
+            }
+
+            if (endpointEjectNanos < 0) {
+                throw new ParamException("Endpoint eject time cannot be negative");
+            }
+
+            if (writeBufferBytes < 0) {
+                throw new ParamException("Write buffer bytes cannot be negative");
+            }
+
+            if (writeBufferMaxWaitNanos < 0) {
+                throw new ParamException("Write buffer max wait cannot be negative");
+            }
+
+            if (searchTimeoutNanos < 0 || insertTimeoutNanos < 0 || ddlTimeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
         }
     }
 }
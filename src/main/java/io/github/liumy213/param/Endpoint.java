@@ -0,0 +1,65 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Address of one server replica.
+ */
+@Getter
+public class Endpoint {
+    private final String host;
+    private final int port;
+
+    public Endpoint(@NonNull String host, int port) {
+        ParamUtils.CheckNullEmptyString(host, "Host name");
+        if (port < 0 || port > 0xFFFF) {
+            throw new ParamException("Port is out of range!");
+        }
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Parses an endpoint in <code>host:port</code> format.
+     *
+     * @param address endpoint address
+     * @return {@link Endpoint}
+     */
+    public static Endpoint parse(@NonNull String address) throws ParamException {
+        int index = address.lastIndexOf(':');
+        if (index <= 0 || index == address.length() - 1) {
+            throw new ParamException("Endpoint must be in host:port format: " + address);
+        }
+        try {
+            return new Endpoint(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            throw new ParamException("Illegal port of endpoint: " + address);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Endpoint)) {
+            return false;
+        }
+        Endpoint that = (Endpoint) o;
+        return port == that.port && host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port);
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
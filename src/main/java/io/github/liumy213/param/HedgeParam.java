@@ -0,0 +1,116 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for hedged search.
+ * If a search has not answered within the hedge delay, the same request is sent to another endpoint,
+ * the first successful response is taken and the other one is dropped.
+ */
+@Getter
+@ToString
+public class HedgeParam {
+    private final long delayNanos;
+    private final double latencyPercentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+
+    private HedgeParam(@NonNull Builder builder) {
+        this.delayNanos = builder.delayNanos;
+        this.latencyPercentile = builder.latencyPercentile;
+        this.minDelayNanos = builder.minDelayNanos;
+        this.budgetRatio = builder.budgetRatio;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link HedgeParam} class.
+     */
+    public static class Builder {
+        private long delayNanos = 0;
+        private double latencyPercentile = 0.95;
+        private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        private double budgetRatio = 0.05;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets a static hedge delay (Optional).
+         * Without a static delay, the delay is the latency percentile of recent searches.
+         *
+         * @param delay how long to wait for the first attempt before sending the hedge
+         * @param timeUnit time unit of the delay
+         * @return <code>Builder</code>
+         */
+        public Builder withDelay(long delay, @NonNull TimeUnit timeUnit) {
+            this.delayNanos = timeUnit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the latency percentile of recent searches used as the hedge delay. The default is 0.95.
+         * It is ignored if a static delay is set.
+         *
+         * @param latencyPercentile percentile between 0.0 and 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withLatencyPercentile(double latencyPercentile) {
+            this.latencyPercentile = latencyPercentile;
+            return this;
+        }
+
+        /**
+         * Sets the lower limit of the percentile based hedge delay. The default is 1 millisecond.
+         *
+         * @param minDelay min hedge delay
+         * @param timeUnit time unit of the delay
+         * @return <code>Builder</code>
+         */
+        public Builder withMinDelay(long minDelay, @NonNull TimeUnit timeUnit) {
+            this.minDelayNanos = timeUnit.toNanos(minDelay);
+            return this;
+        }
+
+        /**
+         * Sets the hedging budget. The default is 0.05, hedges of the last 10 seconds can be
+         * at most 5% of the searches, so that hedging cannot amplify the load during an incident.
+         *
+         * @param budgetRatio max ratio of hedges to searches
+         * @return <code>Builder</code>
+         */
+        public Builder withBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link HedgeParam} instance.
+         *
+         * @return {@link HedgeParam}
+         */
+        public HedgeParam build() throws ParamException {
+            if (delayNanos < 0) {
+                throw new ParamException("Hedge delay cannot be negative");
+            }
+            if (latencyPercentile <= 0.0 || latencyPercentile >= 1.0) {
+                throw new ParamException("Hedge latency percentile must be between 0.0 and 1.0");
+            }
+            if (minDelayNanos < 0) {
+                throw new ParamException("Hedge min delay cannot be negative");
+            }
+            if (budgetRatio < 0.0) {
+                throw new ParamException("Hedge budget ratio cannot be negative");
+            }
+            return new HedgeParam(this);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for splitting large inserts.
+ * An insert larger than the chunk size is split into row ranges, the chunks are converted in parallel and sent
+ * with bounded concurrency, and the ids of the chunks are merged in row order. The chunk size starts at the max
+ * chunk size and adapts to the latency of the chunks: it shrinks while chunks are slower than the target latency,
+ * and grows back while they are much faster.
+ */
+@Getter
+@ToString
+public class InsertChunkParam {
+    private final long maxChunkBytes;
+    private final long minChunkBytes;
+    private final long targetLatencyNanos;
+    private final int concurrency;
+
+    private InsertChunkParam(@NonNull Builder builder) {
+        this.maxChunkBytes = builder.maxChunkBytes;
+        this.minChunkBytes = builder.minChunkBytes;
+        this.targetLatencyNanos = builder.targetLatencyNanos;
+        this.concurrency = builder.concurrency;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link InsertChunkParam} class.
+     */
+    public static class Builder {
+        private long maxChunkBytes = 8 * 1024 * 1024;
+        private long minChunkBytes = 256 * 1024;
+        private long targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        private int concurrency = 4;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the max estimated size of a chunk. The default is 8 MB, inserts up to this size are not split.
+         *
+         * @param maxChunkBytes max bytes of a chunk
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxChunkBytes(long maxChunkBytes) {
+            this.maxChunkBytes = maxChunkBytes;
+            return this;
+        }
+
+        /**
+         * Sets the min estimated size of a chunk, the chunk size doesn't shrink below it. The default is 256 KB.
+         *
+         * @param minChunkBytes min bytes of a chunk
+         * @return <code>Builder</code>
+         */
+        public Builder withMinChunkBytes(long minChunkBytes) {
+            this.minChunkBytes = minChunkBytes;
+            return this;
+        }
+
+        /**
+         * Sets the target latency of a chunk. The default is 500 milliseconds.
+         *
+         * @param targetLatency target latency of a chunk
+         * @param timeUnit time unit of the latency
+         * @return <code>Builder</code>
+         */
+        public Builder withTargetLatency(long targetLatency, @NonNull TimeUnit timeUnit) {
+            this.targetLatencyNanos = timeUnit.toNanos(targetLatency);
+            return this;
+        }
+
+        /**
+         * Sets the max count of chunks of an insert in flight. The default is 4.
+         *
+         * @param concurrency max concurrent chunks
+         * @return <code>Builder</code>
+         */
+        public Builder withConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link InsertChunkParam} instance.
+         *
+         * @return {@link InsertChunkParam}
+         */
+        public InsertChunkParam build() throws ParamException {
+            if (minChunkBytes <= 0) {
+                throw new ParamException("Min chunk bytes must be positive");
+            }
+            if (maxChunkBytes < minChunkBytes) {
+                throw new ParamException("Max chunk bytes cannot be less than min chunk bytes");
+            }
+            if (targetLatencyNanos <= 0) {
+                throw new ParamException("Target latency must be positive");
+            }
+            if (concurrency <= 0) {
+                throw new ParamException("Chunk concurrency must be positive");
+            }
+            return new InsertChunkParam(this);
+        }
+    }
+}
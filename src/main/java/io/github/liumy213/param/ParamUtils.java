@@ -1,10 +1,14 @@
 package io.github.liumy213.param;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
 import io.github.liumy213.common.utils.JacksonUtils;
 import io.github.liumy213.exception.IllegalResponseException;
 import io.github.liumy213.exception.ParamException;
 import io.github.liumy213.param.collection.FieldType;
+import io.github.liumy213.param.dml.FloatVectors;
 import io.github.liumy213.param.dml.InsertParam;
+import io.github.liumy213.param.dml.PreparedSearchParam;
 import io.github.liumy213.param.dml.SearchParam;
 import io.github.liumy213.response.DescCollResponseWrapper;
 import io.github.liumy213.rpc.*;
@@ -47,6 +51,15 @@ public class ParamUtils {
         switch (dataType) {
             case FloatVector: {
                 int dim = fieldSchema.getDimension();
+                if (values instanceof FloatVectors) {
+                    // primitive vectors, all vectors have the same dimension
+                    int vectorDim = ((FloatVectors) values).getDim();
+                    if (vectorDim != dim) {
+                        String msg = "Incorrect dimension for field '%s': the vector's dimension: %d is not equal to field's dimension: %d";
+                        throw new ParamException(String.format(msg, fieldSchema.getName(), vectorDim, dim));
+                    }
+                    break;
+                }
                 for (int i = 0; i < values.size(); ++i) {
                     // is List<> ?
                     Object value = values.get(i);
@@ -187,32 +200,49 @@ public class ParamUtils {
         }
     }
 
+    /**
+     * Builds the insert request, float vector columns are encoded directly by {@link VectorWireEncoder}.
+     * All columns are carried as serialized <code>fields_data</code> entries to keep the schema order.
+     */
     public static class InsertBuilderWrapper {
         private InsertRequest.Builder insertBuilder;
+        private final UnknownFieldSet.Field.Builder fieldsData = UnknownFieldSet.Field.newBuilder();
 
         public InsertBuilderWrapper(@NonNull InsertParam requestParam,
                                     DescCollResponseWrapper wrapper) {
+            this(requestParam, wrapper.getFields());
+        }
+
+        public InsertBuilderWrapper(@NonNull InsertParam requestParam,
+                                    @NonNull List<FieldType> fieldTypes) {
             String collectionName = requestParam.getCollectionName();
 
             // generate insert request builder
             insertBuilder = InsertRequest.newBuilder()
                     .setCollectionName(collectionName)
                     .setNumRows(requestParam.getRowCount());
-            fillFieldsData(requestParam, wrapper);
+            fillFieldsData(requestParam, fieldTypes);
+            insertBuilder.setUnknownFields(UnknownFieldSet.newBuilder()
+                    .addField(InsertRequest.FIELDS_DATA_FIELD_NUMBER, fieldsData.build())
+                    .build());
         }
 
-        private void addFieldsData(FieldData value) {
-            if (insertBuilder != null) {
-                insertBuilder.addFieldsData(value);
+        private void addFieldsData(FieldType fieldType, InsertParam.Field field) {
+            if (fieldType.getDataType() == DataType.FloatVector) {
+                fieldsData.addLengthDelimited(VectorWireEncoder.encodeFieldData(field.getName(),
+                        field.getValues(), fieldType.getDimension()));
+            } else {
+                fieldsData.addLengthDelimited(
+                        genFieldData(field.getName(), fieldType.getDataType(), field.getValues()).toByteString());
             }
         }
 
-        private void fillFieldsData(InsertParam requestParam, DescCollResponseWrapper wrapper) {
+        private void fillFieldsData(InsertParam requestParam, List<FieldType> fieldTypes) {
             // convert insert data
             List<InsertParam.Field> columnFields = requestParam.getFields();
 
             if (CollectionUtils.isNotEmpty(columnFields)) {
-                checkAndSetColumnData(wrapper.getFields(), columnFields);
+                checkAndSetColumnData(fieldTypes, columnFields);
             }
         }
 
@@ -226,7 +256,7 @@ public class ParamUtils {
                         checkFieldData(fieldType, field);
 
                         found = true;
-                        this.addFieldsData(genFieldData(field.getName(), fieldType.getDataType(), field.getValues()));
+                        this.addFieldsData(fieldType, field);
                         break;
                     }
 
@@ -257,14 +287,7 @@ public class ParamUtils {
         String textFieldName = requestParam.getTextFieldName();
         if (vectorFieldName != null && !StringUtils.isBlank(vectorFieldName)) {
             if (searchData != null && searchData.size() > 0) {
-                List<FloatArray> floatArrays = new ArrayList<>();
-                for (Object vector : searchData) {
-                    List<Float> list = (List<Float>) vector;
-                    FloatArray floatArray = FloatArray.newBuilder().addAllData(list).build();
-                    floatArrays.add(floatArray);
-                }
-                FloatArrayArray floatArrayArray = FloatArrayArray.newBuilder().addAllFloatVector(floatArrays).build();
-                builder.setSearchVectors(floatArrayArray);
+                builder.setUnknownFields(searchVectorsOf(searchData));
             }
         } else if (textFieldName != null && !StringUtils.isBlank(textFieldName)) {
             if (searchData != null && searchData.size() > 0) {
@@ -275,17 +298,56 @@ public class ParamUtils {
         }
 
         builder.setNq(requestParam.getNQ());
+        addSearchParams(builder, requestParam.getVectorFieldName(), requestParam.getTextFieldName(),
+                requestParam.getTopK(), requestParam.getParams(), requestParam.getOutFields(), requestParam.getExpr());
+        return builder.build();
+    }
+
+    /**
+     * Converts the parameters of a prepared search. The request has no target vectors,
+     * they are added to a copy of it by {@link #withSearchVectors(SearchRequest, FloatVectors)}.
+     */
+    public static SearchRequest convertSearchParam(@NonNull PreparedSearchParam requestParam) throws ParamException {
+        SearchRequest.Builder builder = SearchRequest.newBuilder()
+                .setCollectionName(requestParam.getCollectionName());
+        addSearchParams(builder, requestParam.getVectorFieldName(), null, requestParam.getTopK(),
+                requestParam.getParams(), requestParam.getOutFields(), requestParam.getExpr());
+        return builder.build();
+    }
 
+    /**
+     * Copies a prepared search request with the given target vectors.
+     */
+    public static SearchRequest withSearchVectors(@NonNull SearchRequest prepared, @NonNull FloatVectors vectors) {
+        return prepared.toBuilder()
+                .setNq(vectors.size())
+                .setUnknownFields(searchVectorsOf(vectors))
+                .build();
+    }
+
+    // target vectors are encoded directly, the server parses them as search_vectors
+    private static UnknownFieldSet searchVectorsOf(List<?> searchData) {
+        ByteString searchVectors = VectorWireEncoder.encodeFloatArrayArray(searchData);
+        return UnknownFieldSet.newBuilder()
+                .addField(SearchRequest.SEARCH_VECTORS_FIELD_NUMBER, UnknownFieldSet.Field.newBuilder()
+                        .addLengthDelimited(searchVectors)
+                        .build())
+                .build();
+    }
+
+    private static void addSearchParams(SearchRequest.Builder builder, String vectorFieldName,
+                                        String textFieldName, int topK, String params, List<String> outFields,
+                                        String expr) throws ParamException {
         KeyValuePair keyValuePair = null;
-        if (requestParam.getVectorFieldName() != null) {
+        if (vectorFieldName != null) {
             keyValuePair = KeyValuePair.newBuilder()
                     .setKey(Constant.VECTOR_FIELD)
-                    .setValue(requestParam.getVectorFieldName())
+                    .setValue(vectorFieldName)
                     .build();
-        } else if (requestParam.getTextFieldName() != null) {
+        } else if (textFieldName != null) {
             keyValuePair = KeyValuePair.newBuilder()
                     .setKey(Constant.TEXT_FIELD)
-                    .setValue(requestParam.getTextFieldName())
+                    .setValue(textFieldName)
                     .build();
         }
         // search parameters
@@ -293,32 +355,30 @@ public class ParamUtils {
                 .addSearchParams(
                         KeyValuePair.newBuilder()
                                 .setKey(Constant.TOP_K)
-                                .setValue(String.valueOf(requestParam.getTopK()))
+                                .setValue(String.valueOf(topK))
                                 .build());
 
-        if (null != requestParam.getParams() && !requestParam.getParams().isEmpty()) {
+        if (null != params && !params.isEmpty()) {
             try {
-                Map<String, Object> paramMap = JacksonUtils.fromJson(requestParam.getParams(), Map.class);
+                Map<String, Object> paramMap = JacksonUtils.fromJson(params, Map.class);
                 builder.addSearchParams(
                         KeyValuePair.newBuilder()
                                 .setKey(Constant.PARAMS)
-                                .setValue(requestParam.getParams())
+                                .setValue(params)
                                 .build());
             } catch (IllegalArgumentException e) {
                 throw new ParamException(e.getMessage() + e.getCause().getMessage());
             }
         }
 
-        if (!requestParam.getOutFields().isEmpty()) {
-            requestParam.getOutFields().forEach(builder::addOutputFields);
+        if (!outFields.isEmpty()) {
+            outFields.forEach(builder::addOutputFields);
         }
 
         builder.setDslType(DslType.BoolExprV1);
-        if (requestParam.getExpr() != null && !requestParam.getExpr().isEmpty()) {
-            builder.setDsl(requestParam.getExpr());
+        if (expr != null && !expr.isEmpty()) {
+            builder.setDsl(expr);
         }
-
-        return builder.build();
     }
 
     private static final Set<DataType> vectorDataType = new HashSet<DataType>() {{
@@ -90,7 +90,7 @@ public class R<T> {
      */
     public static <T> R<T> failed(ErrorCode errorCode, String msg) {
         R<T> r = new R<>();
-        r.setStatus(errorCode.getNumber());
+        r.setStatus(Status.valueOf(errorCode).getCode());
         r.setException(new Exception(msg));
         return r;
     }
@@ -167,6 +167,8 @@ public class R<T> {
         OutOfMemory(24),
         IndexNotExist(25),
         EmptyCollection(26),
+        CollectionNameNotFound(27),
+        NotReadyServe(28),
 
         // internal error code.
         DDRequestRace(1000),
@@ -177,7 +179,9 @@ public class R<T> {
         Unknown(-3),
         VersionMismatch(-4),
         ParamError(-5),
-        IllegalResponse(-6);
+        IllegalResponse(-6),
+        ClientOverloaded(-7),
+        CircuitOpen(-8);
 
         private final int code;
 
@@ -191,6 +195,23 @@ public class R<T> {
             return search.orElse(Unknown);
         }
 
+        /**
+         * Maps a server side error code to the status of the same name, the numbers of them are different.
+         *
+         * @param errorCode rpc error code
+         * @return {@link Status}, <code>UnexpectedError</code> if the error code is unknown
+         */
+        public static Status valueOf(ErrorCode errorCode) {
+            if (errorCode == ErrorCode.UNRECOGNIZED) {
+                return UnexpectedError;
+            }
+            try {
+                return Status.valueOf(errorCode.name());
+            } catch (IllegalArgumentException e) {
+                return UnexpectedError;
+            }
+        }
+
         public int getCode() {
             return code;
         }
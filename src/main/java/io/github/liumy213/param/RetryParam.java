@@ -0,0 +1,217 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.rpc.ErrorCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for retrying failed requests.
+ * Only transient failures are retried: RPC/transport errors and the retryable server error codes.
+ * Inserts, and the DDL which creates or drops, are only retried when the failure proves the request was never sent:
+ * connection failures and <code>NotReadyServe</code>.
+ * The delay grows exponentially with random jitter, and the retries of a client are capped by a retry budget.
+ */
+@Getter
+@ToString
+public class RetryParam {
+    private final int maxRetryTimes;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double backoffMultiplier;
+    private final double jitter;
+    private final double retryBudgetRatio;
+    private final int minRetriesPerSecond;
+    private final long timeoutNanos;
+    private final Set<ErrorCode> retryableErrorCodes;
+
+    private RetryParam(@NonNull Builder builder) {
+        this.maxRetryTimes = builder.maxRetryTimes;
+        this.initialBackoffNanos = builder.initialBackoffNanos;
+        this.maxBackoffNanos = builder.maxBackoffNanos;
+        this.backoffMultiplier = builder.backoffMultiplier;
+        this.jitter = builder.jitter;
+        this.retryBudgetRatio = builder.retryBudgetRatio;
+        this.minRetriesPerSecond = builder.minRetriesPerSecond;
+        this.timeoutNanos = builder.timeoutNanos;
+        this.retryableErrorCodes = Collections.unmodifiableSet(EnumSet.copyOf(builder.retryableErrorCodes));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a parameter which never retries.
+     *
+     * @return {@link RetryParam}
+     */
+    public static RetryParam noRetry() {
+        return newBuilder().withMaxRetryTimes(0).build();
+    }
+
+    /**
+     * Builder for {@link RetryParam} class.
+     */
+    public static class Builder {
+        private int maxRetryTimes = 3;
+        private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(3);
+        private double backoffMultiplier = 2.0;
+        private double jitter = 0.5;
+        private double retryBudgetRatio = 0.1;
+        private int minRetriesPerSecond = 10;
+        private long timeoutNanos = 0;
+        private Set<ErrorCode> retryableErrorCodes = EnumSet.of(ErrorCode.UnexpectedError,
+                ErrorCode.ConnectFailed, ErrorCode.NotReadyServe);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the max retry times after the first attempt. The default is 3, zero disables retry.
+         *
+         * @param maxRetryTimes max retry times
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxRetryTimes(int maxRetryTimes) {
+            this.maxRetryTimes = maxRetryTimes;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry. The default is 10 milliseconds.
+         *
+         * @param initialBackoff delay before the first retry
+         * @param timeUnit time unit of the delay
+         * @return <code>Builder</code>
+         */
+        public Builder withInitialBackoff(long initialBackoff, @NonNull TimeUnit timeUnit) {
+            this.initialBackoffNanos = timeUnit.toNanos(initialBackoff);
+            return this;
+        }
+
+        /**
+         * Sets the upper limit of the delay between retries. The default is 3 seconds.
+         *
+         * @param maxBackoff max delay between retries
+         * @param timeUnit time unit of the delay
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxBackoff(long maxBackoff, @NonNull TimeUnit timeUnit) {
+            this.maxBackoffNanos = timeUnit.toNanos(maxBackoff);
+            return this;
+        }
+
+        /**
+         * Sets how much the delay grows after each retry. The default is 2.0.
+         *
+         * @param backoffMultiplier multiplier of the delay, must be at least 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        /**
+         * Sets the random part of the delay. The default is 0.5, the actual delay is then between half of
+         * the backoff and the full backoff, so that clients failed at the same time don't retry together.
+         *
+         * @param jitter ratio of the random part, between 0.0 and 1.0
+         * @return <code>Builder</code>
+         */
+        public Builder withJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the retry budget of the client. The default is 0.1, retries of the last 10 seconds
+         * can be at most 10% of the requests, plus the min retries per second.
+         * The budget stops retry storms from multiplying the load during an outage.
+         *
+         * @param retryBudgetRatio max ratio of retries to requests
+         * @return <code>Builder</code>
+         */
+        public Builder withRetryBudgetRatio(double retryBudgetRatio) {
+            this.retryBudgetRatio = retryBudgetRatio;
+            return this;
+        }
+
+        /**
+         * Sets the retries per second always allowed by the retry budget, so that a client with little traffic
+         * can still retry. The default is 10.
+         *
+         * @param minRetriesPerSecond retries per second out of the ratio
+         * @return <code>Builder</code>
+         */
+        public Builder withMinRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the total time of a request and its retries (Optional), no retry is scheduled after it.
+         * Zero means no limit, which is the default.
+         *
+         * @param timeout total time of the retries
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the server error codes which are retried. The default is UnexpectedError, ConnectFailed
+         * and NotReadyServe, other error codes like CollectionNotExists fail at once.
+         * RPC/transport errors are always retried, invalid parameters never.
+         *
+         * @param retryableErrorCodes retryable server error codes
+         * @return <code>Builder</code>
+         */
+        public Builder withRetryableErrorCodes(@NonNull Set<ErrorCode> retryableErrorCodes) {
+            this.retryableErrorCodes = retryableErrorCodes.isEmpty()
+                    ? EnumSet.noneOf(ErrorCode.class) : EnumSet.copyOf(retryableErrorCodes);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link RetryParam} instance.
+         *
+         * @return {@link RetryParam}
+         */
+        public RetryParam build() throws ParamException {
+            if (maxRetryTimes < 0) {
+                throw new ParamException("Max retry times cannot be negative");
+            }
+            if (initialBackoffNanos < 0 || maxBackoffNanos < initialBackoffNanos) {
+                throw new ParamException("Backoff must be non-negative and not exceed the max backoff");
+            }
+            if (backoffMultiplier < 1.0) {
+                throw new ParamException("Backoff multiplier must be at least 1.0");
+            }
+            if (jitter < 0.0 || jitter > 1.0) {
+                throw new ParamException("Jitter must be between 0.0 and 1.0");
+            }
+            if (retryBudgetRatio < 0.0) {
+                throw new ParamException("Retry budget ratio cannot be negative");
+            }
+            if (minRetriesPerSecond < 0) {
+                throw new ParamException("Min retries per second cannot be negative");
+            }
+            if (timeoutNanos < 0) {
+                throw new ParamException("Retry timeout cannot be negative");
+            }
+            return new RetryParam(this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for the search result cache.
+ * Results of successful searches are kept by a hash of the whole request (collection, target field, query vectors
+ * or texts, topK, expr, params and output fields). Entries expire after the ttl, the least recently used entries
+ * are evicted beyond the max entries or bytes, and the entries of a collection are dropped when this client inserts
+ * into it, creates or drops it, or creates or drops its index.
+ */
+@Getter
+@ToString
+public class SearchCacheParam {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private SearchCacheParam(@NonNull Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxBytes = builder.maxBytes;
+        this.ttlNanos = builder.ttlNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link SearchCacheParam} class.
+     */
+    public static class Builder {
+        private int maxEntries = 10000;
+        private long maxBytes = 64 * 1024 * 1024;
+        private long ttlNanos = TimeUnit.SECONDS.toNanos(60);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the max count of cached results. The default is 10000.
+         *
+         * @param maxEntries max entries
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the max size of the cached results, counted in serialized bytes. The default is 64 MB.
+         *
+         * @param maxBytes max bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Sets how long a result is cached. The default is 60 seconds.
+         *
+         * @param ttl time to live of a result
+         * @param timeUnit time unit of the ttl
+         * @return <code>Builder</code>
+         */
+        public Builder withTtl(long ttl, @NonNull TimeUnit timeUnit) {
+            this.ttlNanos = timeUnit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link SearchCacheParam} instance.
+         *
+         * @return {@link SearchCacheParam}
+         */
+        public SearchCacheParam build() throws ParamException {
+            if (maxEntries <= 0) {
+                throw new ParamException("Cache max entries must be positive");
+            }
+            if (maxBytes <= 0) {
+                throw new ParamException("Cache max bytes must be positive");
+            }
+            if (ttlNanos <= 0) {
+                throw new ParamException("Cache ttl must be positive");
+            }
+            return new SearchCacheParam(this);
+        }
+    }
+}
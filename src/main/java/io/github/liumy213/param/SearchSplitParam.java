@@ -0,0 +1,94 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Parameters for splitting searches with many target queries.
+ * A search whose nq or estimated query size is over the chunk limits is split into ranges of target queries,
+ * the chunks are sent with bounded concurrency, each to the endpoint picked for it, and their results are
+ * merged back in query order into one response.
+ */
+@Getter
+@ToString
+public class SearchSplitParam {
+    private final int maxChunkNq;
+    private final long maxChunkBytes;
+    private final int concurrency;
+
+    private SearchSplitParam(@NonNull Builder builder) {
+        this.maxChunkNq = builder.maxChunkNq;
+        this.maxChunkBytes = builder.maxChunkBytes;
+        this.concurrency = builder.concurrency;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link SearchSplitParam} class.
+     */
+    public static class Builder {
+        private int maxChunkNq = 1024;
+        private long maxChunkBytes = 4 * 1024 * 1024;
+        private int concurrency = 4;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the max count of target queries in a chunk. The default is 1024.
+         *
+         * @param maxChunkNq max nq of a chunk
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxChunkNq(int maxChunkNq) {
+            this.maxChunkNq = maxChunkNq;
+            return this;
+        }
+
+        /**
+         * Sets the max estimated size of the target queries in a chunk. The default is 4 MB.
+         * A single query larger than it is still sent alone.
+         *
+         * @param maxChunkBytes max bytes of a chunk
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxChunkBytes(long maxChunkBytes) {
+            this.maxChunkBytes = maxChunkBytes;
+            return this;
+        }
+
+        /**
+         * Sets the max count of chunks of a search in flight at the same time. The default is 4.
+         *
+         * @param concurrency max chunks in flight
+         * @return <code>Builder</code>
+         */
+        public Builder withConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link SearchSplitParam} instance.
+         *
+         * @return {@link SearchSplitParam}
+         */
+        public SearchSplitParam build() throws ParamException {
+            if (maxChunkNq <= 0) {
+                throw new ParamException("Max chunk nq must be positive");
+            }
+            if (maxChunkBytes <= 0) {
+                throw new ParamException("Max chunk bytes must be positive");
+            }
+            if (concurrency <= 0) {
+                throw new ParamException("Chunk concurrency must be positive");
+            }
+            return new SearchSplitParam(this);
+        }
+    }
+}
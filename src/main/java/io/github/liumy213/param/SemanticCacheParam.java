@@ -0,0 +1,136 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for the semantic search cache.
+ * A search with a single query vector is answered with the result of a recent search whose query vector is within
+ * epsilon of it, provided the collection, vector field, topK, expr, params and output fields are the same.
+ * The result is the one of the cached query, so the ids are approximate and the scores are those of the cached query.
+ * Entries expire after the ttl, and the entries of a collection are dropped when this client inserts into it,
+ * creates or drops it, or creates or drops its index.
+ */
+@Getter
+@ToString
+public class SemanticCacheParam {
+    private final MetricType metricType;
+    private final double epsilon;
+    private final int maxEntries;
+    private final int hashBits;
+    private final long ttlNanos;
+
+    private SemanticCacheParam(@NonNull Builder builder) {
+        this.metricType = builder.metricType;
+        this.epsilon = builder.epsilon;
+        this.maxEntries = builder.maxEntries;
+        this.hashBits = builder.hashBits;
+        this.ttlNanos = builder.ttlNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link SemanticCacheParam} class.
+     */
+    public static class Builder {
+        private MetricType metricType = MetricType.COSINE;
+        private double epsilon = 0.01;
+        private int maxEntries = 1024;
+        private int hashBits = 12;
+        private long ttlNanos = TimeUnit.SECONDS.toNanos(60);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets how the distance of two query vectors is measured, <code>COSINE</code> or <code>L2</code>.
+         * The default is <code>COSINE</code>, where the distance is one minus the cosine similarity.
+         *
+         * @param metricType metric of the query distance
+         * @return <code>Builder</code>
+         */
+        public Builder withMetricType(@NonNull MetricType metricType) {
+            this.metricType = metricType;
+            return this;
+        }
+
+        /**
+         * Sets the max distance of a query to a cached query which is answered from the cache. The default is 0.01.
+         *
+         * @param epsilon max query distance
+         * @return <code>Builder</code>
+         */
+        public Builder withEpsilon(double epsilon) {
+            this.epsilon = epsilon;
+            return this;
+        }
+
+        /**
+         * Sets the max count of cached queries per collection and search settings. The default is 1024,
+         * the oldest queries are evicted beyond it.
+         *
+         * @param maxEntries max entries
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the count of random hyperplanes which hash the query vectors into buckets. The default is 12.
+         * A query is compared to the cached queries in its bucket and the buckets one bit away, more bits
+         * compare fewer queries but can miss a close query across two bits.
+         *
+         * @param hashBits bits of the bucket hash, from 1 to 30
+         * @return <code>Builder</code>
+         */
+        public Builder withHashBits(int hashBits) {
+            this.hashBits = hashBits;
+            return this;
+        }
+
+        /**
+         * Sets how long a result is cached. The default is 60 seconds.
+         *
+         * @param ttl time to live of a result
+         * @param timeUnit time unit of the ttl
+         * @return <code>Builder</code>
+         */
+        public Builder withTtl(long ttl, @NonNull TimeUnit timeUnit) {
+            this.ttlNanos = timeUnit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link SemanticCacheParam} instance.
+         *
+         * @return {@link SemanticCacheParam}
+         */
+        public SemanticCacheParam build() throws ParamException {
+            if (metricType != MetricType.COSINE && metricType != MetricType.L2) {
+                throw new ParamException("Semantic cache metric type must be COSINE or L2");
+            }
+            if (!(epsilon >= 0)) {
+                throw new ParamException("Semantic cache epsilon cannot be negative");
+            }
+            if (maxEntries <= 0) {
+                throw new ParamException("Cache max entries must be positive");
+            }
+            if (hashBits < 1 || hashBits > 30) {
+                throw new ParamException("Semantic cache hash bits must be from 1 to 30");
+            }
+            if (ttlNanos <= 0) {
+                throw new ParamException("Cache ttl must be positive");
+            }
+            return new SemanticCacheParam(this);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.liumy213.param;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parameters for a sharded client, which spreads each logical collection over several physical collections.
+ * A shard is a server, given by its connect parameters, and a suffix appended to the logical collection name to get
+ * the physical collection name of the shard. Shards on different servers can use the same suffix, shards on the
+ * same server need different suffixes. Rows are routed by a hash of their Int64 primary key, searches are sent to
+ * every shard and the hits of the shards are merged by score, in the order of the metric type.
+ */
+@Getter
+@ToString
+public class ShardingParam {
+    private final List<Shard> shards;
+    private final String primaryKeyField;
+    private final MetricType metricType;
+
+    private ShardingParam(@NonNull Builder builder) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(builder.shards));
+        this.primaryKeyField = builder.primaryKeyField;
+        this.metricType = builder.metricType;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A server and the suffix of the physical collections on it.
+     */
+    @Getter
+    @ToString
+    public static class Shard {
+        private final ConnectParam connectParam;
+        private final String collectionSuffix;
+
+        private Shard(ConnectParam connectParam, String collectionSuffix) {
+            this.connectParam = connectParam;
+            this.collectionSuffix = collectionSuffix;
+        }
+
+        /**
+         * Physical collection name of a logical collection on this shard.
+         *
+         * @param collectionName logical collection name
+         * @return physical collection name
+         */
+        public String collectionNameOf(@NonNull String collectionName) {
+            return collectionName + collectionSuffix;
+        }
+    }
+
+    /**
+     * Builder for {@link ShardingParam} class.
+     */
+    public static class Builder {
+        private final List<Shard> shards = new ArrayList<>();
+        private String primaryKeyField;
+        private MetricType metricType = MetricType.INVALID;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a shard whose physical collections have the names of the logical collections.
+         *
+         * @param connectParam connect parameters of the server, a client is created per distinct instance
+         * @return <code>Builder</code>
+         */
+        public Builder addShard(@NonNull ConnectParam connectParam) {
+            return addShard(connectParam, "");
+        }
+
+        /**
+         * Adds a shard whose physical collections have the names of the logical collections plus a suffix.
+         *
+         * @param connectParam connect parameters of the server, a client is created per distinct instance
+         * @param collectionSuffix suffix of the physical collection names, for example "_shard0"
+         * @return <code>Builder</code>
+         */
+        public Builder addShard(@NonNull ConnectParam connectParam, @NonNull String collectionSuffix) {
+            this.shards.add(new Shard(connectParam, collectionSuffix));
+            return this;
+        }
+
+        /**
+         * Sets the Int64 field which inserts are routed by (Optional).
+         * Inserts without the field, such as inserts into auto-id collections, are spread evenly over the shards.
+         *
+         * @param primaryKeyField name of the primary key field
+         * @return <code>Builder</code>
+         */
+        public Builder withPrimaryKeyField(@NonNull String primaryKeyField) {
+            this.primaryKeyField = primaryKeyField;
+            return this;
+        }
+
+        /**
+         * Sets the metric type of the indexes, which orders the merged hits: ascending scores for <code>L2</code>,
+         * descending scores for <code>IP</code> and <code>COSINE</code>.
+         *
+         * @param metricType metric type
+         * @return <code>Builder</code>
+         */
+        public Builder withMetricType(@NonNull MetricType metricType) {
+            this.metricType = metricType;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link ShardingParam} instance.
+         *
+         * @return {@link ShardingParam}
+         */
+        public ShardingParam build() throws ParamException {
+            if (shards.isEmpty()) {
+                throw new ParamException("At least one shard is required");
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                for (int j = i + 1; j < shards.size(); j++) {
+                    if (shards.get(i).connectParam == shards.get(j).connectParam
+                            && shards.get(i).collectionSuffix.equals(shards.get(j).collectionSuffix)) {
+                        throw new ParamException("Shards on the same server need different collection suffixes");
+                    }
+                }
+            }
+            if (primaryKeyField != null) {
+                ParamUtils.CheckNullEmptyString(primaryKeyField, "Primary key field");
+            }
+            if (metricType == MetricType.INVALID) {
+                throw new ParamException("Metric type is required");
+            }
+            return new ShardingParam(this);
+        }
+    }
+}
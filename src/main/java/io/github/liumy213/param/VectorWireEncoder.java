@@ -0,0 +1,155 @@
+package io.github.liumy213.param;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.dml.FloatVectors;
+import io.github.liumy213.rpc.DataType;
+import io.github.liumy213.rpc.FieldData;
+import io.github.liumy213.rpc.FloatArray;
+import io.github.liumy213.rpc.FloatArrayArray;
+import io.github.liumy213.rpc.VectorField;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes float vectors straight into protobuf wire format.
+ * The exact size is computed first, then the floats are written from the caller's vectors into one array,
+ * so no <code>FloatArray</code> builder or intermediate <code>List&lt;Float&gt;</code> is created.
+ * The bytes are identical to what the generated messages would produce.
+ */
+final class VectorWireEncoder {
+    private static final int FLOAT_SIZE = 4;
+
+    private VectorWireEncoder() {
+    }
+
+    /**
+     * Encodes a float vector column as a serialized {@link FieldData} message.
+     *
+     * @param fieldName field name
+     * @param vectors each element is a vector, <code>List&lt;Float&gt;</code> or {@link FloatVectors}
+     * @param dim dimension of the vectors
+     * @return serialized {@link FieldData}, without the tag and length of the enclosing field
+     */
+    static ByteString encodeFieldData(String fieldName, List<?> vectors, int dim) {
+        int floatCount = vectors.size() * dim;
+        int floatArraySize = packedFloatsSize(FloatArray.DATA_FIELD_NUMBER, floatCount);
+        int vectorFieldSize = lengthDelimitedSize(VectorField.FLOAT_VECTOR_FIELD_NUMBER, floatArraySize);
+        if (dim != 0) {
+            vectorFieldSize += CodedOutputStream.computeInt64Size(VectorField.DIM_FIELD_NUMBER, dim);
+        }
+        int size = CodedOutputStream.computeEnumSize(FieldData.TYPE_FIELD_NUMBER, DataType.FloatVector.getNumber())
+                + lengthDelimitedSize(FieldData.VECTORS_FIELD_NUMBER, vectorFieldSize);
+        if (!fieldName.isEmpty()) {
+            size += CodedOutputStream.computeStringSize(FieldData.FIELD_NAME_FIELD_NUMBER, fieldName);
+        }
+
+        byte[] buffer = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+        try {
+            output.writeEnum(FieldData.TYPE_FIELD_NUMBER, DataType.FloatVector.getNumber());
+            if (!fieldName.isEmpty()) {
+                output.writeString(FieldData.FIELD_NAME_FIELD_NUMBER, fieldName);
+            }
+            writeLengthDelimitedTag(output, FieldData.VECTORS_FIELD_NUMBER, vectorFieldSize);
+            if (dim != 0) {
+                output.writeInt64(VectorField.DIM_FIELD_NUMBER, dim);
+            }
+            writeLengthDelimitedTag(output, VectorField.FLOAT_VECTOR_FIELD_NUMBER, floatArraySize);
+            if (floatCount > 0) {
+                writeLengthDelimitedTag(output, FloatArray.DATA_FIELD_NUMBER, floatCount * FLOAT_SIZE);
+                for (int i = 0; i < vectors.size(); ++i) {
+                    writeFloats(output, vectors, i, dim);
+                }
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new ParamException("Failed to encode vectors of field " + fieldName + ": " + e.getMessage());
+        }
+        return UnsafeByteOperations.unsafeWrap(buffer);
+    }
+
+    /**
+     * Encodes target vectors as a serialized {@link FloatArrayArray} message.
+     *
+     * @param vectors each element is a vector, <code>List&lt;Float&gt;</code> or {@link FloatVectors}
+     * @return serialized {@link FloatArrayArray}, without the tag and length of the enclosing field
+     */
+    static ByteString encodeFloatArrayArray(List<?> vectors) {
+        int size = 0;
+        for (int i = 0; i < vectors.size(); ++i) {
+            size += lengthDelimitedSize(FloatArrayArray.FLOAT_VECTOR_FIELD_NUMBER,
+                    packedFloatsSize(FloatArray.DATA_FIELD_NUMBER, dimension(vectors, i)));
+        }
+
+        byte[] buffer = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+        try {
+            for (int i = 0; i < vectors.size(); ++i) {
+                int dim = dimension(vectors, i);
+                writeLengthDelimitedTag(output, FloatArrayArray.FLOAT_VECTOR_FIELD_NUMBER,
+                        packedFloatsSize(FloatArray.DATA_FIELD_NUMBER, dim));
+                if (dim > 0) {
+                    writeLengthDelimitedTag(output, FloatArray.DATA_FIELD_NUMBER, dim * FLOAT_SIZE);
+                    writeFloats(output, vectors, i, dim);
+                }
+            }
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new ParamException("Failed to encode target vectors: " + e.getMessage());
+        }
+        return UnsafeByteOperations.unsafeWrap(buffer);
+    }
+
+    private static int dimension(List<?> vectors, int index) {
+        if (vectors instanceof FloatVectors) {
+            return ((FloatVectors) vectors).getDim();
+        }
+        Object vector = vectors.get(index);
+        if (!(vector instanceof List)) {
+            throw new ParamException("The type of FloatVector must be List<Float>");
+        }
+        return ((List<?>) vector).size();
+    }
+
+    private static void writeFloats(CodedOutputStream output, List<?> vectors, int index, int dim) throws IOException {
+        if (vectors instanceof FloatVectors) {
+            FloatVectors floatVectors = (FloatVectors) vectors;
+            for (int j = 0; j < dim; ++j) {
+                output.writeFloatNoTag(floatVectors.get(index, j));
+            }
+            return;
+        }
+
+        Object vector = vectors.get(index);
+        if (!(vector instanceof List) || ((List<?>) vector).size() != dim) {
+            throw new ParamException("The type of FloatVector must be List<Float> with dimension " + dim);
+        }
+        for (Object value : (List<?>) vector) {
+            if (!(value instanceof Float)) {
+                throw new ParamException("The type of FloatVector must be List<Float>");
+            }
+            output.writeFloatNoTag((Float) value);
+        }
+    }
+
+    private static int packedFloatsSize(int fieldNumber, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        return lengthDelimitedSize(fieldNumber, count * FLOAT_SIZE);
+    }
+
+    private static int lengthDelimitedSize(int fieldNumber, int length) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+    }
+
+    private static void writeLengthDelimitedTag(CodedOutputStream output, int fieldNumber, int length) throws IOException {
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(length);
+    }
+}
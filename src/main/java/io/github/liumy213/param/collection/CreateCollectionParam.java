@@ -28,6 +28,7 @@ import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parameters for <code>createCollection</code> interface.
@@ -38,11 +39,13 @@ public class CreateCollectionParam {
     private final String collectionName;
     private final String description;
     private final List<FieldType> fieldTypes;
+    private final long timeoutNanos;
 
     private CreateCollectionParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
         this.description = builder.description;
         this.fieldTypes = builder.fieldTypes;
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -55,6 +58,7 @@ public class CreateCollectionParam {
     public static final class Builder {
         private String collectionName;
         private String description = "";
+        private long timeoutNanos = 0;
         private final List<FieldType> fieldTypes = new ArrayList<>();
         private Builder() {
         }
@@ -105,6 +109,19 @@ public class CreateCollectionParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link CreateCollectionParam} instance.
          *
@@ -140,6 +157,10 @@ public class CreateCollectionParam {
                 throw new ParamException("FloatVector and String field must have one");
             }
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new CreateCollectionParam(this);
         }
     }
@@ -25,6 +25,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.ToString;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Parameters for <code>describeCollection</code> interface.
  */
@@ -32,9 +34,11 @@ import lombok.ToString;
 @ToString
 public class DescribeCollectionParam {
     private final String collectionName;
+    private final long timeoutNanos;
 
     private DescribeCollectionParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -46,6 +50,7 @@ public class DescribeCollectionParam {
      */
     public static final class Builder {
         private String collectionName;
+        private long timeoutNanos = 0;
 
         private Builder() {
         }
@@ -61,6 +66,19 @@ public class DescribeCollectionParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link DescribeCollectionParam} instance.
          *
@@ -69,6 +87,10 @@ public class DescribeCollectionParam {
         public DescribeCollectionParam build() throws ParamException {
             ParamUtils.CheckNullEmptyString(collectionName, "Collection name");
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new DescribeCollectionParam(this);
         }
     }
@@ -24,15 +24,19 @@ import io.github.liumy213.param.ParamUtils;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Parameters for <code>dropCollection</code> interface.
  */
 @Getter
 public class DropCollectionParam {
     private final String collectionName;
+    private final long timeoutNanos;
 
     private DropCollectionParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -44,6 +48,7 @@ public class DropCollectionParam {
      */
     public static final class Builder {
         private String collectionName;
+        private long timeoutNanos = 0;
 
         private Builder() {
         }
@@ -59,6 +64,19 @@ public class DropCollectionParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link DropCollectionParam} instance.
          *
@@ -67,6 +85,10 @@ public class DropCollectionParam {
         public DropCollectionParam build() throws ParamException {
             ParamUtils.CheckNullEmptyString(collectionName, "Collection name");
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new DropCollectionParam(this);
         }
     }
@@ -0,0 +1,180 @@
+package io.github.liumy213.param.dml;
+
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.ParamUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for <code>BulkWriter</code>.
+ * Rows written to a bulk writer are buffered and sent as one insert once the batch reaches the max row count
+ * or the max size, or when the oldest row has waited for the linger time.
+ */
+@Getter
+@ToString
+public class BulkWriterParam {
+    private final String collectionName;
+    private final String partitionName;
+    private final int maxBatchRows;
+    private final long maxBatchBytes;
+    private final long lingerNanos;
+    private final int maxInFlight;
+    private final int maxQueuedBatches;
+    private final long timeoutNanos;
+
+    private BulkWriterParam(@NonNull Builder builder) {
+        this.collectionName = builder.collectionName;
+        this.partitionName = builder.partitionName;
+        this.maxBatchRows = builder.maxBatchRows;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.lingerNanos = builder.lingerNanos;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxQueuedBatches = builder.maxQueuedBatches;
+        this.timeoutNanos = builder.timeoutNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link BulkWriterParam} class.
+     */
+    public static class Builder {
+        private String collectionName;
+        private String partitionName = "";
+        private int maxBatchRows = 1000;
+        private long maxBatchBytes = 4 * 1024 * 1024;
+        private long lingerNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int maxInFlight = 2;
+        private int maxQueuedBatches = 0;
+        private long timeoutNanos = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the collection name. Collection name cannot be empty or null.
+         *
+         * @param collectionName collection name
+         * @return <code>Builder</code>
+         */
+        public Builder withCollectionName(@NonNull String collectionName) {
+            this.collectionName = collectionName;
+            return this;
+        }
+
+        /**
+         * Set partition name (Optional).
+         *
+         * @param partitionName partition name
+         * @return <code>Builder</code>
+         */
+        public Builder withPartitionName(@NonNull String partitionName) {
+            this.partitionName = partitionName;
+            return this;
+        }
+
+        /**
+         * Sets the max row count of a batch. The default is 1000.
+         *
+         * @param maxBatchRows max rows of one insert
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxBatchRows(int maxBatchRows) {
+            this.maxBatchRows = maxBatchRows;
+            return this;
+        }
+
+        /**
+         * Sets the max estimated size of a batch. The default is 4 MB.
+         *
+         * @param maxBatchBytes max bytes of one insert
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxBatchBytes(long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Sets how long a row can wait in a batch which is not full. The default is 10 milliseconds,
+         * zero sends every batch without waiting for more rows.
+         *
+         * @param linger linger time
+         * @param timeUnit time unit of the linger time
+         * @return <code>Builder</code>
+         */
+        public Builder withLinger(long linger, @NonNull TimeUnit timeUnit) {
+            this.lingerNanos = timeUnit.toNanos(linger);
+            return this;
+        }
+
+        /**
+         * Sets the max count of inserts in flight. The default is 2, full batches wait until an insert is done.
+         *
+         * @param maxInFlight max concurrent inserts
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the max count of full batches waiting for an insert slot (Optional). Adding rows blocks while
+         * the queue is full. The default is 0, which doesn't limit the queue.
+         *
+         * @param maxQueuedBatches max waiting batches
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxQueuedBatches(int maxQueuedBatches) {
+            this.maxQueuedBatches = maxQueuedBatches;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of every insert (Optional). The default is the insert timeout in <code>ConnectParam</code>.
+         *
+         * @param timeout timeout of an insert
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link BulkWriterParam} instance.
+         *
+         * @return {@link BulkWriterParam}
+         */
+        public BulkWriterParam build() throws ParamException {
+            ParamUtils.CheckNullEmptyString(collectionName, "Collection name");
+
+            if (maxBatchRows <= 0) {
+                throw new ParamException("Max batch rows must be positive");
+            }
+            if (maxBatchBytes <= 0) {
+                throw new ParamException("Max batch bytes must be positive");
+            }
+            if (lingerNanos < 0) {
+                throw new ParamException("Linger time cannot be negative");
+            }
+            if (maxInFlight <= 0) {
+                throw new ParamException("Max in-flight inserts must be positive");
+            }
+            if (maxQueuedBatches < 0) {
+                throw new ParamException("Max queued batches cannot be negative");
+            }
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+            return new BulkWriterParam(this);
+        }
+    }
+}
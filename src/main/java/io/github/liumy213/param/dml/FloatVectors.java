@@ -0,0 +1,210 @@
+package io.github.liumy213.param.dml;
+
+import io.github.liumy213.exception.ParamException;
+import lombok.NonNull;
+
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Float vectors backed by primitive arrays or a {@link FloatBuffer}.
+ * It can be passed wherever a <code>List&lt;List&lt;Float&gt;&gt;</code> is expected, the request conversion
+ * recognizes it and copies the primitive values directly, no <code>Float</code> object is created.
+ * The caller must not modify the backing arrays/buffer until the request is done.
+ */
+public final class FloatVectors extends AbstractList<List<Float>> implements RandomAccess {
+    private final float[][] rows;
+    private final FloatBuffer flat;
+    private final int dim;
+    private final int count;
+
+    private FloatVectors(float[][] rows, FloatBuffer flat, int dim, int count) {
+        this.rows = rows;
+        this.flat = flat;
+        this.dim = dim;
+        this.count = count;
+    }
+
+    /**
+     * Wraps an array of vectors, all vectors must have the same dimension.
+     *
+     * @param vectors vectors, one array per vector
+     * @return {@link FloatVectors}
+     */
+    public static FloatVectors of(@NonNull float[][] vectors) {
+        if (vectors.length == 0) {
+            throw new ParamException("Float vectors cannot be empty");
+        }
+        int dim = vectors[0].length;
+        if (dim == 0) {
+            throw new ParamException("Float vector dimension must be positive");
+        }
+        for (float[] vector : vectors) {
+            if (vector == null || vector.length != dim) {
+                throw new ParamException("Float vector dimension must be equal");
+            }
+        }
+        return new FloatVectors(vectors, null, dim, vectors.length);
+    }
+
+    /**
+     * Wraps vectors stored one after another in a flat array.
+     *
+     * @param vectors flat array, its length must be a multiple of dim
+     * @param dim dimension of the vectors
+     * @return {@link FloatVectors}
+     */
+    public static FloatVectors of(@NonNull float[] vectors, int dim) {
+        return of(FloatBuffer.wrap(vectors), dim);
+    }
+
+    /**
+     * Wraps vectors stored one after another in the remaining elements of a buffer, which can be a direct buffer.
+     * The position/limit of the buffer are not changed.
+     *
+     * @param vectors buffer of vectors, its remaining size must be a multiple of dim
+     * @param dim dimension of the vectors
+     * @return {@link FloatVectors}
+     */
+    public static FloatVectors of(@NonNull FloatBuffer vectors, int dim) {
+        if (dim <= 0) {
+            throw new ParamException("Float vector dimension must be positive");
+        }
+        int remaining = vectors.remaining();
+        if (remaining == 0) {
+            throw new ParamException("Float vectors cannot be empty");
+        }
+        if (remaining % dim != 0) {
+            throw new ParamException("Float vectors size " + remaining + " is not a multiple of dimension " + dim);
+        }
+        return new FloatVectors(null, vectors.slice(), dim, remaining / dim);
+    }
+
+    /**
+     * Concatenates vectors of the same dimension.
+     *
+     * @param parts vectors to concatenate
+     * @return {@link FloatVectors}
+     */
+    public static FloatVectors concat(@NonNull List<FloatVectors> parts) {
+        if (parts.isEmpty()) {
+            throw new ParamException("Float vectors cannot be empty");
+        }
+        int dim = parts.get(0).dim;
+        int total = 0;
+        for (FloatVectors part : parts) {
+            if (part.dim != dim) {
+                throw new ParamException("Float vector dimension must be equal");
+            }
+            total += part.count;
+        }
+
+        float[] data = new float[total * dim];
+        int offset = 0;
+        for (FloatVectors part : parts) {
+            for (int i = 0; i < part.count; ++i) {
+                part.copyVector(i, data, offset);
+                offset += dim;
+            }
+        }
+        return of(data, dim);
+    }
+
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Gets one element of a vector.
+     *
+     * @param index index of the vector
+     * @param offset index of the element in the vector
+     * @return <code>float</code>
+     */
+    public float get(int index, int offset) {
+        if (rows != null) {
+            return rows[index][offset];
+        }
+        return flat.get(index * dim + offset);
+    }
+
+    /**
+     * Copies a vector into the destination array.
+     *
+     * @param index index of the vector
+     * @param dst destination array
+     * @param dstOffset where the vector starts in the destination array
+     */
+    public void copyVector(int index, float[] dst, int dstOffset) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Vector index: " + index + ", count: " + count);
+        }
+        if (rows != null) {
+            System.arraycopy(rows[index], 0, dst, dstOffset, dim);
+        } else {
+            FloatBuffer view = flat.duplicate();
+            view.position(index * dim);
+            view.get(dst, dstOffset, dim);
+        }
+    }
+
+    /**
+     * Returns a boxed view of a vector, prefer {@link #get(int, int)} or
+     * {@link #copyVector(int, float[], int)} on hot paths.
+     */
+    @Override
+    public List<Float> get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Vector index: " + index + ", count: " + count);
+        }
+        return new VectorView(index);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the vectors in [fromIndex, toIndex) as {@link FloatVectors} sharing the backing arrays/buffer,
+     * so that a slice is still converted without boxing.
+     */
+    @Override
+    public FloatVectors subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > count || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From index: " + fromIndex + ", to index: " + toIndex
+                    + ", count: " + count);
+        }
+        if (rows != null) {
+            return new FloatVectors(Arrays.copyOfRange(rows, fromIndex, toIndex), null, dim, toIndex - fromIndex);
+        }
+        FloatBuffer view = flat.duplicate();
+        view.position(fromIndex * dim);
+        view.limit(toIndex * dim);
+        return new FloatVectors(null, view.slice(), dim, toIndex - fromIndex);
+    }
+
+    private final class VectorView extends AbstractList<Float> implements RandomAccess {
+        private final int index;
+
+        private VectorView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Float get(int offset) {
+            if (offset < 0 || offset >= dim) {
+                throw new IndexOutOfBoundsException("Offset: " + offset + ", dimension: " + dim);
+            }
+            return FloatVectors.this.get(index, offset);
+        }
+
+        @Override
+        public int size() {
+            return dim;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.liumy213.param.dml;
+
+import io.github.liumy213.client.IngestListener;
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.ParamUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters for <code>ingest</code> interface.
+ * Rows are read from the source, checked and appended to primitive column batches, and the full batches are inserted
+ * with bounded concurrency. Reading blocks while <code>maxQueuedBatches</code> batches are waiting to be sent,
+ * so the source is read at the pace of the server.
+ */
+@Getter
+@ToString
+public class IngestParam {
+    private final String collectionName;
+    private final String partitionName;
+    private final int batchRows;
+    private final long maxBatchBytes;
+    private final int maxInFlight;
+    private final int maxQueuedBatches;
+    private final boolean continueOnError;
+    private final long timeoutNanos;
+    private final IngestListener listener;
+
+    private IngestParam(@NonNull Builder builder) {
+        this.collectionName = builder.collectionName;
+        this.partitionName = builder.partitionName;
+        this.batchRows = builder.batchRows;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxQueuedBatches = builder.maxQueuedBatches;
+        this.continueOnError = builder.continueOnError;
+        this.timeoutNanos = builder.timeoutNanos;
+        this.listener = builder.listener;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link IngestParam} class.
+     */
+    public static class Builder {
+        private String collectionName;
+        private String partitionName = "";
+        private int batchRows = 1000;
+        private long maxBatchBytes = 4 * 1024 * 1024;
+        private int maxInFlight = 2;
+        private int maxQueuedBatches = 2;
+        private boolean continueOnError = false;
+        private long timeoutNanos = 0;
+        private IngestListener listener;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the collection name. Collection name cannot be empty or null.
+         *
+         * @param collectionName collection name
+         * @return <code>Builder</code>
+         */
+        public Builder withCollectionName(@NonNull String collectionName) {
+            this.collectionName = collectionName;
+            return this;
+        }
+
+        /**
+         * Set partition name (Optional).
+         *
+         * @param partitionName partition name
+         * @return <code>Builder</code>
+         */
+        public Builder withPartitionName(@NonNull String partitionName) {
+            this.partitionName = partitionName;
+            return this;
+        }
+
+        /**
+         * Sets the max row count of a batch. The default is 1000.
+         *
+         * @param batchRows max rows of one insert
+         * @return <code>Builder</code>
+         */
+        public Builder withBatchRows(int batchRows) {
+            this.batchRows = batchRows;
+            return this;
+        }
+
+        /**
+         * Sets the max estimated size of a batch. The default is 4 MB.
+         *
+         * @param maxBatchBytes max bytes of one insert
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxBatchBytes(long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Sets the max count of inserts in flight. The default is 2.
+         *
+         * @param maxInFlight max concurrent inserts
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the max count of full batches waiting to be sent, reading stops while the queue is full.
+         * The default is 2.
+         *
+         * @param maxQueuedBatches max waiting batches
+         * @return <code>Builder</code>
+         */
+        public Builder withMaxQueuedBatches(int maxQueuedBatches) {
+            this.maxQueuedBatches = maxQueuedBatches;
+            return this;
+        }
+
+        /**
+         * Sets whether to go on after invalid rows or failed inserts. The default is false, the ingest stops
+         * at the first error. Either way every error is passed to the listener.
+         *
+         * @param continueOnError true to skip failed rows
+         * @return <code>Builder</code>
+         */
+        public Builder withContinueOnError(boolean continueOnError) {
+            this.continueOnError = continueOnError;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of every insert (Optional). The default is the insert timeout in <code>ConnectParam</code>.
+         *
+         * @param timeout timeout of an insert
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the listener of progress and errors (Optional).
+         *
+         * @param listener {@link IngestListener}
+         * @return <code>Builder</code>
+         */
+        public Builder withListener(@NonNull IngestListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link IngestParam} instance.
+         *
+         * @return {@link IngestParam}
+         */
+        public IngestParam build() throws ParamException {
+            ParamUtils.CheckNullEmptyString(collectionName, "Collection name");
+
+            if (batchRows <= 0) {
+                throw new ParamException("Batch rows must be positive");
+            }
+            if (maxBatchBytes <= 0) {
+                throw new ParamException("Max batch bytes must be positive");
+            }
+            if (maxInFlight <= 0) {
+                throw new ParamException("Max in-flight inserts must be positive");
+            }
+            if (maxQueuedBatches <= 0) {
+                throw new ParamException("Max queued batches must be positive");
+            }
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+            return new IngestParam(this);
+        }
+    }
+}
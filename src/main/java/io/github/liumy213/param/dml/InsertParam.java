@@ -25,7 +25,9 @@ import lombok.Getter;
 import lombok.NonNull;
 import org.apache.commons.collections4.CollectionUtils;
 
+import java.nio.FloatBuffer;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parameters for <code>insert</code> interface.
@@ -36,12 +38,14 @@ public class InsertParam {
     protected final String collectionName;
     protected final String partitionName;
     protected final int rowCount;
+    protected final long timeoutNanos;
 
     protected InsertParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
         this.partitionName = builder.partitionName;
         this.fields = builder.fields;
         this.rowCount = builder.rowCount;
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -57,6 +61,7 @@ public class InsertParam {
         protected String partitionName = "";
         protected List<Field> fields;
         protected int rowCount;
+        protected long timeoutNanos = 0;
 
         protected Builder() {
         }
@@ -107,6 +112,19 @@ public class InsertParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link InsertParam} instance.
          *
@@ -136,6 +154,10 @@ public class InsertParam {
             }
 
             // this method doesn't check data type, the insert() api will do this work
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new InsertParam(this);
         }
 
@@ -190,7 +212,7 @@ public class InsertParam {
      * If dataType is Float, values is List of Float;
      * If dataType is Double, values is List of Double;
      * If dataType is Varchar, values is List of String;
-     * If dataType is FloatVector, values is List of List Float;
+     * If dataType is FloatVector, values is List of List Float, or {@link FloatVectors} to pass primitive vectors;
      *
      */
     @lombok.Builder
@@ -203,6 +225,39 @@ public class InsertParam {
             this.values = values;
         }
 
+        /**
+         * Creates a float vector field from primitive arrays, one array per row.
+         *
+         * @param name field name
+         * @param vectors vectors of the rows
+         */
+        public Field(String name, float[][] vectors) {
+            this(name, FloatVectors.of(vectors));
+        }
+
+        /**
+         * Creates a float vector field from a flat array, vectors are stored one after another.
+         *
+         * @param name field name
+         * @param vectors flat array of vectors, its length must be a multiple of dim
+         * @param dim dimension of the vectors
+         */
+        public Field(String name, float[] vectors, int dim) {
+            this(name, FloatVectors.of(vectors, dim));
+        }
+
+        /**
+         * Creates a float vector field from the remaining elements of a buffer, vectors are stored one after another.
+         * The buffer must not be modified until the insert is done.
+         *
+         * @param name field name
+         * @param vectors buffer of vectors, its remaining size must be a multiple of dim
+         * @param dim dimension of the vectors
+         */
+        public Field(String name, FloatBuffer vectors, int dim) {
+            this(name, FloatVectors.of(vectors, dim));
+        }
+
         /**
          * Return name of the field.
          *
@@ -0,0 +1,184 @@
+package io.github.liumy213.param.dml;
+
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.param.ParamUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters of a prepared vector search, which are the parameters of <code>search</code> without the target vectors.
+ * They are validated and encoded once when the search is prepared, each search only encodes its target vectors.
+ */
+@Getter
+@ToString
+public class PreparedSearchParam {
+    private final String collectionName;
+    private final String vectorFieldName;
+    private final int topK;
+    private final String expr;
+    private final List<String> outFields;
+    private final String params;
+    private final long timeoutNanos;
+
+    private PreparedSearchParam(@NonNull Builder builder) {
+        this.collectionName = builder.collectionName;
+        this.vectorFieldName = builder.vectorFieldName;
+        this.topK = builder.topK;
+        this.expr = builder.expr;
+        this.outFields = Collections.unmodifiableList(new ArrayList<>(builder.outFields));
+        this.params = builder.params;
+        this.timeoutNanos = builder.timeoutNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates the parameters of one search with these parameters and the given target vectors.
+     * The parameters are not validated again.
+     *
+     * @param vectors target vectors
+     * @return {@link SearchParam}
+     */
+    public SearchParam toSearchParam(@NonNull FloatVectors vectors) {
+        if (vectors.isEmpty()) {
+            throw new ParamException("Target vectors can not be empty");
+        }
+        return new SearchParam(this, vectors);
+    }
+
+    /**
+     * Builder for {@link PreparedSearchParam} class.
+     */
+    public static class Builder {
+        private String collectionName;
+        private String vectorFieldName;
+        private Integer topK;
+        private String expr = "";
+        private final List<String> outFields = new ArrayList<>();
+        private String params = "{}";
+        private long timeoutNanos = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the collection name. Collection name cannot be empty or null.
+         *
+         * @param collectionName collection name
+         * @return <code>Builder</code>
+         */
+        public Builder withCollectionName(@NonNull String collectionName) {
+            this.collectionName = collectionName;
+            return this;
+        }
+
+        /**
+         * Sets target vector field by name. Field name cannot be empty or null.
+         *
+         * @param vectorFieldName vector field name
+         * @return <code>Builder</code>
+         */
+        public Builder withVectorFieldName(@NonNull String vectorFieldName) {
+            this.vectorFieldName = vectorFieldName;
+            return this;
+        }
+
+        /**
+         * Sets topK value of ANN search.
+         *
+         * @param topK topK value
+         * @return <code>Builder</code>
+         */
+        public Builder withTopK(@NonNull Integer topK) {
+            this.topK = topK;
+            return this;
+        }
+
+        /**
+         * Sets expression to filter out entities before searching (Optional).
+         *
+         * @param expr filtering expression
+         * @return <code>Builder</code>
+         */
+        public Builder withExpr(@NonNull String expr) {
+            this.expr = expr;
+            return this;
+        }
+
+        /**
+         * Specifies output fields (Optional).
+         *
+         * @param outFields output fields
+         * @return <code>Builder</code>
+         */
+        public Builder withOutFields(@NonNull List<String> outFields) {
+            outFields.forEach(this::addOutField);
+            return this;
+        }
+
+        /**
+         * Specifies an output field (Optional).
+         *
+         * @param fieldName filed name
+         * @return <code>Builder</code>
+         */
+        public Builder addOutField(@NonNull String fieldName) {
+            if (!this.outFields.contains(fieldName)) {
+                this.outFields.add(fieldName);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the search parameters specific to the index type.
+         *
+         * For example: IVF index, the search parameters can be "{\"nprobe\":10}"
+         *
+         * @param params extra parameters in json format
+         * @return <code>Builder</code>
+         */
+        public Builder withParams(@NonNull String params) {
+            this.params = params;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of each search (Optional), including its retries. The default is the search timeout
+         * in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of a search
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link PreparedSearchParam} instance.
+         * The params are parsed when the search is prepared.
+         *
+         * @return {@link PreparedSearchParam}
+         */
+        public PreparedSearchParam build() throws ParamException {
+            ParamUtils.CheckNullEmptyString(collectionName, "Collection name");
+            ParamUtils.CheckNullEmptyString(vectorFieldName, "Target field name");
+            if (topK == null || topK <= 0) {
+                throw new ParamException("TopK value is illegal");
+            }
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+            return new PreparedSearchParam(this);
+        }
+    }
+}
@@ -25,8 +25,10 @@ import lombok.Getter;
 import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parameters for <code>search</code> interface.
@@ -42,6 +44,7 @@ public class SearchParam {
     private final List<?> searchData;
     private final Long NQ;
     private final String params;
+    private final long timeoutNanos;
 
     private SearchParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
@@ -53,6 +56,21 @@ public class SearchParam {
         this.searchData = builder.searchData;
         this.NQ = builder.NQ;
         this.params = builder.params;
+        this.timeoutNanos = builder.timeoutNanos;
+    }
+
+    // a prepared search with its target vectors, the prepared parameters are validated already
+    SearchParam(@NonNull PreparedSearchParam prepared, @NonNull FloatVectors vectors) {
+        this.collectionName = prepared.getCollectionName();
+        this.vectorFieldName = prepared.getVectorFieldName();
+        this.textFieldName = null;
+        this.topK = prepared.getTopK();
+        this.expr = prepared.getExpr();
+        this.outFields = prepared.getOutFields();
+        this.searchData = vectors;
+        this.NQ = (long) vectors.size();
+        this.params = prepared.getParams();
+        this.timeoutNanos = prepared.getTimeoutNanos();
     }
 
     public static Builder newBuilder() {
@@ -72,6 +90,7 @@ public class SearchParam {
         private List<?> searchData;
         private Long NQ;
         private String params = "{}";
+        private long timeoutNanos = 0;
 
        Builder() {
         }
@@ -168,6 +187,40 @@ public class SearchParam {
             return this;
         }
 
+        /**
+         * Sets the target vectors from primitive arrays, the values are copied into the request
+         * without boxing. All vectors must have the same dimension.
+         *
+         * @param vectors target vectors, one array per vector
+         * @return <code>Builder</code>
+         */
+        public Builder withFloatVectors(@NonNull float[][] vectors) {
+            return withSearchData(FloatVectors.of(vectors));
+        }
+
+        /**
+         * Sets the target vectors from a flat array, vectors are stored one after another.
+         *
+         * @param vectors flat array of target vectors, its length must be a multiple of dim
+         * @param dim dimension of the vectors
+         * @return <code>Builder</code>
+         */
+        public Builder withFloatVectors(@NonNull float[] vectors, int dim) {
+            return withSearchData(FloatVectors.of(vectors, dim));
+        }
+
+        /**
+         * Sets the target vectors from the remaining elements of a buffer, vectors are stored one after another.
+         * The buffer must not be modified until the search is done.
+         *
+         * @param vectors buffer of target vectors, its remaining size must be a multiple of dim
+         * @param dim dimension of the vectors
+         * @return <code>Builder</code>
+         */
+        public Builder withFloatVectors(@NonNull FloatBuffer vectors, int dim) {
+            return withSearchData(FloatVectors.of(vectors, dim));
+        }
+
         /**
          * Sets the search parameters specific to the index type.
          *
@@ -181,6 +234,19 @@ public class SearchParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link SearchParam} instance.
          *
@@ -204,7 +270,9 @@ public class SearchParam {
                     throw new ParamException("Target vectors can not be empty");
                 }
 
-                if (searchData.get(0) instanceof List) {
+                if (searchData instanceof FloatVectors) {
+                    // primitive vectors are validated when they are wrapped
+                } else if (searchData.get(0) instanceof List) {
                     // float vectors
                     List<?> first = (List<?>) searchData.get(0);
                     if (!(first.get(0) instanceof Float)) {
@@ -233,6 +301,10 @@ public class SearchParam {
                 }
             }
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new SearchParam(this);
         }
     }
@@ -31,6 +31,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parameters for <code>createIndex</code> interface.
@@ -43,6 +44,7 @@ public class CreateIndexParam {
     private final String indexName;
     private final IndexType indexType; // for easily get to check with field type
     private final Map<String, String> extraParam = new HashMap<>();
+    private final long timeoutNanos;
 
     private CreateIndexParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
@@ -58,6 +60,7 @@ public class CreateIndexParam {
         if (builder.extraParam != null) {
             this.extraParam.put(Constant.PARAMS, builder.extraParam);
         }
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -74,6 +77,7 @@ public class CreateIndexParam {
         private String indexName = Constant.DEFAULT_INDEX_NAME;
         private MetricType metricType = MetricType.INVALID;
         private String extraParam;
+        private long timeoutNanos = 0;
 
         private Builder() {
         }
@@ -147,6 +151,19 @@ public class CreateIndexParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link CreateIndexParam} instance.
          *
@@ -170,6 +187,10 @@ public class CreateIndexParam {
                 }
             }
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new CreateIndexParam(this);
         }
     }
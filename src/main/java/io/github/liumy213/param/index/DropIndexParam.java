@@ -26,6 +26,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Parameters for <code>dropIndex</code> interface.
  */
@@ -34,11 +36,13 @@ public class DropIndexParam {
     private final String collectionName;
     private final String fieldName;
     private final String indexName;
+    private final long timeoutNanos;
 
     private DropIndexParam(@NonNull Builder builder) {
         this.collectionName = builder.collectionName;
         this.fieldName = builder.fieldName;
         this.indexName = builder.indexName;
+        this.timeoutNanos = builder.timeoutNanos;
     }
 
     public static Builder newBuilder() {
@@ -52,6 +56,7 @@ public class DropIndexParam {
         private String collectionName;
         private String fieldName;
         private String indexName = Constant.DEFAULT_INDEX_NAME;
+        private long timeoutNanos = 0;
 
         private Builder() {
         }
@@ -90,6 +95,19 @@ public class DropIndexParam {
             return this;
         }
 
+        /**
+         * Sets the timeout of the call (Optional), including its retries. The default is the timeout of
+         * the operation type in <code>ConnectParam</code>, zero means that default.
+         *
+         * @param timeout timeout of the call
+         * @param timeUnit time unit of the timeout
+         * @return <code>Builder</code>
+         */
+        public Builder withTimeout(long timeout, @NonNull TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(timeout);
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link DropIndexParam} instance.
          *
@@ -103,6 +121,10 @@ public class DropIndexParam {
                 indexName = Constant.DEFAULT_INDEX_NAME;
             }
 
+            if (timeoutNanos < 0) {
+                throw new ParamException("Timeout cannot be negative");
+            }
+
             return new DropIndexParam(this);
         }
     }
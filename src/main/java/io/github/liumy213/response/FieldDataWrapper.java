@@ -3,6 +3,14 @@ package io.github.liumy213.response;
 import com.google.protobuf.ProtocolStringList;
 import io.github.liumy213.exception.IllegalResponseException;
 import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.response.column.BoolColumn;
+import io.github.liumy213.response.column.Column;
+import io.github.liumy213.response.column.DoubleColumn;
+import io.github.liumy213.response.column.FloatColumn;
+import io.github.liumy213.response.column.FloatVectorColumn;
+import io.github.liumy213.response.column.IntColumn;
+import io.github.liumy213.response.column.LongColumn;
+import io.github.liumy213.response.column.StringColumn;
 import io.github.liumy213.rpc.DataType;
 import io.github.liumy213.rpc.FieldData;
 import lombok.NonNull;
@@ -11,12 +19,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 
-
 /**
  * Utility class to wrap response of <code>query/search</code> interface.
+ * The decoded values are cached, so repeated access to the same field doesn't decode the column again.
  */
 public class FieldDataWrapper {
     private final FieldData fieldData;
+    private List<?> decoded;
+    private Column column;
 
     public FieldDataWrapper(@NonNull FieldData fieldData) {
         this.fieldData = fieldData;
@@ -91,6 +101,13 @@ public class FieldDataWrapper {
      * @return <code>List</code>
      */
     public List<?> getFieldData() throws IllegalResponseException {
+        if (decoded == null) {
+            decoded = decodeFieldData();
+        }
+        return decoded;
+    }
+
+    private List<?> decodeFieldData() throws IllegalResponseException {
         DataType dt = fieldData.getType();
         switch (dt) {
             case FloatVector: {
@@ -126,9 +143,109 @@ public class FieldDataWrapper {
     }
 
     public Object valueByIdx(int index) throws ParamException {
-        if (index < 0 || index >= getFieldData().size()) {
+        List<?> data = getFieldData();
+        if (index < 0 || index >= data.size()) {
             throw new ParamException("index out of range");
         }
-        return getFieldData().get(index);
+        return data.get(index);
+    }
+
+    /**
+     * Gets the value of an Int64 field without boxing.
+     * Throws {@link ParamException} if the field type is not Int64.
+     *
+     * @param index index of the row
+     * @return <code>long</code>
+     */
+    public long getLong(int index) throws ParamException {
+        return getColumn(LongColumn.class).get(index);
+    }
+
+    /**
+     * Gets the value of an Int32 field without boxing.
+     * Throws {@link ParamException} if the field type is not Int32.
+     *
+     * @param index index of the row
+     * @return <code>int</code>
+     */
+    public int getInt(int index) throws ParamException {
+        return getColumn(IntColumn.class).get(index);
+    }
+
+    /**
+     * Gets the value of a Bool field without boxing.
+     * Throws {@link ParamException} if the field type is not Bool.
+     *
+     * @param index index of the row
+     * @return <code>boolean</code>
+     */
+    public boolean getBool(int index) throws ParamException {
+        return getColumn(BoolColumn.class).get(index);
+    }
+
+    /**
+     * Gets the value of a Float field without boxing.
+     * Throws {@link ParamException} if the field type is not Float.
+     *
+     * @param index index of the row
+     * @return <code>float</code>
+     */
+    public float getFloat(int index) throws ParamException {
+        return getColumn(FloatColumn.class).get(index);
+    }
+
+    /**
+     * Gets the value of a Double field without boxing.
+     * Throws {@link ParamException} if the field type is not Double.
+     *
+     * @param index index of the row
+     * @return <code>double</code>
+     */
+    public double getDouble(int index) throws ParamException {
+        return getColumn(DoubleColumn.class).get(index);
+    }
+
+    /**
+     * Gets the value of a String field.
+     * Throws {@link ParamException} if the field type is not String.
+     *
+     * @param index index of the row
+     * @return <code>String</code>
+     */
+    public String getString(int index) throws ParamException {
+        return getColumn(StringColumn.class).get(index);
+    }
+
+    /**
+     * Copies the vector of a FloatVector field into the destination array.
+     * Throws {@link ParamException} if the field type is not FloatVector.
+     *
+     * @param index index of the row
+     * @param dst destination array, its length must be at least the dimension
+     */
+    public void getVector(int index, float[] dst) throws ParamException {
+        getColumn(FloatVectorColumn.class).copyVector(index, dst, 0);
+    }
+
+    /**
+     * Gets the typed column view of the field.
+     * Throws {@link IllegalResponseException} if the field type is illegal.
+     *
+     * @return {@link Column}
+     */
+    public Column getColumn() throws IllegalResponseException {
+        if (column == null) {
+            column = Column.of(fieldData);
+        }
+        return column;
+    }
+
+    private <T extends Column> T getColumn(Class<T> type) {
+        Column typed = getColumn();
+        if (!type.isInstance(typed)) {
+            throw new ParamException(String.format("Field '%s' is %s, not %s",
+                    fieldData.getFieldName(), fieldData.getType(), type.getSimpleName()));
+        }
+        return type.cast(typed);
     }
 }
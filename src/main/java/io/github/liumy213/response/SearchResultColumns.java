@@ -0,0 +1,212 @@
+package io.github.liumy213.response;
+
+import io.github.liumy213.exception.IllegalResponseException;
+import io.github.liumy213.exception.ParamException;
+import io.github.liumy213.response.column.BoolColumn;
+import io.github.liumy213.response.column.Column;
+import io.github.liumy213.response.column.DoubleColumn;
+import io.github.liumy213.response.column.FloatColumn;
+import io.github.liumy213.response.column.FloatVectorColumn;
+import io.github.liumy213.response.column.IntColumn;
+import io.github.liumy213.response.column.LongColumn;
+import io.github.liumy213.response.column.StringColumn;
+import io.github.liumy213.rpc.FieldData;
+import io.github.liumy213.rpc.LongArray;
+import io.github.liumy213.rpc.SearchResultData;
+import lombok.NonNull;
+
+/**
+ * Columnar view of the response of <code>search</code> interface.
+ * The hit offsets of the target queries are computed once, ids/scores and output fields are read
+ * straight from the primitive protobuf arrays, no object is created per hit.
+ */
+public class SearchResultColumns {
+    private final SearchResultData results;
+    private final long[] offsets;
+
+    /**
+     * Throws {@link IllegalResponseException} if the topks don't match the returned ids/scores.
+     *
+     * @param results search results
+     */
+    public SearchResultColumns(@NonNull SearchResultData results) throws IllegalResponseException {
+        this.results = results;
+        this.offsets = SearchResultUtils.queryOffsets(results);
+    }
+
+    /**
+     * Gets the number of target queries.
+     *
+     * @return <code>int</code>
+     */
+    public int getNumQueries() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the total hit count of all target queries.
+     *
+     * @return <code>int</code>
+     */
+    public int getHitCount() {
+        return (int) offsets[offsets.length - 1];
+    }
+
+    /**
+     * Gets the hit count of a target query.
+     *
+     * @param indexOfTarget which target query
+     * @return <code>int</code>
+     */
+    public int getHitCount(int indexOfTarget) {
+        checkTarget(indexOfTarget);
+        return (int) (offsets[indexOfTarget + 1] - offsets[indexOfTarget]);
+    }
+
+    /**
+     * Gets where the hits of a target query start in the returned ids/scores/fields.
+     *
+     * @param indexOfTarget which target query
+     * @return <code>int</code>
+     */
+    public int getOffset(int indexOfTarget) {
+        checkTarget(indexOfTarget);
+        return (int) offsets[indexOfTarget];
+    }
+
+    /**
+     * Gets the id of a hit.
+     *
+     * @param indexOfTarget which target query
+     * @param rank rank of the hit in the query
+     * @return <code>long</code>
+     */
+    public long getId(int indexOfTarget, int rank) {
+        return results.getIds().getData(hitIndex(indexOfTarget, rank));
+    }
+
+    /**
+     * Gets the score of a hit.
+     *
+     * @param indexOfTarget which target query
+     * @param rank rank of the hit in the query
+     * @return <code>float</code>
+     */
+    public float getScore(int indexOfTarget, int rank) {
+        return results.getScores(hitIndex(indexOfTarget, rank));
+    }
+
+    /**
+     * Copies the ids of a target query into a new array.
+     *
+     * @param indexOfTarget which target query
+     * @return <code>long[]</code> ordered by rank
+     */
+    public long[] ids(int indexOfTarget) {
+        int offset = getOffset(indexOfTarget);
+        long[] ids = new long[getHitCount(indexOfTarget)];
+        LongArray data = results.getIds();
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = data.getData(offset + i);
+        }
+        return ids;
+    }
+
+    /**
+     * Copies the scores of a target query into a new array.
+     *
+     * @param indexOfTarget which target query
+     * @return <code>float[]</code> ordered by rank
+     */
+    public float[] scores(int indexOfTarget) {
+        int offset = getOffset(indexOfTarget);
+        float[] scores = new float[getHitCount(indexOfTarget)];
+        for (int i = 0; i < scores.length; ++i) {
+            scores[i] = results.getScores(offset + i);
+        }
+        return scores;
+    }
+
+    /**
+     * Gets the output field column of all hits.
+     * Throws {@link ParamException} if the field doesn't exist.
+     *
+     * @param fieldName field name
+     * @return {@link Column}, cast it or use the typed getters
+     */
+    public Column getColumn(@NonNull String fieldName) throws ParamException {
+        return Column.of(getField(fieldName), 0, getHitCount());
+    }
+
+    /**
+     * Gets the output field column of the hits of a target query.
+     * Throws {@link ParamException} if the field doesn't exist.
+     *
+     * @param fieldName field name
+     * @param indexOfTarget which target query
+     * @return {@link Column}, cast it or use the typed getters
+     */
+    public Column getColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        int offset = getOffset(indexOfTarget);
+        return Column.of(getField(fieldName), offset, offset + getHitCount(indexOfTarget));
+    }
+
+    public LongColumn getLongColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), LongColumn.class);
+    }
+
+    public IntColumn getIntColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), IntColumn.class);
+    }
+
+    public BoolColumn getBoolColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), BoolColumn.class);
+    }
+
+    public FloatColumn getFloatColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), FloatColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), DoubleColumn.class);
+    }
+
+    public StringColumn getStringColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), StringColumn.class);
+    }
+
+    public FloatVectorColumn getFloatVectorColumn(@NonNull String fieldName, int indexOfTarget) throws ParamException {
+        return typed(getColumn(fieldName, indexOfTarget), FloatVectorColumn.class);
+    }
+
+    private FieldData getField(String fieldName) {
+        for (int i = 0; i < results.getFieldsDataCount(); ++i) {
+            FieldData field = results.getFieldsData(i);
+            if (fieldName.equals(field.getFieldName())) {
+                return field;
+            }
+        }
+        throw new ParamException("Illegal field name: " + fieldName);
+    }
+
+    private static <T extends Column> T typed(Column column, Class<T> type) {
+        if (!type.isInstance(column)) {
+            throw new ParamException(String.format("Field '%s' is %s, not %s",
+                    column.getFieldName(), column.getDataType(), type.getSimpleName()));
+        }
+        return type.cast(column);
+    }
+
+    private int hitIndex(int indexOfTarget, int rank) {
+        if (rank < 0 || rank >= getHitCount(indexOfTarget)) {
+            throw new ParamException("Illegal rank " + rank + " of target: " + indexOfTarget);
+        }
+        return (int) offsets[indexOfTarget] + rank;
+    }
+
+    private void checkTarget(int indexOfTarget) {
+        if (indexOfTarget < 0 || indexOfTarget >= offsets.length - 1) {
+            throw new ParamException("Illegal index of target: " + indexOfTarget);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package io.github.liumy213.response;
+
+import io.github.liumy213.exception.IllegalResponseException;
+import io.github.liumy213.rpc.*;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility functions to split and reassemble {@link SearchResultData} by target queries.
+ */
+public class SearchResultUtils {
+
+    /**
+     * Gets the offset of each target query's hits in the result, the array has <code>num_queries + 1</code>
+     * elements and the last one is the total hit count.
+     * Throws {@link IllegalResponseException} if the topks don't match the returned ids/scores.
+     *
+     * @param results search results
+     * @return <code>long[]</code> prefix sums of the per-query topK
+     */
+    public static long[] queryOffsets(@NonNull SearchResultData results) {
+        int nq = (int) results.getNumQueries();
+        boolean separateTopK = results.getTopksCount() > 0;
+        if (separateTopK) {
+            nq = results.getTopksCount();
+        }
+
+        long[] offsets = new long[nq + 1];
+        for (int i = 0; i < nq; ++i) {
+            long k = separateTopK ? results.getTopks(i) : results.getTopK();
+            offsets[i + 1] = offsets[i] + k;
+        }
+
+        if (offsets[nq] > results.getScoresCount() || offsets[nq] > results.getIds().getDataCount()) {
+            throw new IllegalResponseException("Result ids/scores count doesn't match topks");
+        }
+        return offsets;
+    }
+
+    /**
+     * Extracts the results of target queries <code>[fromQuery, toQuery)</code> as a standalone result,
+     * as if only these queries were sent in the search request.
+     *
+     * @param results search results
+     * @param fromQuery index of the first target query, inclusive
+     * @param toQuery index of the last target query, exclusive
+     * @return {@link SearchResultData}
+     */
+    public static SearchResultData slice(@NonNull SearchResultData results, int fromQuery, int toQuery) {
+        long[] offsets = queryOffsets(results);
+        if (fromQuery < 0 || toQuery > offsets.length - 1 || fromQuery > toQuery) {
+            throw new IllegalResponseException(String.format("Result has %d queries, cannot slice [%d, %d)",
+                    offsets.length - 1, fromQuery, toQuery));
+        }
+
+        int from = (int) offsets[fromQuery];
+        int to = (int) offsets[toQuery];
+        SearchResultData.Builder builder = SearchResultData.newBuilder()
+                .setNumQueries(toQuery - fromQuery)
+                .setTopK(results.getTopK())
+                .addAllOutputFields(results.getOutputFieldsList());
+        if (results.getTopksCount() > 0) {
+            for (int i = fromQuery; i < toQuery; ++i) {
+                builder.addTopks(results.getTopks(i));
+            }
+        }
+
+        LongArray ids = results.getIds();
+        LongArray.Builder idsBuilder = LongArray.newBuilder();
+        for (int i = from; i < to; ++i) {
+            idsBuilder.addData(ids.getData(i));
+            builder.addScores(results.getScores(i));
+        }
+        builder.setIds(idsBuilder);
+
+        for (FieldData field : results.getFieldsDataList()) {
+            builder.addFieldsData(sliceFieldData(field, from, to));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Concatenates the results of consecutive target queries into one result, as if all the queries were sent
+     * in one search request. This is the reverse of {@link #slice(SearchResultData, int, int)}.
+     *
+     * @param parts results of consecutive target queries, with the same output fields
+     * @return {@link SearchResultData}
+     */
+    public static SearchResultData merge(@NonNull List<SearchResultData> parts) {
+        if (parts.isEmpty()) {
+            return SearchResultData.getDefaultInstance();
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        SearchResultData first = parts.get(0);
+        boolean separateTopK = false;
+        for (SearchResultData part : parts) {
+            if (part.getTopksCount() > 0) {
+                separateTopK = true;
+            }
+            if (part.getFieldsDataCount() != first.getFieldsDataCount()) {
+                throw new IllegalResponseException("Results to merge have different output fields");
+            }
+        }
+
+        SearchResultData.Builder builder = SearchResultData.newBuilder()
+                .setTopK(first.getTopK())
+                .addAllOutputFields(first.getOutputFieldsList());
+        LongArray.Builder idsBuilder = LongArray.newBuilder();
+        long numQueries = 0;
+        for (SearchResultData part : parts) {
+            long[] offsets = queryOffsets(part);
+            int queries = offsets.length - 1;
+            int hits = (int) offsets[queries];
+            numQueries += queries;
+            if (separateTopK) {
+                for (int i = 0; i < queries; ++i) {
+                    builder.addTopks(offsets[i + 1] - offsets[i]);
+                }
+            }
+            idsBuilder.addAllData(part.getIds().getDataList().subList(0, hits));
+            builder.addAllScores(part.getScoresList().subList(0, hits));
+        }
+        builder.setNumQueries(numQueries).setIds(idsBuilder);
+
+        for (int i = 0; i < first.getFieldsDataCount(); ++i) {
+            List<FieldData> fields = new ArrayList<>(parts.size());
+            for (SearchResultData part : parts) {
+                fields.add(part.getFieldsData(i));
+            }
+            builder.addFieldsData(mergeFieldData(fields));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Concatenates the rows of columns with the same name and type.
+     *
+     * @param fields columns, in row order
+     * @return {@link FieldData}
+     */
+    public static FieldData mergeFieldData(@NonNull List<FieldData> fields) {
+        FieldData first = fields.get(0);
+        for (FieldData field : fields) {
+            if (field.getType() != first.getType() || !field.getFieldName().equals(first.getFieldName())) {
+                throw new IllegalResponseException("Field data to merge don't match: " + first.getFieldName());
+            }
+        }
+        FieldData.Builder builder = FieldData.newBuilder()
+                .setType(first.getType())
+                .setFieldName(first.getFieldName())
+                .setFieldId(first.getFieldId());
+
+        switch (first.getType()) {
+            case FloatVector: {
+                long dim = first.getVectors().getDim();
+                FloatArray.Builder data = FloatArray.newBuilder();
+                for (FieldData field : fields) {
+                    if (field.getVectors().getDim() != dim) {
+                        throw new IllegalResponseException("Vector dimensions to merge don't match: "
+                                + first.getFieldName());
+                    }
+                    data.addAllData(field.getVectors().getFloatVector().getDataList());
+                }
+                return builder.setVectors(VectorField.newBuilder().setDim(dim).setFloatVector(data)).build();
+            }
+            case Int64: {
+                LongArray.Builder data = LongArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getLongData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setLongData(data)).build();
+            }
+            case Int32: {
+                IntArray.Builder data = IntArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getIntData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setIntData(data)).build();
+            }
+            case Bool: {
+                BoolArray.Builder data = BoolArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getBoolData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setBoolData(data)).build();
+            }
+            case Float: {
+                FloatArray.Builder data = FloatArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getFloatData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setFloatData(data)).build();
+            }
+            case Double: {
+                DoubleArray.Builder data = DoubleArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getDoubleData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setDoubleData(data)).build();
+            }
+            case String: {
+                StringArray.Builder data = StringArray.newBuilder();
+                fields.forEach(field -> data.addAllData(field.getScalars().getStringData().getDataList()));
+                return builder.setScalars(ScalarField.newBuilder().setStringData(data)).build();
+            }
+            default:
+                throw new IllegalResponseException("Unsupported data type returned by FieldData");
+        }
+    }
+
+    /**
+     * Picks rows from columns with the same name and type, row <code>i</code> of the result is row
+     * <code>rows[i]</code> of column <code>columns[i]</code>.
+     *
+     * @param fields columns to pick from
+     * @param columns index of the column of each picked row
+     * @param rows index of each picked row in its column
+     * @return {@link FieldData}
+     */
+    public static FieldData gatherFieldData(@NonNull List<FieldData> fields, @NonNull int[] columns,
+                                            @NonNull int[] rows) {
+        FieldData first = fields.get(0);
+        for (FieldData field : fields) {
+            if (field.getType() != first.getType() || !field.getFieldName().equals(first.getFieldName())) {
+                throw new IllegalResponseException("Field data to gather don't match: " + first.getFieldName());
+            }
+        }
+        FieldData.Builder builder = FieldData.newBuilder()
+                .setType(first.getType())
+                .setFieldName(first.getFieldName())
+                .setFieldId(first.getFieldId());
+
+        try {
+            switch (first.getType()) {
+                case FloatVector: {
+                    int dim = (int) first.getVectors().getDim();
+                    FloatArray.Builder data = FloatArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        FloatArray source = fields.get(columns[i]).getVectors().getFloatVector();
+                        for (int j = rows[i] * dim; j < (rows[i] + 1) * dim; ++j) {
+                            data.addData(source.getData(j));
+                        }
+                    }
+                    return builder.setVectors(VectorField.newBuilder().setDim(dim).setFloatVector(data)).build();
+                }
+                case Int64: {
+                    LongArray.Builder data = LongArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addData(fields.get(columns[i]).getScalars().getLongData().getData(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setLongData(data)).build();
+                }
+                case Int32: {
+                    IntArray.Builder data = IntArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addData(fields.get(columns[i]).getScalars().getIntData().getData(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setIntData(data)).build();
+                }
+                case Bool: {
+                    BoolArray.Builder data = BoolArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addData(fields.get(columns[i]).getScalars().getBoolData().getData(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setBoolData(data)).build();
+                }
+                case Float: {
+                    FloatArray.Builder data = FloatArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addData(fields.get(columns[i]).getScalars().getFloatData().getData(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setFloatData(data)).build();
+                }
+                case Double: {
+                    DoubleArray.Builder data = DoubleArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addData(fields.get(columns[i]).getScalars().getDoubleData().getData(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setDoubleData(data)).build();
+                }
+                case String: {
+                    StringArray.Builder data = StringArray.newBuilder();
+                    for (int i = 0; i < rows.length; ++i) {
+                        data.addDataBytes(fields.get(columns[i]).getScalars().getStringData().getDataBytes(rows[i]));
+                    }
+                    return builder.setScalars(ScalarField.newBuilder().setStringData(data)).build();
+                }
+                default:
+                    throw new IllegalResponseException("Unsupported data type returned by FieldData");
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalResponseException("Field data row count is wrong: " + first.getFieldName());
+        }
+    }
+
+    /**
+     * Extracts rows <code>[fromRow, toRow)</code> of a column.
+     *
+     * @param field column data
+     * @param fromRow index of the first row, inclusive
+     * @param toRow index of the last row, exclusive
+     * @return {@link FieldData}
+     */
+    public static FieldData sliceFieldData(@NonNull FieldData field, int fromRow, int toRow) {
+        FieldData.Builder builder = FieldData.newBuilder()
+                .setType(field.getType())
+                .setFieldName(field.getFieldName())
+                .setFieldId(field.getFieldId());
+
+        switch (field.getType()) {
+            case FloatVector: {
+                VectorField vectors = field.getVectors();
+                int dim = (int) vectors.getDim();
+                FloatArray source = vectors.getFloatVector();
+                checkRange(field, (long) toRow * dim, source.getDataCount());
+                FloatArray.Builder data = FloatArray.newBuilder();
+                for (int i = fromRow * dim; i < toRow * dim; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setVectors(VectorField.newBuilder().setDim(dim).setFloatVector(data)).build();
+            }
+            case Int64: {
+                LongArray source = field.getScalars().getLongData();
+                checkRange(field, toRow, source.getDataCount());
+                LongArray.Builder data = LongArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setLongData(data)).build();
+            }
+            case Int32: {
+                IntArray source = field.getScalars().getIntData();
+                checkRange(field, toRow, source.getDataCount());
+                IntArray.Builder data = IntArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setIntData(data)).build();
+            }
+            case Bool: {
+                BoolArray source = field.getScalars().getBoolData();
+                checkRange(field, toRow, source.getDataCount());
+                BoolArray.Builder data = BoolArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setBoolData(data)).build();
+            }
+            case Float: {
+                FloatArray source = field.getScalars().getFloatData();
+                checkRange(field, toRow, source.getDataCount());
+                FloatArray.Builder data = FloatArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setFloatData(data)).build();
+            }
+            case Double: {
+                DoubleArray source = field.getScalars().getDoubleData();
+                checkRange(field, toRow, source.getDataCount());
+                DoubleArray.Builder data = DoubleArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addData(source.getData(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setDoubleData(data)).build();
+            }
+            case String: {
+                StringArray source = field.getScalars().getStringData();
+                checkRange(field, toRow, source.getDataCount());
+                StringArray.Builder data = StringArray.newBuilder();
+                for (int i = fromRow; i < toRow; ++i) {
+                    data.addDataBytes(source.getDataBytes(i));
+                }
+                return builder.setScalars(ScalarField.newBuilder().setStringData(data)).build();
+            }
+            default:
+                throw new IllegalResponseException("Unsupported data type returned by FieldData");
+        }
+    }
+
+    private static void checkRange(FieldData field, long end, int count) {
+        if (end > count) {
+            throw new IllegalResponseException("Field data row count is wrong: " + field.getFieldName());
+        }
+    }
+}
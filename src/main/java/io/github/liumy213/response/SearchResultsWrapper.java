@@ -20,11 +20,27 @@ import java.util.Map;
  */
 public class SearchResultsWrapper extends RowRecordWrapper {
     private final SearchResultData results;
+    private long[] offsets;
+    private SearchResultColumns columns;
 
     public SearchResultsWrapper(@NonNull SearchResultData results) {
         this.results = results;
     }
 
+    /**
+     * Gets the columnar view of the results, which reads ids/scores/output fields without creating
+     * an object per hit.
+     * Throws {@link IllegalResponseException} if the returned results is illegal.
+     *
+     * @return {@link SearchResultColumns}
+     */
+    public SearchResultColumns getColumns() throws IllegalResponseException {
+        if (columns == null) {
+            columns = new SearchResultColumns(results);
+        }
+        return columns;
+    }
+
     /**
      * Gets {@link FieldDataWrapper} for a field.
      * Throws {@link ParamException} if the field doesn't exist.
@@ -33,14 +49,11 @@ public class SearchResultsWrapper extends RowRecordWrapper {
      * @return {@link FieldDataWrapper}
      */
     public FieldDataWrapper getFieldWrapper(@NonNull String fieldName) throws ParamException {
-        List<FieldData> fields = results.getFieldsDataList();
-        for (FieldData field : fields) {
-            if (fieldName.compareTo(field.getFieldName()) == 0) {
-                return new FieldDataWrapper(field);
-            }
+        FieldDataWrapper wrapper = getFieldWrappers().get(fieldName);
+        if (wrapper == null) {
+            throw new ParamException("The field name doesn't exist");
         }
-
-        throw new ParamException("The field name doesn't exist");
+        return wrapper;
     }
 
     @Override
@@ -63,9 +76,16 @@ public class SearchResultsWrapper extends RowRecordWrapper {
     protected RowRecord buildRowRecord(long index) {
         RowRecord record = new RowRecord();
 
-        List<IDScore> idScore = getIDScore(0);
-        record.put("id", idScore.get((int) index).getLongID());
-        record.put("distance", idScore.get((int)index).getScore());
+        Position position = getOffsetByIndex(0);
+        if (index < 0 || index >= position.getK()) {
+            throw new ParamException("Index out of range");
+        }
+        int offset = (int) (position.getOffset() + index);
+        if (offset >= results.getScoresCount() || offset >= results.getIds().getDataCount()) {
+            throw new IllegalResponseException("Result ids/scores count is wrong");
+        }
+        record.put("id", results.getIds().getData(offset));
+        record.put("distance", results.getScores(offset));
 
         buildRowRecord(record, index);
         return record;
@@ -90,14 +110,7 @@ public class SearchResultsWrapper extends RowRecordWrapper {
      * @return {@link FieldDataWrapper}
      */
     public List<?> getFieldData(@NonNull String fieldName, int indexOfTarget) {
-        FieldDataWrapper wrapper = null;
-        for (int i = 0; i < results.getFieldsDataCount(); ++i) {
-            FieldData data = results.getFieldsData(i);
-            if (fieldName.compareTo(data.getFieldName()) == 0) {
-                wrapper = new FieldDataWrapper(data);
-            }
-        }
-
+        FieldDataWrapper wrapper = getFieldWrappers().get(fieldName);
         if (wrapper == null) {
             throw new ParamException("Illegal field name: " + fieldName);
         }
@@ -131,7 +144,7 @@ public class SearchResultsWrapper extends RowRecordWrapper {
             throw new IllegalResponseException("Result scores count is wrong");
         }
 
-        List<IDScore> idScores = new ArrayList<>();
+        List<IDScore> idScores = new ArrayList<>((int) k);
 
         // set id and distance
         LongArray longIDs = results.getIds();
@@ -144,29 +157,23 @@ public class SearchResultsWrapper extends RowRecordWrapper {
         }
 
         // set output fields
-        List<String> outputFields = results.getOutputFieldsList();
-        List<FieldData> fields = results.getFieldsDataList();
-        if (fields.isEmpty()) {
+        Map<String, FieldDataWrapper> wrappers = getFieldWrappers();
+        if (wrappers.isEmpty()) {
             return idScores;
         }
 
-        for (String outputKey : outputFields) {
-            boolean isField = false;
-            for (FieldData field : fields) {
-                if (outputKey.equals(field.getFieldName())) {
-                    FieldDataWrapper wrapper = new FieldDataWrapper(field);
-                    for (int n = 0; n < k; ++n) {
-                        if ((offset + n) >= wrapper.getRowCount()) {
-                            throw new ParamException("Illegal values length of output fields");
-                        }
-
-                        Object value = wrapper.valueByIdx((int)offset + n);
-                        idScores.get(n).put(field.getFieldName(), value);
-                    }
+        for (String outputKey : results.getOutputFieldsList()) {
+            FieldDataWrapper wrapper = wrappers.get(outputKey);
+            if (wrapper == null) {
+                continue;
+            }
+            if (offset + k > wrapper.getRowCount()) {
+                throw new ParamException("Illegal values length of output fields");
+            }
 
-                    isField = true;
-                    break;
-                }
+            List<?> values = wrapper.getFieldData();
+            for (int n = 0; n < k; ++n) {
+                idScores.get(n).put(outputKey, values.get((int) offset + n));
             }
         }
         return idScores;
@@ -183,27 +190,20 @@ public class SearchResultsWrapper extends RowRecordWrapper {
         }
     }
     private Position getOffsetByIndex(int indexOfTarget) {
-        List<Long> kList = results.getTopksList();
-
-        // if the server didn't return separate topK, use same topK value
-        if (kList.isEmpty()) {
-            kList = new ArrayList<>();
-            for (long i = 0; i < results.getNumQueries(); ++i) {
-                kList.add(results.getTopK());
-            }
-        }
-
-        if (indexOfTarget < 0 || indexOfTarget >= kList.size()) {
+        long[] offsets = getOffsets();
+        if (indexOfTarget < 0 || indexOfTarget >= offsets.length - 1) {
             throw new ParamException("Illegal index of target: " + indexOfTarget);
         }
 
-        long offset = 0;
-        for (int i = 0; i < indexOfTarget; ++i) {
-            offset += kList.get(i);
-        }
+        long offset = offsets[indexOfTarget];
+        return new Position(offset, offsets[indexOfTarget + 1] - offset);
+    }
 
-        long k = kList.get(indexOfTarget);
-        return new Position(offset, k);
+    private long[] getOffsets() {
+        if (offsets == null) {
+            offsets = SearchResultUtils.queryOffsets(results);
+        }
+        return offsets;
     }
 
     /**
@@ -5,9 +5,12 @@ import io.github.liumy213.response.FieldDataWrapper;
 import io.github.liumy213.response.RowRecord;
 import io.github.liumy213.rpc.FieldData;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class RowRecordWrapper {
+    private Map<String, FieldDataWrapper> fieldWrappers;
 
     public abstract List<RowRecord> getRowRecords();
 
@@ -18,22 +21,38 @@ public abstract class RowRecordWrapper {
      * @return <code>RowRecord</code> a row record of the result
      */
     protected RowRecord buildRowRecord(RowRecord record, long index) {
+        Map<String, FieldDataWrapper> wrappers = getFieldWrappers();
         for (String outputKey : getOutputFields()) {
-            for (FieldData field : getFieldDataList()) {
-                if (outputKey.equals(field.getFieldName())) {
-                    FieldDataWrapper wrapper = new FieldDataWrapper(field);
-                    if (index < 0 || index >= wrapper.getRowCount()) {
-                        throw new ParamException("Index out of range");
-                    }
-                    Object value = wrapper.valueByIdx((int)index);
-                    record.put(field.getFieldName(), value);
-                    break;
-                }
+            FieldDataWrapper wrapper = wrappers.get(outputKey);
+            if (wrapper == null) {
+                continue;
+            }
+            if (index < 0 || index >= wrapper.getRowCount()) {
+                throw new ParamException("Index out of range");
             }
+            Object value = wrapper.valueByIdx((int)index);
+            record.put(outputKey, value);
         }
         return record;
     }
 
+    /**
+     * Gets the wrappers of the returned fields by field name, the wrappers are created once per response
+     * and cache their decoded values.
+     *
+     * @return <code>Map</code> field name to {@link FieldDataWrapper}
+     */
+    protected Map<String, FieldDataWrapper> getFieldWrappers() {
+        if (fieldWrappers == null) {
+            Map<String, FieldDataWrapper> wrappers = new HashMap<>();
+            for (FieldData field : getFieldDataList()) {
+                wrappers.putIfAbsent(field.getFieldName(), new FieldDataWrapper(field));
+            }
+            fieldWrappers = wrappers;
+        }
+        return fieldWrappers;
+    }
+
     protected abstract List<FieldData> getFieldDataList();
     protected abstract List<String> getOutputFields();
 
@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.BoolArray;
+import io.github.liumy213.rpc.FieldData;
+
+/**
+ * Column of a Bool field.
+ */
+public final class BoolColumn extends Column {
+    private final BoolArray data;
+
+    BoolColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getBoolData();
+    }
+
+    public boolean get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>boolean[]</code>
+     */
+    public boolean[] toArray() {
+        boolean[] values = new boolean[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}
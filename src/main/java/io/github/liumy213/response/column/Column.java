@@ -0,0 +1,129 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.exception.IllegalResponseException;
+import io.github.liumy213.rpc.DataType;
+import io.github.liumy213.rpc.FieldData;
+import lombok.NonNull;
+
+/**
+ * A read-only view of rows <code>[offset, offset + size)</code> of a returned {@link FieldData}.
+ * Typed subclasses read values straight from the primitive protobuf arrays, no object is created per row.
+ */
+public abstract class Column {
+    protected final FieldData field;
+    protected final int offset;
+    protected final int size;
+
+    Column(FieldData field, int offset, int size) {
+        this.field = field;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Creates a column over all rows of a field.
+     * Throws {@link IllegalResponseException} if the field type is illegal.
+     *
+     * @param field returned field data
+     * @return {@link Column} of the field type
+     */
+    public static Column of(@NonNull FieldData field) throws IllegalResponseException {
+        return of(field, 0, rowCount(field));
+    }
+
+    /**
+     * Creates a column over rows <code>[fromRow, toRow)</code> of a field.
+     * Throws {@link IllegalResponseException} if the field type is illegal or the rows are out of range.
+     *
+     * @param field returned field data
+     * @param fromRow index of the first row, inclusive
+     * @param toRow index of the last row, exclusive
+     * @return {@link Column} of the field type
+     */
+    public static Column of(@NonNull FieldData field, int fromRow, int toRow) throws IllegalResponseException {
+        int rowCount = rowCount(field);
+        if (fromRow < 0 || fromRow > toRow || toRow > rowCount) {
+            throw new IllegalResponseException(String.format("Field '%s' has %d rows, cannot get rows [%d, %d)",
+                    field.getFieldName(), rowCount, fromRow, toRow));
+        }
+
+        int size = toRow - fromRow;
+        switch (field.getType()) {
+            case FloatVector:
+                return new FloatVectorColumn(field, fromRow, size);
+            case Int64:
+                return new LongColumn(field, fromRow, size);
+            case Int32:
+                return new IntColumn(field, fromRow, size);
+            case Bool:
+                return new BoolColumn(field, fromRow, size);
+            case Float:
+                return new FloatColumn(field, fromRow, size);
+            case Double:
+                return new DoubleColumn(field, fromRow, size);
+            case String:
+                return new StringColumn(field, fromRow, size);
+            default:
+                throw new IllegalResponseException("Unsupported data type returned by FieldData");
+        }
+    }
+
+    private static int rowCount(FieldData field) {
+        switch (field.getType()) {
+            case FloatVector: {
+                int dim = (int) field.getVectors().getDim();
+                int count = field.getVectors().getFloatVector().getDataCount();
+                if (dim <= 0 || count % dim != 0) {
+                    throw new IllegalResponseException("Returned float vector field data array size doesn't match dimension");
+                }
+                return count / dim;
+            }
+            case Int64:
+                return field.getScalars().getLongData().getDataCount();
+            case Int32:
+                return field.getScalars().getIntData().getDataCount();
+            case Bool:
+                return field.getScalars().getBoolData().getDataCount();
+            case Float:
+                return field.getScalars().getFloatData().getDataCount();
+            case Double:
+                return field.getScalars().getDoubleData().getDataCount();
+            case String:
+                return field.getScalars().getStringData().getDataCount();
+            default:
+                throw new IllegalResponseException("Unsupported data type returned by FieldData");
+        }
+    }
+
+    public String getFieldName() {
+        return field.getFieldName();
+    }
+
+    public DataType getDataType() {
+        return field.getType();
+    }
+
+    /**
+     * Gets the row count of the column.
+     *
+     * @return <code>int</code>
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the value of a row as an object, prefer the typed getters of the subclasses.
+     *
+     * @param row index of the row in this column
+     * @return <code>Object</code>
+     */
+    public abstract Object getObject(int row);
+
+    protected int index(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+        return offset + row;
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.DoubleArray;
+import io.github.liumy213.rpc.FieldData;
+
+/**
+ * Column of a Double field.
+ */
+public final class DoubleColumn extends Column {
+    private final DoubleArray data;
+
+    DoubleColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getDoubleData();
+    }
+
+    public double get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>double[]</code>
+     */
+    public double[] toArray() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.FloatArray;
+import io.github.liumy213.rpc.FieldData;
+
+/**
+ * Column of a Float field.
+ */
+public final class FloatColumn extends Column {
+    private final FloatArray data;
+
+    FloatColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getFloatData();
+    }
+
+    public float get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>float[]</code>
+     */
+    public float[] toArray() {
+        float[] values = new float[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}
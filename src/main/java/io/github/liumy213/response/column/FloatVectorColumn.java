@@ -0,0 +1,88 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.FieldData;
+import io.github.liumy213.rpc.FloatArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column of a FloatVector field, the vectors of all rows are stored one after another.
+ */
+public final class FloatVectorColumn extends Column {
+    private final FloatArray data;
+    private final int dim;
+
+    FloatVectorColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getVectors().getFloatVector();
+        this.dim = (int) field.getVectors().getDim();
+    }
+
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Gets one element of the vector of a row.
+     *
+     * @param row index of the row in this column
+     * @param offset index of the element in the vector
+     * @return <code>float</code>
+     */
+    public float get(int row, int offset) {
+        if (offset < 0 || offset >= dim) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", dimension: " + dim);
+        }
+        return data.getData(index(row) * dim + offset);
+    }
+
+    /**
+     * Copies the vector of a row into the destination array.
+     *
+     * @param row index of the row in this column
+     * @param dst destination array
+     * @param dstOffset where the vector starts in the destination array
+     */
+    public void copyVector(int row, float[] dst, int dstOffset) {
+        int start = index(row) * dim;
+        for (int i = 0; i < dim; ++i) {
+            dst[dstOffset + i] = data.getData(start + i);
+        }
+    }
+
+    /**
+     * Copies the vector of a row into a new array.
+     *
+     * @param row index of the row in this column
+     * @return <code>float[]</code>
+     */
+    public float[] getVector(int row) {
+        float[] vector = new float[dim];
+        copyVector(row, vector, 0);
+        return vector;
+    }
+
+    /**
+     * Copies the vectors of all rows into a new flat array.
+     *
+     * @return <code>float[]</code> with <code>size() * getDim()</code> elements
+     */
+    public float[] toArray() {
+        float[] values = new float[size * dim];
+        for (int i = 0; i < size; ++i) {
+            copyVector(i, values, i * dim);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        int start = index(row) * dim;
+        List<Float> vector = new ArrayList<>(dim);
+        for (int i = 0; i < dim; ++i) {
+            vector.add(data.getData(start + i));
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.IntArray;
+import io.github.liumy213.rpc.FieldData;
+
+/**
+ * Column of a Int32 field.
+ */
+public final class IntColumn extends Column {
+    private final IntArray data;
+
+    IntColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getIntData();
+    }
+
+    public int get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>int[]</code>
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}
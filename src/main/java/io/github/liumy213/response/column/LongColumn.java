@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.LongArray;
+import io.github.liumy213.rpc.FieldData;
+
+/**
+ * Column of a Int64 field.
+ */
+public final class LongColumn extends Column {
+    private final LongArray data;
+
+    LongColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getLongData();
+    }
+
+    public long get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>long[]</code>
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}
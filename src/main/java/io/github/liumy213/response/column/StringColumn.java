@@ -0,0 +1,38 @@
+package io.github.liumy213.response.column;
+
+import io.github.liumy213.rpc.FieldData;
+import io.github.liumy213.rpc.StringArray;
+
+/**
+ * Column of a String field.
+ */
+public final class StringColumn extends Column {
+    private final StringArray data;
+
+    StringColumn(FieldData field, int offset, int size) {
+        super(field, offset, size);
+        this.data = field.getScalars().getStringData();
+    }
+
+    public String get(int row) {
+        return data.getData(index(row));
+    }
+
+    /**
+     * Copies the values of all rows into a new array.
+     *
+     * @return <code>String[]</code>
+     */
+    public String[] toArray() {
+        String[] values = new String[size];
+        for (int i = 0; i < size; ++i) {
+            values[i] = data.getData(offset + i);
+        }
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+}